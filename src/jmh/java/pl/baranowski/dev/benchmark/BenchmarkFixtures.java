@@ -0,0 +1,62 @@
+package pl.baranowski.dev.benchmark;
+
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.entity.Patient;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * In-memory doctors with visits, generated from a fixed seed so every run measures the same data.
+ */
+class BenchmarkFixtures {
+    static final long HOUR = 3600;
+    // Monday, far enough in the future for EpochFutureTimeRange and Reception
+    static final long SEARCH_START = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 0, 0), ZoneId.systemDefault()).toEpochSecond();
+    // how far back visit history goes before SEARCH_START
+    static final int HISTORY_DAYS = 365;
+
+    static final AnimalType CAT = new AnimalType(1L, "Cat");
+    static final MedSpecialty CARDIOLOGIST = new MedSpecialty(1L, "Cardiologist");
+
+    private BenchmarkFixtures() {
+    }
+
+    /*
+     * Doctors working Mon-Fri 9-16, with visitDensity of their working hours booked,
+     * from HISTORY_DAYS before SEARCH_START until windowDays after it.
+     */
+    static List<Doctor> doctors(int count, double visitDensity, int windowDays) {
+        Random random = new Random(42);
+        Patient patient = new Patient(1L, "Luis", CAT, 12, "Lionel Messi", "me@ss.i");
+        List<Doctor> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = new DoctorBuilder().id((long) i + 1)
+                                               .name("Doctor" + i)
+                                               .surname("Benchmark")
+                                               .nip("1181328620")
+                                               .hourlyRate(new BigDecimal(100))
+                                               .build();
+            doctor.addAnimalType(CAT);
+            doctor.addMedSpecialty(CARDIOLOGIST);
+            long from = SEARCH_START - HISTORY_DAYS * 24 * HOUR;
+            long till = SEARCH_START + windowDays * 24 * HOUR;
+            for (long hour = from; hour < till; hour += HOUR) {
+                if (doctor.worksAt(hour) && random.nextDouble() < visitDensity) {
+                    doctor.addVisit(new VisitBuilder().id(hour).doctor(doctor).patient(patient).epoch(hour).build());
+                }
+            }
+            result.add(doctor);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package pl.baranowski.dev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.baranowski.dev.entity.Doctor;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Doctor.isAvailableAt probed for every hour of the window, as slot search and booking used to do it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoctorAvailabilityBenchmark {
+    @Param({"0.2", "0.8"})
+    double visitDensity;
+    @Param({"2", "30"})
+    int windowDays;
+
+    private Doctor doctor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        doctor = BenchmarkFixtures.doctors(1, visitDensity, windowDays).get(0);
+    }
+
+    @Benchmark
+    public int isAvailableAt() {
+        int available = 0;
+        long end = BenchmarkFixtures.SEARCH_START + windowDays * 24 * BenchmarkFixtures.HOUR;
+        for (long hour = BenchmarkFixtures.SEARCH_START; hour < end; hour += BenchmarkFixtures.HOUR) {
+            if (doctor.isAvailableAt(hour)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    @Benchmark
+    public int worksAt() {
+        int working = 0;
+        long end = BenchmarkFixtures.SEARCH_START + windowDays * 24 * BenchmarkFixtures.HOUR;
+        for (long hour = BenchmarkFixtures.SEARCH_START; hour < end; hour += BenchmarkFixtures.HOUR) {
+            if (doctor.worksAt(hour)) {
+                working++;
+            }
+        }
+        return working;
+    }
+}
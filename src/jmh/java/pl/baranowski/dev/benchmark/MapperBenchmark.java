@@ -0,0 +1,93 @@
+package pl.baranowski.dev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.dto.VisitDTO;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.exception.epoch.InvalidEpochTimeException;
+import pl.baranowski.dev.mapper.AnimalTypeMapperImpl;
+import pl.baranowski.dev.mapper.AvailableSlotsMapper;
+import pl.baranowski.dev.mapper.AvailableSlotsMapperImpl;
+import pl.baranowski.dev.mapper.DoctorMapper;
+import pl.baranowski.dev.mapper.DoctorMapperImpl;
+import pl.baranowski.dev.mapper.MedSpecialtyMapperImpl;
+import pl.baranowski.dev.mapper.PatientMapperImpl;
+import pl.baranowski.dev.mapper.VisitMapper;
+import pl.baranowski.dev.mapper.VisitMapperImpl;
+import pl.baranowski.dev.model.AvailableSlotsFinder;
+import pl.baranowski.dev.model.DoctorsFreeSlots;
+import pl.baranowski.dev.model.EpochFutureTimeRange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * MapStruct mappers on search results and visit pages, wired by hand instead of by Spring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    @Param({"10", "200"})
+    int doctors;
+    @Param({"2", "30"})
+    int windowDays;
+
+    private AvailableSlotsMapper slotsMapper;
+    private VisitMapper visitMapper;
+    private List<DoctorsFreeSlots> freeSlots;
+    private List<Visit> visits;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidEpochTimeException {
+        DoctorMapper doctorMapper = new DoctorMapperImpl(new AnimalTypeMapperImpl(), new MedSpecialtyMapperImpl());
+        slotsMapper = new AvailableSlotsMapperImpl(doctorMapper);
+        visitMapper = new VisitMapperImpl(doctorMapper, new PatientMapperImpl());
+
+        List<Doctor> matchingDoctors = BenchmarkFixtures.doctors(doctors, 0.2, windowDays);
+        EpochFutureTimeRange timeRange = new EpochFutureTimeRange(BenchmarkFixtures.SEARCH_START,
+                                                                  BenchmarkFixtures.SEARCH_START + windowDays * 24 * BenchmarkFixtures.HOUR);
+        freeSlots = new AvailableSlotsFinder(matchingDoctors, timeRange).find();
+        visits = new ArrayList<>();
+        for (Doctor doctor : matchingDoctors) {
+            visits.addAll(doctor.getVisits());
+            if (visits.size() >= 50) {
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<DoctorsFreeSlotsDTO> availableSlotsToDto() {
+        List<DoctorsFreeSlotsDTO> result = new ArrayList<>(freeSlots.size());
+        for (DoctorsFreeSlots slots : freeSlots) {
+            result.add(slotsMapper.toDto(slots));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<VisitDTO> visitsToDto() {
+        List<VisitDTO> result = new ArrayList<>(visits.size());
+        for (Visit visit : visits) {
+            result.add(visitMapper.toDto(visit));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package pl.baranowski.dev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.baranowski.dev.App;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.exception.NotFoundException;
+import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
+import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
+import pl.baranowski.dev.manager.Reception;
+import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.repository.DoctorRepository;
+import pl.baranowski.dev.repository.MedSpecialtyRepository;
+import pl.baranowski.dev.repository.PatientRepository;
+import pl.baranowski.dev.repository.VisitRepository;
+import pl.baranowski.dev.service.DoctorService;
+import pl.baranowski.dev.service.PatientService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Validation of a new visit by Reception against the application's H2 database (dev profile, no web server),
+ * holding the fixture doctor's visit history, so the numbers include the entity lookups and overlap queries.
+ * The validated slot is free, so nothing is saved and every call does the same work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceptionBenchmark {
+    private static final int WINDOW_DAYS = 30;
+
+    @Param({"0.2", "0.8"})
+    double visitDensity;
+
+    private ConfigurableApplicationContext context;
+    private Reception reception;
+    private long doctorId;
+    private long patientId;
+    private long epoch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(App.class).web(WebApplicationType.NONE)
+                                                         .profiles("dev")
+                                                         // arguments override the profile's properties, which print every statement
+                                                         .run("--spring.jpa.show-sql=false");
+        AnimalType cat = context.getBean(AnimalTypeRepository.class).save(new AnimalType(BenchmarkFixtures.CAT.getName()));
+        MedSpecialty cardiologist = context.getBean(MedSpecialtyRepository.class).save(new MedSpecialty(BenchmarkFixtures.CARDIOLOGIST.getName()));
+        Patient patient = context.getBean(PatientRepository.class).save(new Patient("Pat", cat, 3, "Owner", "owner@mail.pl"));
+        Patient historyPatient = context.getBean(PatientRepository.class).save(new Patient("Luis", cat, 12, "Lionel Messi", "me@ss.i"));
+
+        Doctor fixture = BenchmarkFixtures.doctors(1, visitDensity, WINDOW_DAYS).get(0);
+        Doctor doctor = new DoctorBuilder().name(fixture.getName())
+                                           .surname(fixture.getSurname())
+                                           .nip(fixture.getNip())
+                                           .hourlyRate(new BigDecimal(100))
+                                           .build();
+        doctor.addAnimalType(cat);
+        doctor.addMedSpecialty(cardiologist);
+        doctor = context.getBean(DoctorRepository.class).save(doctor);
+
+        List<Visit> history = new ArrayList<>(fixture.getVisits().size());
+        for (Visit visit : fixture.getVisits()) {
+            history.add(new VisitBuilder().doctor(doctor).patient(historyPatient).epoch(visit.getEpoch()).build());
+        }
+        context.getBean(VisitRepository.class).saveAll(history);
+
+        reception = new Reception(context.getBean(DoctorService.class),
+                                  context.getBean(PatientService.class),
+                                  context.getBean(VisitRepository.class));
+        doctorId = doctor.getId();
+        patientId = patient.getId();
+        epoch = firstFreeHour(fixture);
+    }
+
+    // a working hour of the window without a visit, so validation passes
+    private static long firstFreeHour(Doctor fixture) {
+        long end = BenchmarkFixtures.SEARCH_START + WINDOW_DAYS * 24 * BenchmarkFixtures.HOUR;
+        for (long hour = BenchmarkFixtures.SEARCH_START; hour < end; hour += BenchmarkFixtures.HOUR) {
+            if (fixture.isAvailableAt(hour) && fixture.worksAt(hour + BenchmarkFixtures.HOUR - 1)) {
+                return hour;
+            }
+        }
+        throw new IllegalStateException("No free hour in the window.");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Visit createNewVisitIfPossible() throws NotFoundException, NewVisitNotPossibleException, DoctorNotActiveException {
+        return reception.createNewVisitIfPossible(doctorId, patientId, epoch);
+    }
+}
@@ -0,0 +1,87 @@
+package pl.baranowski.dev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.exception.epoch.InvalidEpochTimeException;
+import pl.baranowski.dev.model.AvailableSlotsFinder;
+import pl.baranowski.dev.model.DoctorsFreeRanges;
+import pl.baranowski.dev.model.DoctorsFreeSlots;
+import pl.baranowski.dev.model.EpochFutureTimeRange;
+import pl.baranowski.dev.model.HourBitmap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * AvailableSlotsFinder with busy hours prepared up front, the way AvailabilityIndex serves them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlotSearchBenchmark {
+    @Param({"10", "200"})
+    int doctors;
+    @Param({"0.2", "0.8"})
+    double visitDensity;
+    @Param({"2", "30"})
+    int windowDays;
+
+    private List<Doctor> matchingDoctors;
+    private Map<Long, HourBitmap> busyHours;
+    private EpochFutureTimeRange timeRange;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidEpochTimeException {
+        matchingDoctors = BenchmarkFixtures.doctors(doctors, visitDensity, windowDays);
+        busyHours = new HashMap<>();
+        for (Doctor doctor : matchingDoctors) {
+            busyHours.put(doctor.getId(), HourBitmap.ofVisits(doctor.getVisits()));
+        }
+        timeRange = new EpochFutureTimeRange(BenchmarkFixtures.SEARCH_START,
+                                             BenchmarkFixtures.SEARCH_START + windowDays * 24 * BenchmarkFixtures.HOUR);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<DoctorsFreeSlots> find() {
+        return finder().find();
+    }
+
+    @Benchmark
+    public List<DoctorsFreeSlots> findParallel() {
+        return finder().find(pool, 16);
+    }
+
+    @Benchmark
+    public List<DoctorsFreeRanges> findRanges() {
+        return finder().findRanges();
+    }
+
+    private AvailableSlotsFinder finder() {
+        return new AvailableSlotsFinder(matchingDoctors, timeRange, doctor -> busyHours.get(doctor.getId()));
+    }
+}
@@ -0,0 +1,23 @@
+package pl.baranowski.dev;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.baranowski.dev.generator.DataGenerator;
+
+/*
+ * Runs DataGenerator without the web server and exits. The dev database lives in memory and is dropped on exit,
+ * so point it to a persistent one, e.g.
+ * --spring.datasource.url=jdbc:h2:file:./target/vet-db --spring.jpa.hibernate.ddl-auto=update
+ * To fill the in-memory database of a running app instead, start App with the dev,generate profiles.
+ */
+public class DataGeneratorApp {
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .profiles(DataGenerator.PROFILE)
+                .web(WebApplicationType.NONE)
+                .run(args);
+        System.exit(SpringApplication.exit(context));
+    }
+}
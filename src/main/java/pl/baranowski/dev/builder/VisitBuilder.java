@@ -11,6 +11,7 @@ public class VisitBuilder {
     private Long epoch; // required
     private Long duration = 3600L; // optional, default = 3600
     private Boolean isConfirmed = false; // optional, default = false
+    private Long holdExpiresAt; // optional, only for holds
 
     public VisitBuilder id(Long id) {
         this.id = id;
@@ -41,7 +42,15 @@ public class VisitBuilder {
         return this;
     }
 
+    public VisitBuilder holdExpiresAt(Long holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+        return this;
+    }
+
     public Visit build() {
-        return new Visit(id, doctor, patient, epoch, duration, isConfirmed);
+        if (duration <= 0 || duration > Visit.MAX_DURATION) {
+            throw new IllegalArgumentException("Visit duration should be within range: 1-" + Visit.MAX_DURATION + " seconds.");
+        }
+        return new Visit(id, doctor, patient, epoch, duration, isConfirmed, holdExpiresAt);
     }
 }
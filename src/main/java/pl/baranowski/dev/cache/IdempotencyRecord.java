@@ -0,0 +1,64 @@
+package pl.baranowski.dev.cache;
+
+import org.springframework.http.HttpStatus;
+import pl.baranowski.dev.exception.ApiException;
+
+/*
+ * What is kept for an idempotency key: the request it was used with, and the first response to it -
+ * a result, an error, or nothing yet when the request is still in progress.
+ */
+public class IdempotencyRecord {
+    private final String fingerprint;
+    private final Object result;
+    private final HttpStatus errorStatus;
+    private final String errorMessage;
+
+    private IdempotencyRecord(String fingerprint, Object result, HttpStatus errorStatus, String errorMessage) {
+        this.fingerprint = fingerprint;
+        this.result = result;
+        this.errorStatus = errorStatus;
+        this.errorMessage = errorMessage;
+    }
+
+    public static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(fingerprint, null, null, null);
+    }
+
+    public static IdempotencyRecord succeeded(String fingerprint, Object result) {
+        return new IdempotencyRecord(fingerprint, result, null, null);
+    }
+
+    public static IdempotencyRecord failed(String fingerprint, ApiException error) {
+        return new IdempotencyRecord(fingerprint, null, error.getHttpStatus(), error.getMessage());
+    }
+
+    public boolean isInProgress() {
+        return result == null && errorStatus == null;
+    }
+
+    public boolean isFailed() {
+        return errorStatus != null;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public HttpStatus getErrorStatus() {
+        return errorStatus;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord [fingerprint=" + fingerprint + ", result=" + result + ", errorStatus=" + errorStatus
+                + ", errorMessage=" + errorMessage + "]";
+    }
+}
@@ -0,0 +1,27 @@
+package pl.baranowski.dev.cache;
+
+import java.util.Optional;
+
+/*
+ * Keeps the first response to every idempotency key, so retried requests can be answered without running them again.
+ * The in-process InMemoryIdempotencyStore is used unless another bean implements this interface,
+ * e.g. one backed by the database, shared by all nodes.
+ */
+public interface IdempotencyStore {
+
+    /*
+     * Reserves the key for a new request, keeping it as in progress.
+     * Returns empty, when the key has been reserved, or the record already kept for the key.
+     */
+    Optional<IdempotencyRecord> reserve(String key, String fingerprint);
+
+    /*
+     * Keeps the response to the request the key has been reserved for.
+     */
+    void complete(String key, IdempotencyRecord record);
+
+    /*
+     * Forgets the key, so the request can be retried, e.g. after a server error.
+     */
+    void release(String key);
+}
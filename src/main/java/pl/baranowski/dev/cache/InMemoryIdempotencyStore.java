@@ -0,0 +1,77 @@
+package pl.baranowski.dev.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/*
+ * IdempotencyStore of a single node. Keys are kept for ttlMillis since they have been reserved, up to maxEntries keys;
+ * when full, the oldest key is dropped. Keys are kept in the order of reservation, which is also the order of expiry,
+ * so expired keys are always at the head and are removed on the next call.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier currentTimeMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryIdempotencyStore(int maxEntries, long ttlMillis, LongSupplier currentTimeMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public synchronized Optional<IdempotencyRecord> reserve(String key, String fingerprint) {
+        long now = currentTimeMillis.getAsLong();
+        evictExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return Optional.of(existing.record);
+        }
+        entries.put(key, new Entry(IdempotencyRecord.inProgress(fingerprint), now + ttlMillis));
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized void complete(String key, IdempotencyRecord record) {
+        Entry entry = entries.get(key);
+        // missing, when dropped in the meantime; the response is not kept then
+        if (entry != null) {
+            entry.record = record;
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue().expiresAtMillis <= now) {
+            iterator.remove();
+        }
+    }
+
+    private static class Entry {
+        private IdempotencyRecord record;
+        private final long expiresAtMillis;
+
+        private Entry(IdempotencyRecord record, long expiresAtMillis) {
+            this.record = record;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
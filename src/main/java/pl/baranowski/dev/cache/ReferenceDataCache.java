@@ -0,0 +1,73 @@
+package pl.baranowski.dev.cache;
+
+import pl.baranowski.dev.dto.CacheStatsDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+ * Read-through cache of a small reference table, keyed by name. Names which have not been found are cached as well,
+ * so repeated lookups of a missing name do not reach the database either. Up to maxEntries names are kept;
+ * when full, the least recently used one is dropped.
+ * Loads run outside the lock. A load which has been running while the cache was invalidated is not stored,
+ * as it may have read the table before the change.
+ */
+public class ReferenceDataCache<T> {
+    private final String name;
+    private final int maxEntries;
+    private final Function<String, Optional<T>> loader;
+    private final Map<String, Optional<T>> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ReferenceDataCache(String name, int maxEntries, Function<String, Optional<T>> loader) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.loader = loader;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<T>> eldest) {
+                if (size() > ReferenceDataCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<T> get(String key) {
+        long loadedGeneration;
+        synchronized (this) {
+            Optional<T> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadedGeneration = generation;
+        }
+        Optional<T> loaded = loader.apply(key);
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        return new CacheStatsDTO(name, entries.size(), maxEntries, hits, misses, evictions, invalidations);
+    }
+}
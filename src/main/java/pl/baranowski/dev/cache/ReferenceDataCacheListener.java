@@ -0,0 +1,48 @@
+package pl.baranowski.dev.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+ * Clears the cache of an AnimalType or MedSpecialty written through JPA, once the change is committed,
+ * so that names read again see it. Saves of AnimalTypeService.addNew(...) and MedSpecialtyService.addNew(...) included.
+ * SlotSearchCache is cleared as well, as it keeps results by name.
+ * The caches are looked up through ObjectProvider, as JPA slices (@DataJpaTest) run without them.
+ */
+@Component
+public class ReferenceDataCacheListener {
+    private final ObjectProvider<ReferenceDataCaches> caches;
+    private final ObjectProvider<SlotSearchCache> slotSearchCache;
+
+    public ReferenceDataCacheListener(ObjectProvider<ReferenceDataCaches> caches,
+                                      ObjectProvider<SlotSearchCache> slotSearchCache) {
+        this.caches = caches;
+        this.slotSearchCache = slotSearchCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        Runnable invalidation = () -> {
+            caches.ifAvailable(cache -> cache.invalidate(entity));
+            slotSearchCache.ifAvailable(SlotSearchCache::invalidateAll);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+}
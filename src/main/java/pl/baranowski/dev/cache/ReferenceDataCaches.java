@@ -0,0 +1,42 @@
+package pl.baranowski.dev.cache;
+
+import pl.baranowski.dev.dto.CacheStatsDTO;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.MedSpecialty;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Caches of animal types and medical specialties by name. Both tables change rarely; ReferenceDataCacheListener
+ * clears a cache whenever its table is written through JPA.
+ */
+public class ReferenceDataCaches {
+    private final ReferenceDataCache<AnimalType> animalTypes;
+    private final ReferenceDataCache<MedSpecialty> medSpecialties;
+
+    public ReferenceDataCaches(ReferenceDataCache<AnimalType> animalTypes, ReferenceDataCache<MedSpecialty> medSpecialties) {
+        this.animalTypes = animalTypes;
+        this.medSpecialties = medSpecialties;
+    }
+
+    public ReferenceDataCache<AnimalType> animalTypes() {
+        return animalTypes;
+    }
+
+    public ReferenceDataCache<MedSpecialty> medSpecialties() {
+        return medSpecialties;
+    }
+
+    public void invalidate(Object entity) {
+        if (entity instanceof AnimalType) {
+            animalTypes.invalidateAll();
+        } else if (entity instanceof MedSpecialty) {
+            medSpecialties.invalidateAll();
+        }
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return Arrays.asList(animalTypes.stats(), medSpecialties.stats());
+    }
+}
@@ -0,0 +1,316 @@
+package pl.baranowski.dev.cache;
+
+import org.hibernate.Hibernate;
+import pl.baranowski.dev.dto.CacheStatsDTO;
+import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.index.ScheduleVersions;
+import pl.baranowski.dev.model.ETags;
+import pl.baranowski.dev.model.HourBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Results of free slot searches, keyed by animal type name, medical specialty name and the whole hours of the window,
+ * which are all the search looks at. Up to maxEntries results are kept; when full, the least recently used one is dropped.
+ * Every result remembers the ScheduleVersions of the doctors it was computed from, taken before their schedules were read.
+ * A change of any of them drops the result at once, and a result whose versions do not match is never returned.
+ * Results which could gain a doctor (a new one, or one given a new specialty) are dropped by doctorChanged(...);
+ * searches which have been running meanwhile are not stored, as they may have missed the doctor.
+ * A change of an animal type or a medical specialty drops every result, as names of hits are not looked up again.
+ * ETags of results are built from the same versions, so a result may be found current without being computed.
+ */
+public class SlotSearchCache {
+    public static final String NAME = "slotSearch";
+
+    private final int maxEntries;
+    private final ScheduleVersions scheduleVersions;
+    private final Map<Key, Entry> entries;
+    // keys of the results computed from every doctor's schedule, to drop them without a scan
+    private final Map<Long, Set<Key>> keysByDoctorId = new HashMap<>();
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public SlotSearchCache(int maxEntries, ScheduleVersions scheduleVersions) {
+        this.maxEntries = maxEntries;
+        this.scheduleVersions = scheduleVersions;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SlotSearchCache.this.maxEntries) {
+                    evictions++;
+                    forgetDoctorsOf(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        scheduleVersions.addListener(this::scheduleChanged);
+    }
+
+    public synchronized Optional<List<DoctorsFreeSlotsDTO>> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isCurrent(scheduleVersions)) {
+            hits++;
+            return Optional.of(entry.result);
+        }
+        if (entry != null) {
+            remove(key);
+            invalidations++;
+        }
+        misses++;
+        return Optional.empty();
+    }
+
+    /*
+     * To be read before the matching doctors are looked up.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /*
+     * To be taken before the doctors' schedules are read, and given back to put(...) with the result.
+     */
+    public synchronized Snapshot snapshot(long generation, Collection<Long> doctorIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (Long doctorId : doctorIds) {
+            versions.put(doctorId, scheduleVersions.versionOf(doctorId));
+        }
+        return new Snapshot(generation, versions);
+    }
+
+    /*
+     * ETag of the cached result, when there is a current one.
+     */
+    public synchronized Optional<String> eTagOf(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isCurrent(scheduleVersions) ? Optional.of(entry.eTag) : Optional.empty();
+    }
+
+    /*
+     * ETag of the result computed from the snapshot. It stays the same as long as the same doctors match the query
+     * and none of their schedules changes.
+     */
+    public static String eTagOf(Key key, Snapshot snapshot) {
+        List<Object> parts = new ArrayList<>();
+        parts.add(ETags.RUN_ID);
+        parts.add(key);
+        new TreeMap<>(snapshot.versions).forEach((doctorId, version) -> parts.add(doctorId + ":" + version));
+        return ETags.digest("slots", parts);
+    }
+
+    public synchronized void put(Key key, Snapshot snapshot, List<DoctorsFreeSlotsDTO> result) {
+        if (maxEntries <= 0 || snapshot.generation != generation) {
+            return;
+        }
+        Entry entry = new Entry(snapshot.versions, List.copyOf(result), eTagOf(key, snapshot));
+        if (!entry.isCurrent(scheduleVersions)) {
+            return;
+        }
+        remove(key);
+        for (Long doctorId : entry.versions.keySet()) {
+            keysByDoctorId.computeIfAbsent(doctorId, id -> new HashSet<>()).add(key);
+        }
+        entries.put(key, entry);
+    }
+
+    public void doctorChanged(Doctor doctor) {
+        doctorChanged(DoctorChange.of(doctor));
+    }
+
+    /*
+     * Drops results computed from the doctor's schedule, and results of the queries the doctor matches now.
+     */
+    public void doctorChanged(DoctorChange change) {
+        synchronized (this) {
+            if (change.animalTypeNames == null || change.medSpecialtyNames == null) {
+                invalidateAll();
+            } else {
+                generation++;
+                Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Key, Entry> cached = iterator.next();
+                    if (change.animalTypeNames.contains(cached.getKey().animalTypeName)
+                            && change.medSpecialtyNames.contains(cached.getKey().medSpecialtyName)) {
+                        iterator.remove();
+                        forgetDoctorsOf(cached.getKey(), cached.getValue());
+                        invalidations++;
+                    }
+                }
+            }
+        }
+        if (change.doctorId != null) {
+            scheduleVersions.changed(change.doctorId);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        keysByDoctorId.clear();
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        return new CacheStatsDTO(NAME, entries.size(), maxEntries, hits, misses, evictions, invalidations);
+    }
+
+    private synchronized void scheduleChanged(long doctorId) {
+        Set<Key> keys = keysByDoctorId.remove(doctorId);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            if (remove(key)) {
+                invalidations++;
+            }
+        }
+    }
+
+    private boolean remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        forgetDoctorsOf(key, entry);
+        return true;
+    }
+
+    private void forgetDoctorsOf(Key key, Entry entry) {
+        for (Long doctorId : entry.versions.keySet()) {
+            Set<Key> keys = keysByDoctorId.get(doctorId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByDoctorId.remove(doctorId);
+                }
+            }
+        }
+    }
+
+    public static final class Key {
+        private final String animalTypeName;
+        private final String medSpecialtyName;
+        private final long firstHour;
+        private final long lastHour;
+
+        private Key(String animalTypeName, String medSpecialtyName, long firstHour, long lastHour) {
+            this.animalTypeName = animalTypeName;
+            this.medSpecialtyName = medSpecialtyName;
+            this.firstHour = firstHour;
+            this.lastHour = lastHour;
+        }
+
+        /*
+         * Windows are aligned the way AvailableSlotsFinder aligns them: slots start at whole hours, within the window.
+         */
+        public static Key of(String animalTypeName, String medSpecialtyName, long startInSeconds, long endInSeconds) {
+            long firstHour = Math.floorDiv(startInSeconds + HourBitmap.HOUR_IN_SECONDS - 1, HourBitmap.HOUR_IN_SECONDS);
+            long lastHour = Math.floorDiv(endInSeconds, HourBitmap.HOUR_IN_SECONDS);
+            return new Key(animalTypeName, medSpecialtyName, firstHour, lastHour);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return firstHour == key.firstHour && lastHour == key.lastHour
+                    && Objects.equals(animalTypeName, key.animalTypeName)
+                    && Objects.equals(medSpecialtyName, key.medSpecialtyName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(animalTypeName, medSpecialtyName, firstHour, lastHour);
+        }
+
+        @Override
+        public String toString() {
+            return "Key [animalTypeName=" + animalTypeName + ", medSpecialtyName=" + medSpecialtyName
+                    + ", firstHour=" + firstHour + ", lastHour=" + lastHour + "]";
+        }
+    }
+
+    public static final class Snapshot {
+        private final long generation;
+        private final Map<Long, Long> versions;
+
+        private Snapshot(long generation, Map<Long, Long> versions) {
+            this.generation = generation;
+            this.versions = versions;
+        }
+    }
+
+    /*
+     * Names are null when they are not known, e.g. collections of a removed doctor which have not been loaded;
+     * every result is dropped then.
+     */
+    public static final class DoctorChange {
+        private final Long doctorId;
+        private final Set<String> animalTypeNames;
+        private final Set<String> medSpecialtyNames;
+
+        private DoctorChange(Long doctorId, Set<String> animalTypeNames, Set<String> medSpecialtyNames) {
+            this.doctorId = doctorId;
+            this.animalTypeNames = animalTypeNames;
+            this.medSpecialtyNames = medSpecialtyNames;
+        }
+
+        /*
+         * Reads the doctor at once, so the change may be applied after the session is gone.
+         */
+        public static DoctorChange of(Doctor doctor) {
+            return new DoctorChange(doctor.getId(),
+                                    namesOf(doctor.getAnimalTypes(), AnimalType::getName),
+                                    namesOf(doctor.getMedSpecialties(), MedSpecialty::getName));
+        }
+
+        private static <T> Set<String> namesOf(Set<T> items, Function<T, String> name) {
+            if (items == null || !Hibernate.isInitialized(items)) {
+                return null;
+            }
+            return items.stream().map(name).collect(Collectors.toSet());
+        }
+    }
+
+    private static final class Entry {
+        private final Map<Long, Long> versions;
+        private final List<DoctorsFreeSlotsDTO> result;
+        private final String eTag;
+
+        private Entry(Map<Long, Long> versions, List<DoctorsFreeSlotsDTO> result, String eTag) {
+            this.versions = versions;
+            this.result = result;
+            this.eTag = eTag;
+        }
+
+        private boolean isCurrent(ScheduleVersions scheduleVersions) {
+            for (Map.Entry<Long, Long> version : versions.entrySet()) {
+                if (scheduleVersions.versionOf(version.getKey()) != version.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package pl.baranowski.dev.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.baranowski.dev.entity.Doctor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+ * Tells SlotSearchCache about every Doctor written through JPA (added, fired, imported or removed), once it is committed.
+ * The doctor is read at once, as the session is gone after the commit.
+ * Changes of the doctor's specialties alone are not seen by JPA callbacks; DoctorService reports them itself.
+ */
+@Component
+public class SlotSearchCacheListener {
+    private final ObjectProvider<SlotSearchCache> slotSearchCache;
+
+    public SlotSearchCacheListener(ObjectProvider<SlotSearchCache> slotSearchCache) {
+        this.slotSearchCache = slotSearchCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Doctor doctor) {
+        SlotSearchCache.DoctorChange change = SlotSearchCache.DoctorChange.of(doctor);
+        Runnable invalidation = () -> slotSearchCache.ifAvailable(cache -> cache.doctorChanged(change));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.manager.BookingShards;
+
+@Configuration
+@EnableConfigurationProperties(BookingShardsProperties.class)
+public class BookingShardsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public BookingShards bookingShards(BookingShardsProperties properties) {
+        return new BookingShards(properties.getShards(), properties.getQueueCapacity(), properties.getRetryAfterSeconds());
+    }
+}
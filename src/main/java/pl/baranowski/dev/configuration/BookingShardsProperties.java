@@ -0,0 +1,72 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "vet.booking-shards")
+public class BookingShardsProperties {
+    /*
+     * Book visits on single-threaded shards keyed by doctor id, instead of the request thread.
+     */
+    private boolean enabled = false;
+    private int shards = Runtime.getRuntime().availableProcessors();
+    /*
+     * Bookings waiting on one shard; when the queue is full, new bookings are rejected at once.
+     */
+    private int queueCapacity = 256;
+    /*
+     * Sent in the Retry-After header of rejected bookings.
+     */
+    private long retryAfterSeconds = 1;
+    /*
+     * Longest wait of a request thread for its booking; a booking not done by then is refused like one of a full queue.
+     */
+    private Duration awaitTimeout = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Duration getAwaitTimeout() {
+        return awaitTimeout;
+    }
+
+    public void setAwaitTimeout(Duration awaitTimeout) {
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingShardsProperties [enabled=" + enabled + ", shards=" + shards + ", queueCapacity=" + queueCapacity
+                + ", retryAfterSeconds=" + retryAfterSeconds + ", awaitTimeout=" + awaitTimeout + "]";
+    }
+}
@@ -0,0 +1,19 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.cache.IdempotencyStore;
+import pl.baranowski.dev.cache.InMemoryIdempotencyStore;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(IdempotencyStore.class)
+    public IdempotencyStore idempotencyStore(IdempotencyProperties properties) {
+        return new InMemoryIdempotencyStore(properties.getMaxEntries(), properties.getTtl().toMillis(), System::currentTimeMillis);
+    }
+}
@@ -0,0 +1,38 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "vet.idempotency")
+public class IdempotencyProperties {
+    /*
+     * How long responses are kept for replay.
+     */
+    private Duration ttl = Duration.ofHours(24);
+    /*
+     * Number of keys kept in memory; when full, the oldest keys are dropped before their time.
+     */
+    private int maxEntries = 10000;
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyProperties [ttl=" + ttl + ", maxEntries=" + maxEntries + "]";
+    }
+}
@@ -0,0 +1,22 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.cache.ReferenceDataCache;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
+import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.repository.MedSpecialtyRepository;
+
+@Configuration
+@EnableConfigurationProperties(ReferenceDataCacheProperties.class)
+public class ReferenceDataCacheConfig {
+
+    @Bean
+    public ReferenceDataCaches referenceDataCaches(ReferenceDataCacheProperties properties,
+                                                   AnimalTypeRepository animalTypeRepository,
+                                                   MedSpecialtyRepository medSpecialtyRepository) {
+        return new ReferenceDataCaches(new ReferenceDataCache<>("animalTypesByName", properties.getMaxEntries(), animalTypeRepository::findOneByName),
+                                       new ReferenceDataCache<>("medSpecialtiesByName", properties.getMaxEntries(), medSpecialtyRepository::findOneByName));
+    }
+}
@@ -0,0 +1,24 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "vet.reference-cache")
+public class ReferenceDataCacheProperties {
+    /*
+     * Names kept per table, found or not; when full, the least recently used name is dropped.
+     */
+    private int maxEntries = 1000;
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceDataCacheProperties [maxEntries=" + maxEntries + "]";
+    }
+}
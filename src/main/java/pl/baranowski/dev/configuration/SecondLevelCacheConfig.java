@@ -0,0 +1,66 @@
+package pl.baranowski.dev.configuration;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Hibernate second-level cache on an Ehcache (JCache) manager of this JVM, with one heap-only region per cached entity,
+ * collection and query, sized by SecondLevelCacheProperties. Regions not listed here make Hibernate fail at startup
+ * (hibernate.javax.cache.missing_cache_strategy=fail), so none of them is left unbounded.
+ * The update timestamps region holds one entry per table and must never drop one, or cached queries would miss changes;
+ * its size should stay well above the number of tables.
+ * Every application context gets its own manager, so contexts of tests do not share cached entities.
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+    private static final List<String> REGIONS = Arrays.asList(AnimalType.CACHE_REGION,
+                                                              MedSpecialty.CACHE_REGION,
+                                                              Doctor.CACHE_REGION,
+                                                              Doctor.WORKING_DAYS_CACHE_REGION,
+                                                              Doctor.ANIMAL_TYPES_CACHE_REGION,
+                                                              Doctor.MED_SPECIALTIES_CACHE_REGION,
+                                                              Doctor.SEARCH_CACHE_REGION,
+                                                              RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                                                              RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties) {
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (String region : REGIONS) {
+            int maxEntries = properties.maxEntriesOf(region);
+            configuration = configuration.withCache(region, CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                    Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries)));
+            LOGGER.debug("Second-level cache region '{}' keeps up to {} entries.", region, maxEntries);
+        }
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:vet-bookings:second-level-cache:" + UUID.randomUUID()),
+                                        configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
@@ -0,0 +1,43 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "vet.second-level-cache")
+public class SecondLevelCacheProperties {
+    /*
+     * Entries kept per region of the Hibernate second-level cache, unless given for the region in maxEntries.
+     */
+    private int defaultMaxEntries = 1000;
+    /*
+     * Entries kept by region name, e.g. vet.second-level-cache.max-entries.doctor=20000.
+     */
+    private Map<String, Integer> maxEntries = new HashMap<>();
+
+    public int getDefaultMaxEntries() {
+        return defaultMaxEntries;
+    }
+
+    public void setDefaultMaxEntries(int defaultMaxEntries) {
+        this.defaultMaxEntries = defaultMaxEntries;
+    }
+
+    public Map<String, Integer> getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(Map<String, Integer> maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int maxEntriesOf(String region) {
+        return maxEntries.getOrDefault(region, defaultMaxEntries);
+    }
+
+    @Override
+    public String toString() {
+        return "SecondLevelCacheProperties [defaultMaxEntries=" + defaultMaxEntries + ", maxEntries=" + maxEntries + "]";
+    }
+}
@@ -0,0 +1,24 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.index.ScheduleVersions;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@EnableConfigurationProperties(SlotSearchProperties.class)
+public class SlotSearchConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool slotSearchPool(SlotSearchProperties properties) {
+        return new ForkJoinPool(properties.getPoolSize());
+    }
+
+    @Bean
+    public SlotSearchCache slotSearchCache(SlotSearchProperties properties, ScheduleVersions scheduleVersions) {
+        return new SlotSearchCache(properties.getCacheMaxEntries(), scheduleVersions);
+    }
+}
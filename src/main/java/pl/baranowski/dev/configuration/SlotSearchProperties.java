@@ -0,0 +1,57 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "vet.slot-search")
+public class SlotSearchProperties {
+    /*
+     * Search doctors' free slots on the slot search pool instead of the request thread.
+     */
+    private boolean parallel = false;
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    /*
+     * Number of doctors below which a search task stops splitting and runs sequentially.
+     */
+    private int splitThreshold = 16;
+    /*
+     * Number of search results kept by SlotSearchCache; 0 turns the cache off.
+     */
+    private int cacheMaxEntries = 1000;
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    public void setSplitThreshold(int splitThreshold) {
+        this.splitThreshold = splitThreshold;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotSearchProperties [parallel=" + parallel + ", poolSize=" + poolSize + ", splitThreshold=" + splitThreshold + ", cacheMaxEntries=" + cacheMaxEntries + "]";
+    }
+}
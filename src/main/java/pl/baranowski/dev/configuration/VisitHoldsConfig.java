@@ -0,0 +1,16 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.baranowski.dev.manager.VisitHolds;
+
+@Configuration
+@EnableConfigurationProperties(VisitHoldsProperties.class)
+public class VisitHoldsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public VisitHolds visitHolds(VisitHoldsProperties properties) {
+        return new VisitHolds(properties.getTick().toMillis(), properties.getWheelSize());
+    }
+}
@@ -0,0 +1,50 @@
+package pl.baranowski.dev.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "vet.holds")
+public class VisitHoldsProperties {
+    /*
+     * How long a held slot stays busy without being confirmed.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+    /*
+     * Precision of expiry; holds are released up to one tick after their time.
+     */
+    private Duration tick = Duration.ofSeconds(1);
+    /*
+     * Ticks in one round of the wheel, rounded up to a power of two. Holds longer than a round only cost an extra check per round.
+     */
+    private int wheelSize = 512;
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getTick() {
+        return tick;
+    }
+
+    public void setTick(Duration tick) {
+        this.tick = tick;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitHoldsProperties [ttl=" + ttl + ", tick=" + tick + ", wheelSize=" + wheelSize + "]";
+    }
+}
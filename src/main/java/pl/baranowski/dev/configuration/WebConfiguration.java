@@ -1,6 +1,7 @@
 package pl.baranowski.dev.configuration;
 
 import org.h2.server.web.WebServlet;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +10,7 @@ import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@ConditionalOnWebApplication
 @EnableWebMvc
 public class WebConfiguration implements WebMvcConfigurer {
 	
@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import pl.baranowski.dev.dto.AnimalTypeDTO;
 import pl.baranowski.dev.exception.InvalidParamException;
 import pl.baranowski.dev.exception.NotFoundException;
@@ -29,9 +30,13 @@ public class AnimalTypeController {
 
     @GetMapping(value = "/", produces = "application/json;charset=UTF-8")
     public @ResponseBody
-    List<AnimalTypeDTO> findAll() {
+    List<AnimalTypeDTO> findAll(WebRequest request) {
         LOGGER.debug("Received request: @GET '/animalTypes/', method: findAll()");
 
+        if (request.checkNotModified(animalTypeService.getAllETag())) {
+            LOGGER.debug("Animal types have not been modified, returning 304.");
+            return null;
+        }
         List<AnimalTypeDTO> animalTypeDTOs = animalTypeService.findAll();
 
         LOGGER.debug("Returning response: animalTypeDTOs - size: {}", animalTypeDTOs.size());
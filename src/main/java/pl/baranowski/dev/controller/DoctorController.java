@@ -8,6 +8,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.DoctorDTO;
 import pl.baranowski.dev.exception.EmptyFieldException;
 import pl.baranowski.dev.exception.InvalidParamException;
@@ -15,9 +17,11 @@ import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.doctor.DoctorAlreadyExistsException;
 import pl.baranowski.dev.exception.doctor.DoctorDoubledSpecialtyException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.service.DoctorService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 
@@ -33,13 +37,18 @@ public class DoctorController {
         this.doctorService = doctorService;
     }
 
+    // no @ResponseStatus on conditional GETs, it would replace 304 Not Modified
     @GetMapping(value = "/{id}", produces = "application/json;charset=UTF-8")
-    @ResponseStatus(HttpStatus.OK)
     public @ResponseBody
-    DoctorDTO getById(@PathVariable String id) throws NotFoundException, InvalidParamException {
+    DoctorDTO getById(@PathVariable String id, WebRequest request) throws NotFoundException, InvalidParamException {
         LOGGER.debug("Received request: @GET '/doctors/', method: getById(id='{}')", id);
 
-        DoctorDTO doctorDTO = doctorService.getDTO(getIdFromString(id));
+        Long doctorId = getIdFromString(id);
+        if (request.checkNotModified(doctorService.getETag(doctorId))) {
+            LOGGER.debug("Doctor has not been modified, returning 304.");
+            return null;
+        }
+        DoctorDTO doctorDTO = doctorService.getDTO(doctorId);
 
         LOGGER.debug("Returning response: {}", doctorDTO);
         return doctorDTO;
@@ -54,20 +63,38 @@ public class DoctorController {
     }
 
     @GetMapping(value = "/", produces = "application/json;charset=UTF-8")
-    @ResponseStatus(HttpStatus.OK)
     public @ResponseBody
     Page<DoctorDTO> findAll(@Min(0) @NotBlank @RequestParam("page") String page,
-                            @Min(1) @NotBlank @RequestParam("size") String size) throws InvalidParamException, EmptyFieldException {
+                            @Min(1) @NotBlank @RequestParam("size") String size,
+                            WebRequest request) throws InvalidParamException, EmptyFieldException {
         LOGGER.debug("Received request: @GET '/doctors/', method: findAll(page='{}', size ='{}')", page, size);
 
         Pageable requestedPageable = PageRequest.of(getIntegerFromString(page), getIntegerFromString(size));
         LOGGER.debug("Created pageable: {}", requestedPageable);
 
+        if (request.checkNotModified(doctorService.getPageETag(requestedPageable))) {
+            LOGGER.debug("Page has not been modified, returning 304.");
+            return null;
+        }
         Page<DoctorDTO> result = doctorService.findAll(requestedPageable);
         LOGGER.debug("Returning response: Page of DoctorDTOs - size: {}", result.getContent().size());
         return result;
     }
 
+    /*
+     * Keyset pagination: pass an empty after for the first page, then next of the previous page.
+     */
+    @GetMapping(value = "/", params = "after", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    CursorPageDTO<DoctorDTO> findAfter(@RequestParam("after") String after,
+                                       @Min(1) @Max(CursorPageDTO.MAX_SIZE) @NotBlank @RequestParam("size") String size) throws InvalidParamException {
+        LOGGER.debug("Received request: @GET '/doctors/', method: findAfter(after='{}', size ='{}')", after, size);
+
+        CursorPageDTO<DoctorDTO> result = doctorService.findAfter(KeysetCursor.decode(after, 1), getIntegerFromString(size));
+        LOGGER.debug("Returning response: CursorPage of DoctorDTOs - size: {}", result.getContent().size());
+        return result;
+    }
+
     private int getIntegerFromString(String str) throws InvalidParamException {
         try {
             return Integer.parseInt(str);
@@ -0,0 +1,58 @@
+package pl.baranowski.dev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import pl.baranowski.dev.dto.ImportReportDTO;
+import pl.baranowski.dev.exception.InvalidParamException;
+import pl.baranowski.dev.model.ImportFormat;
+import pl.baranowski.dev.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Bulk imports, read from the request body as it arrives (text/csv or application/x-ndjson).
+ * Imports are not atomic: rows are saved in chunks, and the report lists the rows which have not been saved.
+ */
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportController.class);
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value = "/doctors",
+            consumes = {ImportFormat.CSV_VALUE, ImportFormat.NDJSON_VALUE},
+            produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    ImportReportDTO importDoctors(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                  InputStream body) throws InvalidParamException, IOException {
+        LOGGER.debug("Received request: @POST '/import/doctors', contentType='{}'", contentType);
+
+        ImportReportDTO result = importService.importDoctors(body, ImportFormat.of(contentType));
+        LOGGER.debug("Returning import report: {}", result);
+        return result;
+    }
+
+    @PostMapping(value = "/patients",
+            consumes = {ImportFormat.CSV_VALUE, ImportFormat.NDJSON_VALUE},
+            produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    ImportReportDTO importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                   InputStream body) throws InvalidParamException, IOException {
+        LOGGER.debug("Received request: @POST '/import/patients', contentType='{}'", contentType);
+
+        ImportReportDTO result = importService.importPatients(body, ImportFormat.of(contentType));
+        LOGGER.debug("Returning import report: {}", result);
+        return result;
+    }
+}
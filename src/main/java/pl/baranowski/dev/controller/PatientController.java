@@ -20,13 +20,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.NewPatientDTO;
 import pl.baranowski.dev.dto.PatientDTO;
 import pl.baranowski.dev.exception.EmptyFieldException;
 import pl.baranowski.dev.exception.InvalidParamException;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.patient.PatientAlreadyExistsException;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.service.PatientService;
 
 @Validated
@@ -42,10 +45,15 @@ public class PatientController {
 
     @GetMapping(value = "/{id}", produces = "application/json;charset=UTF-8")
     public @ResponseBody
-    PatientDTO getById(@PathVariable("id") @NotEmpty @Min(1) String id) throws NotFoundException {
+    PatientDTO getById(@PathVariable("id") @NotEmpty @Min(1) String id, WebRequest request) throws NotFoundException {
         LOGGER.debug("Received request: @GET '/patients/{id}, id='{}'", id);
 
-        PatientDTO resultDTO = patientService.getDto(Long.decode(id));
+        Long patientId = Long.decode(id);
+        if (request.checkNotModified(patientService.getETag(patientId))) {
+            LOGGER.debug("Patient has not been modified, returning 304.");
+            return null;
+        }
+        PatientDTO resultDTO = patientService.getDto(patientId);
         LOGGER.debug("Returning DTO result: {}", resultDTO);
         return resultDTO;
     }
@@ -64,6 +72,20 @@ public class PatientController {
         return result;
     }
 
+    /*
+     * Keyset pagination: pass an empty after for the first page, then next of the previous page.
+     */
+    @GetMapping(value = "/", params = "after", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    CursorPageDTO<PatientDTO> findAfter(@RequestParam("after") String after,
+                                        @NotBlank @Min(1) @Max(CursorPageDTO.MAX_SIZE) @RequestParam("size") String size) throws InvalidParamException {
+        LOGGER.debug("Received request: @GET '/patients/, after='{}', size='{}'", after, size);
+
+        CursorPageDTO<PatientDTO> result = patientService.findAfter(KeysetCursor.decode(after, 1), getIntFromString(size));
+        LOGGER.debug("Returning CursorPage with {} elements.", result.getContent().size());
+        return result;
+    }
+
     private int getIntFromString(String intValue) throws InvalidParamException {
         try {
             return Integer.parseInt(intValue);
@@ -0,0 +1,52 @@
+package pl.baranowski.dev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.dto.BookingShardStatsDTO;
+import pl.baranowski.dev.dto.CacheStatsDTO;
+import pl.baranowski.dev.manager.BookingShards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Runtime counters of the application's in-memory components.
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsController.class);
+    private final BookingShards bookingShards;
+    private final ReferenceDataCaches referenceDataCaches;
+    private final SlotSearchCache slotSearchCache;
+
+    public StatsController(BookingShards bookingShards,
+                           ReferenceDataCaches referenceDataCaches,
+                           SlotSearchCache slotSearchCache) {
+        this.bookingShards = bookingShards;
+        this.referenceDataCaches = referenceDataCaches;
+        this.slotSearchCache = slotSearchCache;
+    }
+
+    @GetMapping(value = "/booking-shards", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    List<BookingShardStatsDTO> bookingShards() {
+        LOGGER.debug("Received request: @GET '/stats/booking-shards'");
+        return bookingShards.stats();
+    }
+
+    @GetMapping(value = "/caches", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    List<CacheStatsDTO> caches() {
+        LOGGER.debug("Received request: @GET '/stats/caches'");
+        List<CacheStatsDTO> result = new ArrayList<>(referenceDataCaches.stats());
+        result.add(slotSearchCache.stats());
+        return result;
+    }
+}
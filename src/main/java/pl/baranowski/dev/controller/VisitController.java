@@ -8,19 +8,33 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import pl.baranowski.dev.dto.BookingResultDTO;
+import pl.baranowski.dev.dto.CursorPageDTO;
+import pl.baranowski.dev.dto.DoctorsFreeRangesDTO;
 import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
 import pl.baranowski.dev.dto.NewVisitDTO;
 import pl.baranowski.dev.dto.VisitDTO;
+import pl.baranowski.dev.dto.VisitSearchDTO;
 import pl.baranowski.dev.exception.InvalidParamException;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.epoch.InvalidEpochTimeException;
+import pl.baranowski.dev.exception.search.SearchRequestInvalidException;
+import pl.baranowski.dev.exception.visit.HoldExpiredException;
+import pl.baranowski.dev.model.KeysetCursor;
+import pl.baranowski.dev.model.VisitRequest;
+import pl.baranowski.dev.service.IdempotencyService;
 import pl.baranowski.dev.service.VisitService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @CrossOrigin
 @RestController
@@ -28,11 +42,15 @@ import java.util.List;
 @Validated
 public class VisitController {
     public static final Pageable DEFAULT_PAGEABLE = PageRequest.of(0, 5);
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     private static final Logger LOGGER = LoggerFactory.getLogger(VisitController.class);
     private final VisitService visitService;
+    private final IdempotencyService idempotencyService;
 
-    public VisitController(VisitService visitService) {
+    public VisitController(VisitService visitService, IdempotencyService idempotencyService) {
         this.visitService = visitService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping(value = "/check", produces = "application/json;charset=UTF-8")
@@ -41,7 +59,8 @@ public class VisitController {
             @RequestParam("animalTypeName") @NotBlank(message = "Invalid search criteria: animalTypeName should not be empty.") String animalTypeName,
             @RequestParam("medSpecialtyName") @NotBlank(message = "Invalid search criteria: medSpecialtyName should not be empty.") String medSpecialtyName,
             @RequestParam("epochStart") @NotBlank(message = "Invalid search criteria: epochStart should not be empty.") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String epochStart,
-            @RequestParam("epochEnd") @NotBlank(message = "Invalid search criteria: epochEnd should not be empty.") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String epochEnd) throws InvalidEpochTimeException, NotFoundException, InvalidParamException {
+            @RequestParam("epochEnd") @NotBlank(message = "Invalid search criteria: epochEnd should not be empty.") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String epochEnd,
+            WebRequest request) throws InvalidEpochTimeException, NotFoundException, InvalidParamException {
         LOGGER.debug(
                 "Received request: @GET '/visits/check', method: findFreeSlots(animalTypeName='{}', medSpecialtyName='{}', epochStart='{}', epochEnd='{}')",
                 animalTypeName,
@@ -49,14 +68,55 @@ public class VisitController {
                 epochStart,
                 epochEnd);
 
+        Long start = decodeEpoch(epochStart);
+        Long end = decodeEpoch(epochEnd);
+        if (request.checkNotModified(visitService.getAvailableVisitsETag(animalTypeName, medSpecialtyName, start, end))) {
+            LOGGER.debug("Free slots have not changed, returning 304.");
+            return null;
+        }
         List<DoctorsFreeSlotsDTO> result = visitService.findAvailableVisits(animalTypeName,
                                                                             medSpecialtyName,
-                                                                            decodeEpoch(epochStart),
-                                                                            decodeEpoch(epochEnd));
+                                                                            start,
+                                                                            end);
         LOGGER.debug("Found {} free slots. Returning result.", result.size());
         return result;
     }
 
+    @GetMapping(value = "/check/ranges", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    List<DoctorsFreeRangesDTO> findFreeRanges(
+            @RequestParam("animalTypeName") @NotBlank(message = "Invalid search criteria: animalTypeName should not be empty.") String animalTypeName,
+            @RequestParam("medSpecialtyName") @NotBlank(message = "Invalid search criteria: medSpecialtyName should not be empty.") String medSpecialtyName,
+            @RequestParam("epochStart") @NotBlank(message = "Invalid search criteria: epochStart should not be empty.") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String epochStart,
+            @RequestParam("epochEnd") @NotBlank(message = "Invalid search criteria: epochEnd should not be empty.") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String epochEnd) throws InvalidEpochTimeException, NotFoundException, InvalidParamException {
+        LOGGER.debug(
+                "Received request: @GET '/visits/check/ranges', method: findFreeRanges(animalTypeName='{}', medSpecialtyName='{}', epochStart='{}', epochEnd='{}')",
+                animalTypeName,
+                medSpecialtyName,
+                epochStart,
+                epochEnd);
+
+        List<DoctorsFreeRangesDTO> result = visitService.findAvailableRanges(animalTypeName,
+                                                                             medSpecialtyName,
+                                                                             decodeEpoch(epochStart),
+                                                                             decodeEpoch(epochEnd));
+        LOGGER.debug("Found {} doctors with free ranges. Returning result.", result.size());
+        return result;
+    }
+
+    @PostMapping(value = "/search", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    List<DoctorsFreeSlotsDTO> searchFreeSlots(@Valid @RequestBody VisitSearchDTO search) throws InvalidEpochTimeException, NotFoundException, InvalidParamException, SearchRequestInvalidException {
+        LOGGER.debug("Received request: @POST '/visits/search', method: searchFreeSlots(VisitSearchDTO): {}", search);
+
+        List<DoctorsFreeSlotsDTO> result = visitService.searchAvailableVisits(search.getAnimalTypes(),
+                                                                              search.getMedSpecialties(),
+                                                                              decodeEpoch(search.getEpochStart()),
+                                                                              decodeEpoch(search.getEpochEnd()));
+        LOGGER.debug("Found {} doctors with free slots. Returning result.", result.size());
+        return result;
+    }
+
     private Long decodeEpoch(String epoch) throws InvalidParamException {
         try {
             return Long.decode(epoch);
@@ -90,11 +150,53 @@ public class VisitController {
         return result;
     }
 
+    /*
+     * Keyset pagination in (epoch, id) order: pass an empty after for the first page, then next of the previous page.
+     */
+    @GetMapping(value = "/", params = "after", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    CursorPageDTO<VisitDTO> findAfter(
+            @RequestParam("after") String after,
+            @RequestParam("size") @Pattern(regexp = "\\d+", message = "Parameter [size] must be natural number.") @Min(value = 1, message = "Parameter [size] must be greater than or equal to 1") @Max(value = CursorPageDTO.MAX_SIZE, message = "Parameter [size] must be less than or equal to " + CursorPageDTO.MAX_SIZE) String size) throws InvalidParamException {
+        LOGGER.debug("Received request: @GET '/visits/', method: findAfter(after='{}', size='{}')", after, size);
+
+        CursorPageDTO<VisitDTO> result = visitService.findAfter(KeysetCursor.decode(after, 2), Integer.parseInt(size));
+        LOGGER.debug("Returning {} visits, next='{}'.", result.getContent().size(), result.getNext());
+        return result;
+    }
+
+    /*
+     * Visits starting within [from, to), optionally of one doctor and/or one patient, keyset paginated in (epoch, id) order:
+     * pass no or an empty after for the first page, then next of the previous page.
+     */
+    @GetMapping(value = "/", params = {"from", "to"}, produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    CursorPageDTO<VisitDTO> findBetween(
+            @RequestParam("from") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String from,
+            @RequestParam("to") @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed") String to,
+            @RequestParam(value = "doctorId", required = false) @Pattern(regexp = "\\d+", message = "Parameter [doctorId] must be natural number.") String doctorId,
+            @RequestParam(value = "patientId", required = false) @Pattern(regexp = "\\d+", message = "Parameter [patientId] must be natural number.") String patientId,
+            @RequestParam(value = "after", defaultValue = "") String after,
+            @RequestParam("size") @Pattern(regexp = "\\d+", message = "Parameter [size] must be natural number.") @Min(value = 1, message = "Parameter [size] must be greater than or equal to 1") @Max(value = CursorPageDTO.MAX_SIZE, message = "Parameter [size] must be less than or equal to " + CursorPageDTO.MAX_SIZE) String size) throws InvalidParamException, InvalidEpochTimeException {
+        LOGGER.debug("Received request: @GET '/visits/', method: findBetween(from='{}', to='{}', doctorId='{}', patientId='{}', after='{}', size='{}')",
+                     from, to, doctorId, patientId, after, size);
+
+        CursorPageDTO<VisitDTO> result = visitService.findBetween(doctorId == null ? null : Long.decode(doctorId),
+                                                                  patientId == null ? null : Long.decode(patientId),
+                                                                  decodeEpoch(from),
+                                                                  decodeEpoch(to),
+                                                                  KeysetCursor.decode(after, 2),
+                                                                  Integer.parseInt(size));
+        LOGGER.debug("Returning {} visits, next='{}'.", result.getContent().size(), result.getNext());
+        return result;
+    }
+
     @PostMapping(value = "/", produces = "application/json;charset=UTF-8")
     @ResponseStatus(HttpStatus.CREATED)
     public @ResponseBody
-    VisitDTO addNew(@Valid @RequestBody NewVisitDTO nv) throws Exception {
-        LOGGER.debug("Received request: @POST '/visits/', method: addNew(NewVisitDTO): {}", nv);
+    VisitDTO addNew(@Valid @RequestBody NewVisitDTO nv,
+                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(max = 255, message = "Idempotency key should not be longer than 255 characters.") String idempotencyKey) throws Exception {
+        LOGGER.debug("Received request: @POST '/visits/', method: addNew(NewVisitDTO): {}, idempotencyKey='{}'", nv, idempotencyKey);
 
         long doctorId = Long.decode(nv.getDoctorId());
         long patientId = Long.decode(nv.getPatientId());
@@ -104,9 +206,52 @@ public class VisitController {
                      patientId,
                      epoch);
 
-        VisitDTO result = visitService.addNew(doctorId, patientId, epoch);
+        VisitDTO result = idempotencyKey == null
+                ? visitService.addNew(doctorId, patientId, epoch)
+                : idempotencyService.execute(idempotencyKey,
+                                             doctorId + ":" + patientId + ":" + epoch,
+                                             () -> visitService.addNew(doctorId, patientId, epoch));
+        LOGGER.debug("Returning result: {}", result);
+        return result;
+    }
+
+    @PostMapping(value = "/hold", produces = "application/json;charset=UTF-8")
+    @ResponseStatus(HttpStatus.CREATED)
+    public @ResponseBody
+    VisitDTO hold(@Valid @RequestBody NewVisitDTO nv) throws Exception {
+        LOGGER.debug("Received request: @POST '/visits/hold', method: hold(NewVisitDTO): {}", nv);
+
+        VisitDTO result = visitService.hold(Long.decode(nv.getDoctorId()),
+                                            Long.decode(nv.getPatientId()),
+                                            Long.decode(nv.getEpoch()));
+        LOGGER.debug("Returning result: {}", result);
+        return result;
+    }
+
+    @PutMapping(value = "/{id}/confirm", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    VisitDTO confirm(@Pattern(regexp = "\\d+", message = "Parameter [id] must be natural number.") @Min(1) @PathVariable String id) throws NotFoundException, HoldExpiredException {
+        LOGGER.debug("Received request: @PUT '/visits/{id}/confirm', method: confirm(id='{}')", id);
+
+        VisitDTO result = visitService.confirm(Long.decode(id));
         LOGGER.debug("Returning result: {}", result);
         return result;
     }
 
+    @PostMapping(value = "/batch", produces = "application/json;charset=UTF-8")
+    public @ResponseBody
+    List<BookingResultDTO> addNewBatch(
+            @RequestBody @NotEmpty(message = "Please provide at least one visit.") @Size(max = MAX_BATCH_SIZE, message = "Up to " + MAX_BATCH_SIZE + " visits can be booked at once.") List<@Valid NewVisitDTO> newVisits) {
+        LOGGER.debug("Received request: @POST '/visits/batch', method: addNewBatch(List<NewVisitDTO>) with {} visits.", newVisits.size());
+
+        List<VisitRequest> requests = newVisits.stream()
+                                               .map(nv -> new VisitRequest(Long.decode(nv.getDoctorId()),
+                                                                           Long.decode(nv.getPatientId()),
+                                                                           Long.decode(nv.getEpoch())))
+                                               .collect(Collectors.toList());
+        List<BookingResultDTO> result = visitService.addNewBatch(requests);
+        LOGGER.debug("Returning {} results.", result.size());
+        return result;
+    }
+
 }
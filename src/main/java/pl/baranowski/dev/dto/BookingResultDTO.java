@@ -0,0 +1,42 @@
+package pl.baranowski.dev.dto;
+
+import java.util.Objects;
+
+/*
+ * Result of one visit of a batch, in the order of the request: the booked visit or the error.
+ */
+public class BookingResultDTO {
+    private final VisitDTO visit;
+    private final ErrorDTO error;
+
+    public BookingResultDTO(VisitDTO visit, ErrorDTO error) {
+        this.visit = visit;
+        this.error = error;
+    }
+
+    public VisitDTO getVisit() {
+        return visit;
+    }
+
+    public ErrorDTO getError() {
+        return error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingResultDTO that = (BookingResultDTO) o;
+        return Objects.equals(visit, that.visit) && Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(visit, error);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingResultDTO [visit=" + visit + ", error=" + error + "]";
+    }
+}
@@ -0,0 +1,94 @@
+package pl.baranowski.dev.dto;
+
+import java.util.Objects;
+
+/*
+ * Counters of one booking shard since start. Failed bookings include rejected visits, e.g. busy doctors.
+ */
+public class BookingShardStatsDTO {
+    private final int shard;
+    private final int queued;
+    private final int queueCapacity;
+    private final long submitted;
+    private final long rejected;
+    private final long completed;
+    private final long failed;
+    private final long averageServiceMicros;
+
+    public BookingShardStatsDTO(int shard,
+                                int queued,
+                                int queueCapacity,
+                                long submitted,
+                                long rejected,
+                                long completed,
+                                long failed,
+                                long averageServiceMicros) {
+        this.shard = shard;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.submitted = submitted;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.failed = failed;
+        this.averageServiceMicros = averageServiceMicros;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getAverageServiceMicros() {
+        return averageServiceMicros;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingShardStatsDTO that = (BookingShardStatsDTO) o;
+        return shard == that.shard
+                && queued == that.queued
+                && queueCapacity == that.queueCapacity
+                && submitted == that.submitted
+                && rejected == that.rejected
+                && completed == that.completed
+                && failed == that.failed
+                && averageServiceMicros == that.averageServiceMicros;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(shard, queued, queueCapacity, submitted, rejected, completed, failed, averageServiceMicros);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingShardStatsDTO [shard=" + shard + ", queued=" + queued + ", queueCapacity=" + queueCapacity
+                + ", submitted=" + submitted + ", rejected=" + rejected + ", completed=" + completed + ", failed=" + failed
+                + ", averageServiceMicros=" + averageServiceMicros + "]";
+    }
+}
@@ -0,0 +1,84 @@
+package pl.baranowski.dev.dto;
+
+import java.util.Objects;
+
+/*
+ * Counters of one in-memory cache since start.
+ */
+public class CacheStatsDTO {
+    private final String cache;
+    private final int size;
+    private final int maxEntries;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+
+    public CacheStatsDTO(String cache, int size, int maxEntries, long hits, long misses, long evictions, long invalidations) {
+        this.cache = cache;
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public String getCache() {
+        return cache;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheStatsDTO that = (CacheStatsDTO) o;
+        return size == that.size
+                && maxEntries == that.maxEntries
+                && hits == that.hits
+                && misses == that.misses
+                && evictions == that.evictions
+                && invalidations == that.invalidations
+                && Objects.equals(cache, that.cache);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cache, size, maxEntries, hits, misses, evictions, invalidations);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatsDTO [cache=" + cache + ", size=" + size + ", maxEntries=" + maxEntries + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+}
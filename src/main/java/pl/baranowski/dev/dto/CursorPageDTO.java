@@ -0,0 +1,64 @@
+package pl.baranowski.dev.dto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Page of a keyset paginated list. next is the token of the following page, null on the last one.
+ * There is no total count, so no page needs a count query.
+ */
+public class CursorPageDTO<T> {
+    // largest page the keyset endpoints serve, so a page stays one bounded index range read
+    public static final int MAX_SIZE = 1000;
+
+    private final List<T> content;
+    private final int size;
+    private final String next;
+
+    public CursorPageDTO(List<T> content, int size, String next) {
+        this.content = content;
+        this.size = size;
+        this.next = next;
+    }
+
+    /*
+     * Page made of rows read with a limit of size + 1; the extra row only tells there is a next page.
+     */
+    public static <E, T> CursorPageDTO<T> of(List<E> rows, int size, Function<E, T> mapper, Function<E, String> tokenOf) {
+        List<E> page = rows.size() > size ? rows.subList(0, size) : rows;
+        String next = rows.size() > size ? tokenOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPageDTO<>(page.stream().map(mapper).collect(Collectors.toList()), size, next);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CursorPageDTO<?> that = (CursorPageDTO<?>) o;
+        return size == that.size && Objects.equals(content, that.content) && Objects.equals(next, that.next);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, size, next);
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPageDTO [content=" + content + ", size=" + size + ", next=" + next + "]";
+    }
+}
@@ -0,0 +1,54 @@
+package pl.baranowski.dev.dto;
+
+import java.util.List;
+
+public class DoctorsFreeRangesDTO {
+    private final DoctorDTO doctorDTO;
+    private final List<EpochRangeDTO> freeRanges;
+
+    public DoctorsFreeRangesDTO(DoctorDTO doctorDTO, List<EpochRangeDTO> freeRanges) {
+        this.doctorDTO = doctorDTO;
+        this.freeRanges = freeRanges;
+    }
+
+    public DoctorDTO getDoctorDTO() {
+        return doctorDTO;
+    }
+
+    public List<EpochRangeDTO> getFreeRanges() {
+        return freeRanges;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((freeRanges == null) ? 0 : freeRanges.hashCode());
+        result = prime * result + ((doctorDTO == null) ? 0 : doctorDTO.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        DoctorsFreeRangesDTO other = (DoctorsFreeRangesDTO) obj;
+        if (freeRanges == null) {
+            if (other.freeRanges != null)
+                return false;
+        } else if (!freeRanges.equals(other.freeRanges))
+            return false;
+        if (doctorDTO == null) {
+            return other.doctorDTO == null;
+        } else return doctorDTO.equals(other.doctorDTO);
+    }
+
+    @Override
+    public String toString() {
+        return "DoctorsFreeRangesDTO [doctorDTO=" + doctorDTO + ", freeRanges=" + freeRanges + "]";
+    }
+}
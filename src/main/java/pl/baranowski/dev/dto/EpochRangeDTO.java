@@ -0,0 +1,45 @@
+package pl.baranowski.dev.dto;
+
+public class EpochRangeDTO {
+    private final long start;
+    private final long end;
+
+    public EpochRangeDTO(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (int) (start ^ (start >>> 32));
+        result = prime * result + (int) (end ^ (end >>> 32));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        EpochRangeDTO other = (EpochRangeDTO) obj;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public String toString() {
+        return "EpochRangeDTO [start=" + start + ", end=" + end + "]";
+    }
+}
@@ -0,0 +1,42 @@
+package pl.baranowski.dev.dto;
+
+import java.util.Objects;
+
+/*
+ * A row of an import which has not been saved: its line number in the input and the reason.
+ */
+public class ImportRejectDTO {
+    private final int line;
+    private final String reason;
+
+    public ImportRejectDTO(int line, String reason) {
+        this.line = line;
+        this.reason = reason;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportRejectDTO that = (ImportRejectDTO) o;
+        return line == that.line && Objects.equals(reason, that.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(line, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportRejectDTO [line=" + line + ", reason=" + reason + "]";
+    }
+}
@@ -0,0 +1,78 @@
+package pl.baranowski.dev.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Summary of a bulk import. Only the first rejects are listed, rejectedRows counts all of them.
+ */
+public class ImportReportDTO {
+    private final long rows;
+    private final long importedRows;
+    private final long rejectedRows;
+    private final long durationMillis;
+    private final long rowsPerSecond;
+    private final List<ImportRejectDTO> rejects;
+
+    public ImportReportDTO(long rows,
+                           long importedRows,
+                           long rejectedRows,
+                           long durationMillis,
+                           long rowsPerSecond,
+                           List<ImportRejectDTO> rejects) {
+        this.rows = rows;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.durationMillis = durationMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.rejects = rejects;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public List<ImportRejectDTO> getRejects() {
+        return rejects;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportReportDTO that = (ImportReportDTO) o;
+        return rows == that.rows
+                && importedRows == that.importedRows
+                && rejectedRows == that.rejectedRows
+                && durationMillis == that.durationMillis
+                && rowsPerSecond == that.rowsPerSecond
+                && Objects.equals(rejects, that.rejects);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rows, importedRows, rejectedRows, durationMillis, rowsPerSecond, rejects);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReportDTO [rows=" + rows + ", importedRows=" + importedRows + ", rejectedRows=" + rejectedRows
+                + ", durationMillis=" + durationMillis + ", rowsPerSecond=" + rowsPerSecond + ", rejects=" + rejects + "]";
+    }
+}
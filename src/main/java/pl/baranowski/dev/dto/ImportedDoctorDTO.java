@@ -0,0 +1,114 @@
+package pl.baranowski.dev.dto;
+
+import pl.baranowski.dev.constraint.HourlyRateConstraint;
+import pl.baranowski.dev.constraint.NipConstraint;
+
+import javax.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * One row of a doctors import. Animal types and medical specialties are given by name.
+ */
+public class ImportedDoctorDTO {
+    @NotBlank(message = "Name should not be empty.")
+    private String name;
+    @NotBlank(message = "Surname should not be empty.")
+    private String surname;
+    @HourlyRateConstraint(message = "Hourly rate should be positive number and should not be empty.")
+    private String hourlyRate;
+    @NipConstraint(message = "Invalid NIP. Should not be empty.")
+    private String nip;
+    private List<String> animalTypes = new ArrayList<>();
+    private List<String> medSpecialties = new ArrayList<>();
+
+    public ImportedDoctorDTO() {
+    }
+
+    public ImportedDoctorDTO(String name,
+                             String surname,
+                             String hourlyRate,
+                             String nip,
+                             List<String> animalTypes,
+                             List<String> medSpecialties) {
+        this.name = name;
+        this.surname = surname;
+        this.hourlyRate = hourlyRate;
+        this.nip = nip;
+        this.animalTypes = animalTypes;
+        this.medSpecialties = medSpecialties;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public String getHourlyRate() {
+        return hourlyRate;
+    }
+
+    public void setHourlyRate(String hourlyRate) {
+        this.hourlyRate = hourlyRate;
+    }
+
+    public String getNip() {
+        return nip;
+    }
+
+    public void setNip(String nip) {
+        this.nip = nip;
+    }
+
+    public List<String> getAnimalTypes() {
+        return animalTypes;
+    }
+
+    public void setAnimalTypes(List<String> animalTypes) {
+        this.animalTypes = animalTypes;
+    }
+
+    public List<String> getMedSpecialties() {
+        return medSpecialties;
+    }
+
+    public void setMedSpecialties(List<String> medSpecialties) {
+        this.medSpecialties = medSpecialties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportedDoctorDTO that = (ImportedDoctorDTO) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(surname, that.surname)
+                && Objects.equals(hourlyRate, that.hourlyRate)
+                && Objects.equals(nip, that.nip)
+                && Objects.equals(animalTypes, that.animalTypes)
+                && Objects.equals(medSpecialties, that.medSpecialties);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, surname, hourlyRate, nip, animalTypes, medSpecialties);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportedDoctorDTO [name=" + name + ", surname=" + surname + ", hourlyRate=" + hourlyRate + ", nip=" + nip
+                + ", animalTypes=" + animalTypes + ", medSpecialties=" + medSpecialties + "]";
+    }
+}
@@ -0,0 +1,68 @@
+package pl.baranowski.dev.dto;
+
+import javax.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Names of animal types or medical specialties a doctor should have: at least one of anyOf (when given) and all of allOf.
+ */
+public class NameCriteriaDTO {
+    private List<@NotBlank(message = "Invalid search criteria: names should not be empty.") String> anyOf = new ArrayList<>();
+    private List<@NotBlank(message = "Invalid search criteria: names should not be empty.") String> allOf = new ArrayList<>();
+
+    public NameCriteriaDTO() {
+    }
+
+    public NameCriteriaDTO(List<String> anyOf, List<String> allOf) {
+        this.anyOf = anyOf;
+        this.allOf = allOf;
+    }
+
+    public static NameCriteriaDTO anyOf(String... names) {
+        return new NameCriteriaDTO(List.of(names), new ArrayList<>());
+    }
+
+    public static NameCriteriaDTO allOf(String... names) {
+        return new NameCriteriaDTO(new ArrayList<>(), List.of(names));
+    }
+
+    public List<String> getAnyOf() {
+        return anyOf;
+    }
+
+    public void setAnyOf(List<String> anyOf) {
+        this.anyOf = anyOf;
+    }
+
+    public List<String> getAllOf() {
+        return allOf;
+    }
+
+    public void setAllOf(List<String> allOf) {
+        this.allOf = allOf;
+    }
+
+    public boolean isEmpty() {
+        return (anyOf == null || anyOf.isEmpty()) && (allOf == null || allOf.isEmpty());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NameCriteriaDTO that = (NameCriteriaDTO) o;
+        return Objects.equals(anyOf, that.anyOf) && Objects.equals(allOf, that.allOf);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(anyOf, allOf);
+    }
+
+    @Override
+    public String toString() {
+        return "NameCriteriaDTO [anyOf=" + anyOf + ", allOf=" + allOf + "]";
+    }
+}
@@ -10,6 +10,7 @@ public class VisitDTO {
     private Long epoch;
     private Boolean isConfirmed;
     private Long duration;
+    private Long holdExpiresAt;
 
     public VisitDTO() {
     }
@@ -90,6 +91,14 @@ public class VisitDTO {
         this.duration = duration;
     }
 
+    public Long getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(Long holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -102,18 +111,18 @@ public class VisitDTO {
                                                     visitDTO.epoch) && Objects.equals(isConfirmed,
                                                                                       visitDTO.isConfirmed) && Objects.equals(
                 duration,
-                visitDTO.duration);
+                visitDTO.duration) && Objects.equals(holdExpiresAt, visitDTO.holdExpiresAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, doctor, patient, epoch, isConfirmed, duration);
+        return Objects.hash(id, doctor, patient, epoch, isConfirmed, duration, holdExpiresAt);
     }
 
     @Override
     public String toString() {
         return "VisitDTO [id=" + id + ", doctor=" + doctor + ", patient=" + patient + ", epoch=" + epoch + ", confirmed="
-                + isConfirmed + "]";
+                + isConfirmed + ", holdExpiresAt=" + holdExpiresAt + "]";
     }
 
 }
@@ -0,0 +1,89 @@
+package pl.baranowski.dev.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.util.Objects;
+
+/*
+ * Free slots search over combinations of animal types and medical specialties, e.g. dog or cat, surgeon and dermatologist.
+ */
+public class VisitSearchDTO {
+    @Valid
+    @NotNull(message = "Invalid search criteria: please provide animalTypes.")
+    private NameCriteriaDTO animalTypes;
+
+    @Valid
+    @NotNull(message = "Invalid search criteria: please provide medSpecialties.")
+    private NameCriteriaDTO medSpecialties;
+
+    @NotNull(message = "Invalid search criteria: epochStart should not be empty.")
+    @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed")
+    private String epochStart;
+
+    @NotNull(message = "Invalid search criteria: epochEnd should not be empty.")
+    @Pattern(regexp = "[0-9]+", message = "Invalid epoch format - only digits allowed")
+    private String epochEnd;
+
+    public VisitSearchDTO() {
+    }
+
+    public VisitSearchDTO(NameCriteriaDTO animalTypes, NameCriteriaDTO medSpecialties, String epochStart, String epochEnd) {
+        this.animalTypes = animalTypes;
+        this.medSpecialties = medSpecialties;
+        this.epochStart = epochStart;
+        this.epochEnd = epochEnd;
+    }
+
+    public NameCriteriaDTO getAnimalTypes() {
+        return animalTypes;
+    }
+
+    public void setAnimalTypes(NameCriteriaDTO animalTypes) {
+        this.animalTypes = animalTypes;
+    }
+
+    public NameCriteriaDTO getMedSpecialties() {
+        return medSpecialties;
+    }
+
+    public void setMedSpecialties(NameCriteriaDTO medSpecialties) {
+        this.medSpecialties = medSpecialties;
+    }
+
+    public String getEpochStart() {
+        return epochStart;
+    }
+
+    public void setEpochStart(String epochStart) {
+        this.epochStart = epochStart;
+    }
+
+    public String getEpochEnd() {
+        return epochEnd;
+    }
+
+    public void setEpochEnd(String epochEnd) {
+        this.epochEnd = epochEnd;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VisitSearchDTO that = (VisitSearchDTO) o;
+        return Objects.equals(animalTypes, that.animalTypes) && Objects.equals(medSpecialties, that.medSpecialties)
+                && Objects.equals(epochStart, that.epochStart) && Objects.equals(epochEnd, that.epochEnd);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(animalTypes, medSpecialties, epochStart, epochEnd);
+    }
+
+    @Override
+    public String toString() {
+        return "VisitSearchDTO [animalTypes=" + animalTypes + ", medSpecialties=" + medSpecialties
+                + ", epochStart=" + epochStart + ", epochEnd=" + epochEnd + "]";
+    }
+}
@@ -1,10 +1,18 @@
 package pl.baranowski.dev.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import pl.baranowski.dev.cache.ReferenceDataCacheListener;
+
 import javax.persistence.*;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(ReferenceDataCacheListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AnimalType.CACHE_REGION)
 public class AnimalType {
+	public static final String CACHE_REGION = "animal-type";
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.SEQUENCE)
@@ -12,6 +20,8 @@ public class AnimalType {
 
 	@Column(unique = true)
 	private String name;
+	@Version
+	private long version;
 
 	public AnimalType() {
 	}
@@ -33,6 +43,10 @@ public class AnimalType {
 		this.id = id;
 	}
 	
+	public long getVersion() {
+		return version;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -3,9 +3,7 @@ package pl.baranowski.dev.entity;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.DayOfWeek;
-import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -14,12 +12,44 @@ import java.util.Set;
 import javax.persistence.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.cache.SlotSearchCacheListener;
+import pl.baranowski.dev.index.DoctorAttributeIndexListener;
+import pl.baranowski.dev.model.WorkingCalendar;
 
 @Entity
+// the index goes first, so searches started after the slot cache has been invalidated find the doctor
+@EntityListeners({DoctorAttributeIndexListener.class, SlotSearchCacheListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Doctor.CACHE_REGION)
+@NamedEntityGraph(name = Doctor.WITH_SPECIALTIES,
+        attributeNodes = {@NamedAttributeNode("animalTypes"), @NamedAttributeNode("medSpecialties")})
+@NamedEntityGraph(name = Doctor.WITH_SCHEDULE,
+        attributeNodes = @NamedAttributeNode("workingDays"))
+@NamedEntityGraph(name = Doctor.WITH_DETAILS,
+        attributeNodes = {@NamedAttributeNode("animalTypes"), @NamedAttributeNode("medSpecialties"), @NamedAttributeNode("workingDays")})
 public class Doctor {
+    // what DoctorDTO needs
+    public static final String WITH_SPECIALTIES = "Doctor.withSpecialties";
+    // what slot search needs
+    public static final String WITH_SCHEDULE = "Doctor.withSchedule";
+    // what booking needs: DoctorDTO plus working days
+    public static final String WITH_DETAILS = "Doctor.withDetails";
+    // pooled ids, so bulk imports do not need a sequence call per doctor
+    public static final String ID_SEQUENCE = "doctor_sequence";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    // second-level cache regions; visits are not cached, they change all the time
+    public static final String CACHE_REGION = "doctor";
+    public static final String WORKING_DAYS_CACHE_REGION = "doctor-working-days";
+    public static final String ANIMAL_TYPES_CACHE_REGION = "doctor-animal-types";
+    public static final String MED_SPECIALTIES_CACHE_REGION = "doctor-med-specialties";
+    public static final String SEARCH_CACHE_REGION = "doctor-search";
+
     private final static Logger LOGGER = LoggerFactory.getLogger(Doctor.class);
     private final static List<DayOfWeek> DEFAULT_WORKING_DAYS = Arrays.asList(DayOfWeek.MONDAY,
                                                                               DayOfWeek.TUESDAY,
@@ -29,26 +59,36 @@ public class Doctor {
     private final static Integer DEFAULT_WORKS_FROM_HOUR = 9;
     private final static Integer DEFAULT_WORKS_TILL_HOUR = 16;
     @Id
-    @GeneratedValue(strategy=GenerationType.SEQUENCE)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
+    // increased on every update, collections included; ETags of doctor responses are built from it
+    @Version
+    private long version;
     private String name;
     private String surname;
     private BigDecimal hourlyRate;
     private String nip;
     private Boolean active = true;
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "listOfWorkingDays")
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = WORKING_DAYS_CACHE_REGION)
     private List<DayOfWeek> workingDays;
     private Integer worksFromHour;
     private Integer worksTillHour;
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ANIMAL_TYPES_CACHE_REGION)
     @JoinTable(
             name = "doctors_to_animal_types",
             joinColumns = @JoinColumn(name = "doctor_id"),
             inverseJoinColumns = @JoinColumn(name = "animal_type_id")
     )
     private Set<AnimalType> animalTypes = new HashSet<>();
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = MED_SPECIALTIES_CACHE_REGION)
     @JoinTable(
             name = "doctors_to_med_specialities",
             joinColumns = @JoinColumn(name = "doctor_id"),
@@ -56,9 +96,11 @@ public class Doctor {
     )
     private Set<MedSpecialty> medSpecialties = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER,
+    @OneToMany(fetch = FetchType.LAZY,
             mappedBy = "doctor")
     private Set<Visit> visits = new HashSet<>();
+    @Transient
+    private WorkingCalendar workingCalendar;
 
     public Doctor() {
     }
@@ -98,6 +140,10 @@ public class Doctor {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -152,6 +198,7 @@ public class Doctor {
 
     public void setWorkingDays(List<DayOfWeek> workingDays) {
         this.workingDays = workingDays;
+        this.workingCalendar = null;
     }
 
     public Integer getWorksFromHour() {
@@ -160,6 +207,7 @@ public class Doctor {
 
     public void setWorksFromHour(Integer worksFromHour) {
         this.worksFromHour = worksFromHour;
+        this.workingCalendar = null;
     }
 
     public Integer getWorksTillHour() {
@@ -168,6 +216,7 @@ public class Doctor {
 
     public void setWorksTillHour(Integer worksTillHour) {
         this.worksTillHour = worksTillHour;
+        this.workingCalendar = null;
     }
 
     public Set<AnimalType> getAnimalTypes() {
@@ -215,24 +264,14 @@ public class Doctor {
     }
 
     public boolean worksAt(long epochInSeconds) {
-        ZonedDateTime zonedStart = toZonedDateTime(epochInSeconds);
-        return worksAtTime(zonedStart) && worksAtDate(zonedStart);
-    }
-
-    private ZonedDateTime toZonedDateTime(long epochInSeconds) {
-        Instant instant = Instant.ofEpochSecond(epochInSeconds);
-        ZonedDateTime zoned = ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
-        return zoned;
-    }
-
-    private boolean worksAtTime(ZonedDateTime zonedStart) {
-        boolean afterStartOfWorkingHours = zonedStart.getHour() >= worksFromHour;
-        boolean beforeEndOfWorkingHours = zonedStart.getHour() < worksTillHour;
-        return afterStartOfWorkingHours && beforeEndOfWorkingHours;
+        return workingCalendar().worksAt(epochInSeconds);
     }
 
-    private boolean worksAtDate(ZonedDateTime zonedStart) {
-        return workingDays.contains(zonedStart.getDayOfWeek());
+    private WorkingCalendar workingCalendar() {
+        if (workingCalendar == null) {
+            workingCalendar = new WorkingCalendar(workingDays, worksFromHour, worksTillHour, ZoneId.systemDefault());
+        }
+        return workingCalendar;
     }
 
     public boolean hasVisitsAtEpoch(long epochInSeconds) {
@@ -3,12 +3,20 @@ package pl.baranowski.dev.entity;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import pl.baranowski.dev.cache.ReferenceDataCacheListener;
+
 import javax.persistence.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
+@EntityListeners(ReferenceDataCacheListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = MedSpecialty.CACHE_REGION)
 public class MedSpecialty {
+	public static final String CACHE_REGION = "med-specialty";
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.SEQUENCE)
@@ -16,6 +24,8 @@ public class MedSpecialty {
 
 	@Column(unique = true)
 	private String name;
+	@Version
+	private long version;
 
 	public MedSpecialty() {
 	}
@@ -37,6 +47,10 @@ public class MedSpecialty {
 		this.id = id;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
 	public String getName() {
 		return name;
 	}
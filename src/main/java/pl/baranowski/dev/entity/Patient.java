@@ -9,10 +9,16 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 public class Patient {
+	// pooled ids, so bulk imports do not need a sequence call per patient
+	public static final String ID_SEQUENCE = "patient_sequence";
+	public static final int ID_ALLOCATION_SIZE = 50;
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.SEQUENCE)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
+	@Version
+	private long version;
 	private String name;
 	@ManyToOne
 	@JoinColumn(name = "animal_type_id")
@@ -21,7 +27,7 @@ public class Patient {
 	private String ownerName;
 	private String ownerEmail;
 	@JsonIgnore
-	@OneToMany(fetch = FetchType.EAGER,
+	@OneToMany(fetch = FetchType.LAZY,
 			mappedBy="patient")
 	private Set<Visit> visits = new HashSet<>();
 
@@ -53,6 +59,10 @@ public class Patient {
 		this.id = id;
 	}
 	
+	public long getVersion() {
+		return version;
+	}
+
 	public Patient withId(Long id) {
 		return new Patient(id, this.name, this.animalType, this.age, this.ownerName, this.ownerEmail);
 	}
@@ -106,7 +116,8 @@ public class Patient {
 	}
 
 	public boolean hasVisitsAt(long epochInSeconds) {
-		return visits.stream().filter(visit -> visit.getEpoch() == epochInSeconds).count() > 0;
+		return visits.stream().anyMatch(visit -> epochInSeconds >= visit.getEpoch()
+				&& epochInSeconds < visit.getEpoch() + visit.getDuration());
 	}
 
 	@Override
@@ -1,19 +1,41 @@
 package pl.baranowski.dev.entity;
 
 import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.index.AvailabilityIndexListener;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 @Entity
+@EntityListeners(AvailabilityIndexListener.class)
+// overlap queries of VisitRepository: the doctor's ones are served by the unique constraint's index on (doctor_id, epochInSeconds)
+// keyset pages of all visits: the (epochInSeconds, id) index
+@Table(uniqueConstraints = @UniqueConstraint(name = Visit.DOCTOR_SLOT_CONSTRAINT, columnNames = {"doctor_id", "epochInSeconds"}),
+		indexes = {@Index(name = Visit.PATIENT_EPOCH_INDEX, columnList = "patient_id, epochInSeconds"),
+				@Index(name = Visit.EPOCH_ID_INDEX, columnList = "epochInSeconds, id")})
 public class Visit {
+	// visits start at the top of the hour and last one hour, so one visit per doctor and start means no double booking
+	public static final String DOCTOR_SLOT_CONSTRAINT = "uk_visit_doctor_epoch";
+	public static final String PATIENT_EPOCH_INDEX = "ix_visit_patient_epoch";
+	public static final String EPOCH_ID_INDEX = "ix_visit_epoch_id";
+	// visits which may overlap [start, end) start after start - MAX_DURATION, so overlap queries scan a bounded index range
+	public static final long MAX_DURATION = 24 * 3600;
+	// pooled ids, so inserting a batch of visits does not need a sequence call per visit
+	public static final String ID_SEQUENCE = "visit_sequence";
+	public static final int ID_ALLOCATION_SIZE = 50;
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.SEQUENCE)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
 	@ManyToOne
 	@JoinColumn(name = "doctor_id")
@@ -24,17 +46,20 @@ public class Visit {
 	private long epochInSeconds;
 	private long duration;
 	private Boolean isConfirmed;
+	// epoch second when an unconfirmed hold is released; null for booked visits
+	private Long holdExpiresAt;
 
 	public Visit() {
 	}
 
-	public Visit(Long id, Doctor doctor, Patient patient, long epochInSeconds, long duration, Boolean isConfirmed) {
+	public Visit(Long id, Doctor doctor, Patient patient, long epochInSeconds, long duration, Boolean isConfirmed, Long holdExpiresAt) {
 		this.id = id;
 		this.doctor = doctor;
 		this.patient = patient;
 		this.epochInSeconds = epochInSeconds;
 		this.duration = duration;
 		this.isConfirmed = isConfirmed;
+		this.holdExpiresAt = holdExpiresAt;
 	}
 
 	public static VisitBuilder builder() {
@@ -65,6 +90,19 @@ public class Visit {
 		return isConfirmed;
 	}
 
+	public Long getHoldExpiresAt() {
+		return holdExpiresAt;
+	}
+
+	public boolean isHeld() {
+		return holdExpiresAt != null;
+	}
+
+	public void confirm() {
+		this.isConfirmed = true;
+		this.holdExpiresAt = null;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -73,6 +111,7 @@ public class Visit {
 		result = prime * result + (int) (epochInSeconds ^ (epochInSeconds >>> 32));
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((isConfirmed == null) ? 0 : isConfirmed.hashCode());
+		result = prime * result + ((holdExpiresAt == null) ? 0 : holdExpiresAt.hashCode());
 		result = prime * result + ((patient == null) ? 0 : patient.hashCode());
 		result = prime * result + ((doctor == null) ? 0 : doctor.hashCode());
 		return result;
@@ -101,6 +140,11 @@ public class Visit {
 				return false;
 		} else if (!isConfirmed.equals(other.isConfirmed))
 			return false;
+		if (holdExpiresAt == null) {
+			if (other.holdExpiresAt != null)
+				return false;
+		} else if (!holdExpiresAt.equals(other.holdExpiresAt))
+			return false;
 		if (patient == null) {
 			if (other.patient != null)
 				return false;
@@ -114,7 +158,7 @@ public class Visit {
 	@Override
 	public String toString() {
 		return "Visit [id=" + id + ", doctor=" + doctor + ", patient=" + patient + ", epoch=" + epochInSeconds + ", duration="
-				+ duration + ", isConfirmed=" + isConfirmed + "]";
+				+ duration + ", isConfirmed=" + isConfirmed + ", holdExpiresAt=" + holdExpiresAt + "]";
 	}
 	
 }
@@ -30,6 +30,7 @@ import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
 import pl.baranowski.dev.exception.medSpecialty.MedSpecialtyAlreadyExistsException;
 import pl.baranowski.dev.exception.patient.PatientAlreadyExistsException;
 import pl.baranowski.dev.exception.search.SearchRequestInvalidException;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
 import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
 
 import java.util.Iterator;
@@ -92,4 +93,14 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         ErrorDTO error = new ErrorDTO(exception);
         return ResponseEntity.status(error.getHttpStatus()).contentType(MediaType.APPLICATION_JSON_UTF8).body(error);
     }
+
+    @SuppressWarnings("deprecation")
+    @ExceptionHandler
+    ResponseEntity<Object> handleBookingQueueFullException(BookingQueueFullException exception) {
+        ErrorDTO error = new ErrorDTO(exception);
+        return ResponseEntity.status(error.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(error);
+    }
 }
@@ -0,0 +1,11 @@
+package pl.baranowski.dev.exception.idempotency;
+
+import org.springframework.http.HttpStatus;
+import pl.baranowski.dev.exception.ApiException;
+
+public class IdempotencyKeyInProgressException extends ApiException {
+
+    public IdempotencyKeyInProgressException(String key) {
+        super(HttpStatus.CONFLICT, "Request with idempotency key '" + key + "' is still in progress.");
+    }
+}
@@ -0,0 +1,11 @@
+package pl.baranowski.dev.exception.idempotency;
+
+import org.springframework.http.HttpStatus;
+import pl.baranowski.dev.exception.ApiException;
+
+public class IdempotencyKeyReusedException extends ApiException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key '" + key + "' has already been used for a different request.");
+    }
+}
@@ -0,0 +1,17 @@
+package pl.baranowski.dev.exception.visit;
+
+import org.springframework.http.HttpStatus;
+import pl.baranowski.dev.exception.ApiException;
+
+public class BookingQueueFullException extends ApiException {
+    private final long retryAfterSeconds;
+
+    public BookingQueueFullException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many bookings for this doctor at the moment. Please try again in " + retryAfterSeconds + " s.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
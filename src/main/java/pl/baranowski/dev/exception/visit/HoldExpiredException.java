@@ -0,0 +1,11 @@
+package pl.baranowski.dev.exception.visit;
+
+import org.springframework.http.HttpStatus;
+import pl.baranowski.dev.exception.ApiException;
+
+public class HoldExpiredException extends ApiException {
+
+    public HoldExpiredException(Long visitId) {
+        super(HttpStatus.GONE, "Hold of visit with id " + visitId + " has expired.");
+    }
+}
@@ -0,0 +1,368 @@
+package pl.baranowski.dev.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.index.AvailabilityIndex;
+import pl.baranowski.dev.index.DoctorAttributeIndex;
+import pl.baranowski.dev.model.WorkingCalendar;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/*
+ * Fills the database with random doctors, patients and visits for load and scale testing.
+ * Rows are written with JDBC batches, chunk by chunk, so memory use does not grow with the volume.
+ * Generated data follows the rules of Reception: visits are on the doctors' working hours, neither a doctor
+ * nor a patient has two visits in the same hour, and patients are of animal types their doctors treat.
+ * Ids are taken after the highest existing one and id sequences are moved past them at the end.
+ * Rows are written around JPA, so the indexes and caches built from doctors and visits are dropped at the end.
+ */
+@Component
+@Profile(DataGenerator.PROFILE)
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+public class DataGenerator implements CommandLineRunner {
+    public static final String PROFILE = "generate";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataGenerator.class);
+    private static final long HOUR = 3600;
+    // random picks of a patient for a slot, before the slot is left empty because all picked patients were busy
+    private static final int PATIENT_ATTEMPTS = 10;
+    private static final String[] ANIMAL_TYPES = {"Dog", "Cat", "Rabbit", "Hamster", "Guinea pig", "Parrot", "Ferret", "Horse", "Cow", "Turtle"};
+    private static final String[] MED_SPECIALTIES = {"Cardiologist", "Dermatologist", "Surgeon", "Dentist", "Ophthalmologist", "Oncologist", "Neurologist", "Radiologist"};
+    private static final String[] NAMES = {"Anna", "Jan", "Maria", "Piotr", "Katarzyna", "Tomasz", "Agnieszka", "Paweł", "Magdalena", "Michał"};
+    private static final String[] SURNAMES = {"Nowak", "Kowalski", "Wiśniewski", "Wójcik", "Kowalczyk", "Kamiński", "Lewandowski", "Zieliński", "Szymański", "Woźniak"};
+    private static final String[] PET_NAMES = {"Rex", "Luna", "Burek", "Mruczek", "Bella", "Max", "Kicia", "Azor", "Tofik", "Nala"};
+    private static final List<List<DayOfWeek>> WORKING_WEEKS = Arrays.asList(
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+            Arrays.asList(DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataGeneratorProperties properties;
+    private final DoctorAttributeIndex doctorAttributeIndex;
+    private final AvailabilityIndex availabilityIndex;
+    private final ObjectProvider<SlotSearchCache> slotSearchCache;
+    private long nextId;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         DataGeneratorProperties properties,
+                         DoctorAttributeIndex doctorAttributeIndex,
+                         AvailabilityIndex availabilityIndex,
+                         ObjectProvider<SlotSearchCache> slotSearchCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.doctorAttributeIndex = doctorAttributeIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.slotSearchCache = slotSearchCache;
+    }
+
+    @Override
+    public void run(String... args) {
+        LOGGER.info("Generating data with {}", properties);
+        long started = System.currentTimeMillis();
+        Random random = new Random(properties.getSeed());
+        nextId = maxId() + 1;
+
+        List<Long> animalTypeIds = insertMissingNames("animal_type", ANIMAL_TYPES);
+        List<Long> medSpecialtyIds = insertMissingNames("med_specialty", MED_SPECIALTIES);
+        long firstPatientId = insertPatients(random, animalTypeIds);
+        List<GeneratedDoctor> doctors = insertDoctors(random, animalTypeIds, medSpecialtyIds);
+        insertVisits(random, doctors, firstPatientId, animalTypeIds.size());
+
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + nextId);
+        restartPooledSequence(Doctor.ID_SEQUENCE, Doctor.ID_ALLOCATION_SIZE);
+        restartPooledSequence(Patient.ID_SEQUENCE, Patient.ID_ALLOCATION_SIZE);
+        restartPooledSequence(Visit.ID_SEQUENCE, Visit.ID_ALLOCATION_SIZE);
+        // doctors and visits have been inserted around JPA, so no listener has seen them
+        doctorAttributeIndex.invalidate();
+        for (GeneratedDoctor doctor : doctors) {
+            availabilityIndex.evict(doctor.id);
+        }
+        slotSearchCache.ifAvailable(SlotSearchCache::invalidateAll);
+        LOGGER.info("Data generated in {} ms, next id is {}.", System.currentTimeMillis() - started, nextId);
+    }
+
+    private long maxId() {
+        long result = 0;
+        for (String table : Arrays.asList("animal_type", "med_specialty", "doctor", "patient", "visit")) {
+            Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+            result = Math.max(result, max == null ? 0 : max);
+        }
+        return result;
+    }
+
+    // a pooled sequence value is the last id of the next block
+    private void restartPooledSequence(String sequence, int allocationSize) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (nextId + allocationSize - 1));
+    }
+
+    // ids of given names, in the same order; names already in the table are reused
+    private List<Long> insertMissingNames(String table, String[] names) {
+        Map<String, Long> existing = new HashMap<>();
+        jdbcTemplate.query("select id, name from " + table, rs -> {
+            existing.put(rs.getString("name"), rs.getLong("id"));
+        });
+        BatchInsert insert = new BatchInsert("insert into " + table + " (id, name, version) values (?, ?, 0)");
+        List<Long> result = new ArrayList<>(names.length);
+        for (String name : names) {
+            Long id = existing.get(name);
+            if (id == null) {
+                id = nextId++;
+                insert.add(id, name);
+            }
+            result.add(id);
+        }
+        flush(insert);
+        return result;
+    }
+
+    /*
+     * Patient of index i has animal type i % animalTypeIds.size(), so patients of a type are found without a lookup.
+     */
+    private long insertPatients(Random random, List<Long> animalTypeIds) {
+        long firstId = nextId;
+        BatchInsert insert = new BatchInsert("insert into patient (id, version, name, animal_type_id, age, owner_name, owner_email) values (?, 0, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < properties.getPatients(); i++) {
+            long id = nextId++;
+            insert.add(id,
+                       pick(random, PET_NAMES),
+                       animalTypeIds.get(i % animalTypeIds.size()),
+                       1 + random.nextInt(20),
+                       pick(random, NAMES) + " " + pick(random, SURNAMES),
+                       "owner" + id + "@vet.example");
+            if (insert.size() == properties.getBatchSize()) {
+                flush(insert);
+            }
+        }
+        flush(insert);
+        LOGGER.info("Inserted {} patients.", properties.getPatients());
+        return firstId;
+    }
+
+    private List<GeneratedDoctor> insertDoctors(Random random, List<Long> animalTypeIds, List<Long> medSpecialtyIds) {
+        BatchInsert doctorInsert = new BatchInsert(
+                "insert into doctor (id, version, name, surname, hourly_rate, nip, active, works_from_hour, works_till_hour) values (?, 0, ?, ?, ?, ?, ?, ?, ?)");
+        BatchInsert workingDayInsert = new BatchInsert("insert into list_of_working_days (doctor_id, working_days) values (?, ?)");
+        BatchInsert animalTypeInsert = new BatchInsert("insert into doctors_to_animal_types (doctor_id, animal_type_id) values (?, ?)");
+        BatchInsert medSpecialtyInsert = new BatchInsert("insert into doctors_to_med_specialities (doctor_id, med_speciality_id) values (?, ?)");
+        ZoneId zone = ZoneId.systemDefault();
+        long nipPrefix = 100_000_000L;
+
+        List<GeneratedDoctor> result = new ArrayList<>(properties.getDoctors());
+        for (int i = 0; i < properties.getDoctors(); i++) {
+            long id = nextId++;
+            List<DayOfWeek> workingDays = WORKING_WEEKS.get(random.nextInt(WORKING_WEEKS.size()));
+            int worksFromHour = 7 + random.nextInt(4);
+            int worksTillHour = worksFromHour + 6 + random.nextInt(4);
+            while (nipCheckDigit(nipPrefix) == 10) {
+                nipPrefix++;
+            }
+            String nip = Long.toString(nipPrefix) + nipCheckDigit(nipPrefix);
+            nipPrefix++;
+
+            doctorInsert.add(id,
+                             pick(random, NAMES),
+                             pick(random, SURNAMES),
+                             BigDecimal.valueOf(5_000 + random.nextInt(25_000), 2),
+                             nip,
+                             true,
+                             worksFromHour,
+                             worksTillHour);
+            for (DayOfWeek day : workingDays) {
+                workingDayInsert.add(id, day.ordinal());
+            }
+            int[] animalTypes = distinctIndexes(random, animalTypeIds.size(), 1 + random.nextInt(3));
+            for (int animalType : animalTypes) {
+                animalTypeInsert.add(id, animalTypeIds.get(animalType));
+            }
+            for (int medSpecialty : distinctIndexes(random, medSpecialtyIds.size(), 1 + random.nextInt(2))) {
+                medSpecialtyInsert.add(id, medSpecialtyIds.get(medSpecialty));
+            }
+            result.add(new GeneratedDoctor(id, new WorkingCalendar(workingDays, worksFromHour, worksTillHour, zone), animalTypes));
+
+            if (doctorInsert.size() == properties.getBatchSize()) {
+                flush(doctorInsert, workingDayInsert, animalTypeInsert, medSpecialtyInsert);
+            }
+        }
+        flush(doctorInsert, workingDayInsert, animalTypeInsert, medSpecialtyInsert);
+        LOGGER.info("Inserted {} doctors.", properties.getDoctors());
+        return result;
+    }
+
+    /*
+     * Each doctor gets an equal share of visits, booked on visitDensity of working hours from the start date on,
+     * up to horizonWeeks later. A doctor working too few hours in that time gets fewer visits.
+     * Hours are filled one after another for all doctors, so only the patients busy in the current hour are kept.
+     */
+    private void insertVisits(Random random, List<GeneratedDoctor> doctors, long firstPatientId, int animalTypesCount) {
+        if (doctors.isEmpty() || properties.getPatients() < animalTypesCount) {
+            LOGGER.info("No visits generated, at least one doctor and {} patients are needed.", animalTypesCount);
+            return;
+        }
+        LocalDate startDate = properties.getStartDate() == null ? LocalDate.now() : properties.getStartDate();
+        long start = startDate.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        long end = start + properties.getHorizonWeeks() * 7L * 24 * HOUR;
+        BatchInsert insert = new BatchInsert(
+                "insert into visit (id, doctor_id, patient_id, epoch_in_seconds, duration, is_confirmed) values (?, ?, ?, ?, ?, ?)");
+
+        long[] visitsOfDoctors = new long[doctors.size()];
+        long notPlaced = 0;
+        for (int i = 0; i < doctors.size(); i++) {
+            visitsOfDoctors[i] = properties.getVisits() / doctors.size() + (i < properties.getVisits() % doctors.size() ? 1 : 0);
+            notPlaced += visitsOfDoctors[i];
+        }
+
+        long inserted = 0;
+        Set<Long> busyPatientIds = new HashSet<>();
+        for (long hour = start; notPlaced > 0 && hour < end; hour += HOUR) {
+            busyPatientIds.clear();
+            for (int i = 0; i < doctors.size(); i++) {
+                GeneratedDoctor doctor = doctors.get(i);
+                if (visitsOfDoctors[i] == 0 || !doctor.workingCalendar.worksAt(hour) || !doctor.workingCalendar.worksAt(hour + HOUR - 1)
+                        || random.nextDouble() >= properties.getVisitDensity()) {
+                    continue;
+                }
+                Long patientId = freePatientId(random, doctor, firstPatientId, animalTypesCount, busyPatientIds);
+                if (patientId == null) {
+                    continue;
+                }
+                insert.add(nextId++, doctor.id, patientId, hour, HOUR, random.nextBoolean());
+                visitsOfDoctors[i]--;
+                notPlaced--;
+                if (insert.size() == properties.getBatchSize()) {
+                    inserted += flush(insert);
+                    if (inserted % (100L * properties.getBatchSize()) == 0) {
+                        LOGGER.info("Inserted {} visits.", inserted);
+                    }
+                }
+            }
+        }
+        inserted += flush(insert);
+        LOGGER.info("Inserted {} visits.", inserted);
+        if (notPlaced > 0) {
+            LOGGER.warn("{} visits could not be placed within {} weeks of working hours.", notPlaced, properties.getHorizonWeeks());
+        }
+    }
+
+    // a patient of an animal type the doctor treats, not in busyPatientIds, which it is added to; null if none was found
+    private Long freePatientId(Random random, GeneratedDoctor doctor, long firstPatientId, int animalTypesCount, Set<Long> busyPatientIds) {
+        for (int attempt = 0; attempt < PATIENT_ATTEMPTS; attempt++) {
+            int animalType = doctor.animalTypes[random.nextInt(doctor.animalTypes.length)];
+            long patientId = randomPatientId(random, firstPatientId, animalType, animalTypesCount);
+            if (busyPatientIds.add(patientId)) {
+                return patientId;
+            }
+        }
+        return null;
+    }
+
+    private long randomPatientId(Random random, long firstPatientId, int animalType, int animalTypesCount) {
+        int patientsOfType = (properties.getPatients() - animalType + animalTypesCount - 1) / animalTypesCount;
+        return firstPatientId + (long) random.nextInt(patientsOfType) * animalTypesCount + animalType;
+    }
+
+    // weights as in NipValidator, 10 means there is no valid nip with this prefix
+    private static long nipCheckDigit(long nipPrefix) {
+        int[] weights = {6, 5, 7, 2, 3, 4, 5, 6, 7};
+        long sum = 0;
+        for (int i = weights.length - 1; i >= 0; i--) {
+            sum += (nipPrefix % 10) * weights[i];
+            nipPrefix /= 10;
+        }
+        return sum % 11;
+    }
+
+    private static int[] distinctIndexes(Random random, int bound, int count) {
+        int[] result = new int[Math.min(bound, count)];
+        for (int i = 0; i < result.length; i++) {
+            int candidate = random.nextInt(bound);
+            for (int j = 0; j < i; j++) {
+                if (result[j] == candidate) {
+                    candidate = random.nextInt(bound);
+                    j = -1;
+                }
+            }
+            result[i] = candidate;
+        }
+        return result;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // inserts pending rows in one transaction, in the given order
+    private int flush(BatchInsert... inserts) {
+        return transactionTemplate.execute(status -> {
+            int result = 0;
+            for (BatchInsert insert : inserts) {
+                result += insert.flush();
+            }
+            return result;
+        });
+    }
+
+    private class BatchInsert {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        BatchInsert(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        int flush() {
+            int result = rows.size();
+            if (result > 0) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+            return result;
+        }
+    }
+
+    private static class GeneratedDoctor {
+        private final long id;
+        private final WorkingCalendar workingCalendar;
+        // indexes in the list of animal type ids
+        private final int[] animalTypes;
+
+        GeneratedDoctor(long id, WorkingCalendar workingCalendar, int[] animalTypes) {
+            this.id = id;
+            this.workingCalendar = workingCalendar;
+            this.animalTypes = animalTypes;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package pl.baranowski.dev.generator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import java.time.LocalDate;
+
+@ConfigurationProperties(prefix = "vet.generator")
+@Validated
+public class DataGeneratorProperties {
+    /*
+     * Same seed and counts give the same data, shifted to the start date.
+     */
+    private long seed = 42L;
+    private int doctors = 20_000;
+    private int patients = 300_000;
+    private long visits = 10_000_000L;
+    /*
+     * Share of a doctor's working hours booked, going forward from the start date until the doctor has their share of visits.
+     */
+    @DecimalMin(value = "0", inclusive = false, message = "Visit density should be greater than 0.")
+    @DecimalMax(value = "1", message = "Visit density should not be greater than 1.")
+    private double visitDensity = 0.6;
+    /*
+     * How far from the start date visits are booked. Visits which do not fit are not generated.
+     */
+    @Min(value = 1, message = "Horizon should be at least one week.")
+    private int horizonWeeks = 520;
+    /*
+     * Rows sent in one JDBC batch, and committed in one transaction.
+     */
+    @Min(value = 1, message = "Batch size should be positive.")
+    private int batchSize = 5_000;
+    /*
+     * Day of the first visits, today when not set.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getDoctors() {
+        return doctors;
+    }
+
+    public void setDoctors(int doctors) {
+        this.doctors = doctors;
+    }
+
+    public int getPatients() {
+        return patients;
+    }
+
+    public void setPatients(int patients) {
+        this.patients = patients;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public void setVisits(long visits) {
+        this.visits = visits;
+    }
+
+    public double getVisitDensity() {
+        return visitDensity;
+    }
+
+    public void setVisitDensity(double visitDensity) {
+        this.visitDensity = visitDensity;
+    }
+
+    public int getHorizonWeeks() {
+        return horizonWeeks;
+    }
+
+    public void setHorizonWeeks(int horizonWeeks) {
+        this.horizonWeeks = horizonWeeks;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    @Override
+    public String toString() {
+        return "DataGeneratorProperties [seed=" + seed + ", doctors=" + doctors + ", patients=" + patients + ", visits=" + visits
+                + ", visitDensity=" + visitDensity + ", horizonWeeks=" + horizonWeeks + ", batchSize=" + batchSize + ", startDate=" + startDate + "]";
+    }
+}
@@ -0,0 +1,155 @@
+package pl.baranowski.dev.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.model.HourBitmap;
+import pl.baranowski.dev.model.VisitTime;
+import pl.baranowski.dev.repository.VisitRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+ * Busy hours of every doctor, kept as one HourBitmap per doctor.
+ * Hours are loaded from the database on demand, 64 at a time (one bitmap word), only for the windows that were searched.
+ * Later inserts and deletes are applied by AvailabilityIndexListener; every change increases the doctor's ScheduleVersions.
+ * A load read before a change may be applied after it, so a doctor whose version moved while the query was running
+ * is not loaded; its words stay missing and are read with the next load. Changes and loads of a doctor are applied
+ * under the lock of the doctor's schedule, so a change cannot slip in between that check and the load.
+ */
+@Component
+public class AvailabilityIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityIndex.class);
+    private static final long WORD_IN_SECONDS = 64 * HourBitmap.HOUR_IN_SECONDS;
+
+    private final VisitRepository visitRepository;
+    private final ScheduleVersions scheduleVersions;
+    private final Map<Long, DoctorSchedule> schedulesByDoctorId = new ConcurrentHashMap<>();
+
+    public AvailabilityIndex(VisitRepository visitRepository, ScheduleVersions scheduleVersions) {
+        this.visitRepository = visitRepository;
+        this.scheduleVersions = scheduleVersions;
+    }
+
+    /*
+     * Loads busy hours of given doctors overlapping [startInSeconds, endInSeconds), if not loaded yet.
+     * All doctors missing any part of the window are loaded with a single query.
+     */
+    public void load(Collection<Long> doctorIds, long startInSeconds, long endInSeconds) {
+        long firstWord = HourBitmap.hourOf(startInSeconds) >> 6;
+        long lastWord = HourBitmap.hourOf(endInSeconds - 1) >> 6;
+
+        List<Long> missingDoctorIds = new ArrayList<>();
+        long firstMissingWord = Long.MAX_VALUE;
+        long lastMissingWord = Long.MIN_VALUE;
+        for (Long doctorId : doctorIds) {
+            DoctorSchedule schedule = scheduleOf(doctorId);
+            for (long word = firstWord; word <= lastWord; word++) {
+                if (!schedule.loadedWords.get(word)) {
+                    missingDoctorIds.add(doctorId);
+                    firstMissingWord = Math.min(firstMissingWord, word);
+                    lastMissingWord = Math.max(lastMissingWord, lastMissingWord(schedule, word, lastWord));
+                    break;
+                }
+            }
+        }
+        if (missingDoctorIds.isEmpty()) {
+            return;
+        }
+
+        long windowStart = firstMissingWord * WORD_IN_SECONDS;
+        long windowEnd = (lastMissingWord + 1) * WORD_IN_SECONDS;
+        Map<Long, Long> versionsByDoctorId = new HashMap<>();
+        for (Long doctorId : missingDoctorIds) {
+            versionsByDoctorId.put(doctorId, scheduleVersions.versionOf(doctorId));
+        }
+        List<VisitTime> visitTimes = visitRepository.findTimesOfDoctorsBetween(missingDoctorIds, windowStart, windowEnd);
+        LOGGER.debug("Loaded {} visits of {} doctors between {} and {}.", visitTimes.size(), missingDoctorIds.size(), windowStart, windowEnd);
+
+        Map<Long, List<VisitTime>> visitTimesByDoctorId = visitTimes.stream().collect(Collectors.groupingBy(VisitTime::getDoctorId));
+        for (Long doctorId : missingDoctorIds) {
+            DoctorSchedule schedule = scheduleOf(doctorId);
+            synchronized (schedule) {
+                if (scheduleVersions.versionOf(doctorId) != versionsByDoctorId.get(doctorId)) {
+                    LOGGER.debug("Schedule of doctor {} changed while loading, busy hours are not loaded.", doctorId);
+                    continue;
+                }
+                for (VisitTime visitTime : visitTimesByDoctorId.getOrDefault(doctorId, Collections.emptyList())) {
+                    schedule.busyHours.markSeconds(visitTime.getEpochInSeconds(), visitTime.getEndInSeconds());
+                }
+                for (long word = firstMissingWord; word <= lastMissingWord; word++) {
+                    schedule.loadedWords.set(word);
+                }
+            }
+        }
+    }
+
+    private static long lastMissingWord(DoctorSchedule schedule, long fromWord, long lastWord) {
+        long result = fromWord;
+        for (long word = fromWord; word <= lastWord; word++) {
+            if (!schedule.loadedWords.get(word)) {
+                result = word;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Busy hours of the doctor, complete only for windows passed to load(...) before.
+     */
+    public HourBitmap busyHoursOf(Doctor doctor) {
+        return scheduleOf(doctor.getId()).busyHours;
+    }
+
+    /*
+     * True when the doctor is known to be busy at the hour of epochInSeconds.
+     * False does not mean free, as the hour may not have been loaded yet.
+     */
+    public boolean isKnownBusy(Long doctorId, long epochInSeconds) {
+        DoctorSchedule schedule = schedulesByDoctorId.get(doctorId);
+        return schedule != null && schedule.busyHours.get(HourBitmap.hourOf(epochInSeconds));
+    }
+
+    public void register(Visit visit) {
+        DoctorSchedule schedule = scheduleOf(visit.getDoctor().getId());
+        synchronized (schedule) {
+            schedule.busyHours.markSeconds(visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+            scheduleVersions.changed(visit.getDoctor().getId());
+        }
+    }
+
+    public void unregister(Visit visit) {
+        DoctorSchedule schedule = scheduleOf(visit.getDoctor().getId());
+        synchronized (schedule) {
+            long lastHour = HourBitmap.hourOf(visit.getEpoch() + visit.getDuration() - 1);
+            for (long hour = HourBitmap.hourOf(visit.getEpoch()); hour <= lastHour; hour++) {
+                schedule.busyHours.clear(hour);
+            }
+            scheduleVersions.changed(visit.getDoctor().getId());
+        }
+    }
+
+    public void evict(Long doctorId) {
+        schedulesByDoctorId.remove(doctorId);
+        scheduleVersions.changed(doctorId);
+    }
+
+    private DoctorSchedule scheduleOf(Long doctorId) {
+        return schedulesByDoctorId.computeIfAbsent(doctorId, id -> new DoctorSchedule());
+    }
+
+    private static class DoctorSchedule {
+        private final HourBitmap busyHours = new HourBitmap();
+        // bit n is set, when busy hours of word n have been loaded from the database
+        private final HourBitmap loadedWords = new HourBitmap();
+    }
+}
@@ -0,0 +1,46 @@
+package pl.baranowski.dev.index;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.baranowski.dev.entity.Visit;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+
+/*
+ * Keeps AvailabilityIndex in sync with every Visit written through JPA, applying changes only once they are committed.
+ * The index is looked up through ObjectProvider, as JPA slices (@DataJpaTest) run without it.
+ */
+@Component
+public class AvailabilityIndexListener {
+    private final ObjectProvider<AvailabilityIndex> availabilityIndex;
+
+    public AvailabilityIndexListener(ObjectProvider<AvailabilityIndex> availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @PostPersist
+    public void visitPersisted(Visit visit) {
+        afterCommit(() -> availabilityIndex.ifAvailable(index -> index.register(visit)));
+    }
+
+    @PostRemove
+    public void visitRemoved(Visit visit) {
+        afterCommit(() -> availabilityIndex.ifAvailable(index -> index.unregister(visit)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,247 @@
+package pl.baranowski.dev.index;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.model.AttributeCriteria;
+import pl.baranowski.dev.model.DoctorAttribute;
+import pl.baranowski.dev.repository.DoctorRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Which doctors treat which animal types and have which medical specialties, kept as one bitmap of doctors
+ * per animal type and per medical specialty, plus a bitmap of active doctors. Doctors matching a search
+ * are found by ANDing and ORing the bitmaps, without touching the database.
+ * Every doctor gets its own bit, given out in the order doctors are seen.
+ * The index is loaded from the database with the first search. Later changes are applied with put(...) and remove(...),
+ * by DoctorAttributeIndexListener and DoctorService. A doctor whose collections are not loaded cannot be applied;
+ * the whole index is loaded again then.
+ */
+@Component
+public class DoctorAttributeIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DoctorAttributeIndex.class);
+    private static final BitSet EMPTY = new BitSet();
+
+    private final DoctorRepository doctorRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> bitsByDoctorId = new HashMap<>();
+    private long[] doctorIdsByBit = new long[64];
+    private final Map<Long, BitSet> doctorsByAnimalTypeId = new HashMap<>();
+    private final Map<Long, BitSet> doctorsByMedSpecialtyId = new HashMap<>();
+    private final BitSet activeDoctors = new BitSet();
+    private boolean loaded;
+
+    public DoctorAttributeIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    /*
+     * Ids of active doctors treating the animal type and having the medical specialty, in ascending order of their bits.
+     */
+    public List<Long> findActive(Long animalTypeId, Long medSpecialtyId) {
+        return findActive(AttributeCriteria.of(animalTypeId), AttributeCriteria.of(medSpecialtyId));
+    }
+
+    /*
+     * Ids of active doctors meeting both criteria, in ascending order of their bits.
+     * Bitmaps of anyOf are ORed together, then the result is ANDed with the bitmaps of allOf and the active doctors.
+     */
+    public List<Long> findActive(AttributeCriteria animalTypes, AttributeCriteria medSpecialties) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (loaded) {
+                    return find(animalTypes, medSpecialties);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            // invalidate() may run between the load and the read lock, hence the loop
+            load();
+        }
+    }
+
+    private List<Long> find(AttributeCriteria animalTypes, AttributeCriteria medSpecialties) {
+        BitSet matching = (BitSet) activeDoctors.clone();
+        retainMatching(matching, animalTypes, doctorsByAnimalTypeId);
+        retainMatching(matching, medSpecialties, doctorsByMedSpecialtyId);
+        List<Long> result = new ArrayList<>(matching.cardinality());
+        for (int bit = matching.nextSetBit(0); bit >= 0; bit = matching.nextSetBit(bit + 1)) {
+            result.add(doctorIdsByBit[bit]);
+        }
+        return result;
+    }
+
+    private static void retainMatching(BitSet matching, AttributeCriteria criteria, Map<Long, BitSet> doctorsByAttributeId) {
+        if (!criteria.getAnyOf().isEmpty()) {
+            BitSet any = new BitSet();
+            for (Long attributeId : criteria.getAnyOf()) {
+                any.or(doctorsByAttributeId.getOrDefault(attributeId, EMPTY));
+            }
+            matching.and(any);
+        }
+        for (Long attributeId : criteria.getAllOf()) {
+            matching.and(doctorsByAttributeId.getOrDefault(attributeId, EMPTY));
+        }
+    }
+
+    public void put(Doctor doctor) {
+        put(Attributes.of(doctor));
+    }
+
+    /*
+     * Replaces whatever is known about the doctor with its current attributes.
+     */
+    public void put(Attributes attributes) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            if (attributes.animalTypeIds == null || attributes.medSpecialtyIds == null) {
+                LOGGER.debug("Collections of doctor {} are not loaded, index will be loaded again.", attributes.doctorId);
+                clear();
+                return;
+            }
+            int bit = bitOf(attributes.doctorId);
+            clearBit(bit);
+            activeDoctors.set(bit, attributes.active);
+            attributes.animalTypeIds.forEach(id -> doctorsByAnimalTypeId.computeIfAbsent(id, key -> new BitSet()).set(bit));
+            attributes.medSpecialtyIds.forEach(id -> doctorsByMedSpecialtyId.computeIfAbsent(id, key -> new BitSet()).set(bit));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long doctorId) {
+        lock.writeLock().lock();
+        try {
+            Integer bit = bitsByDoctorId.get(doctorId);
+            if (bit != null) {
+                clearBit(bit);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * For changes made around JPA, e.g. with JDBC; the index is loaded again with the next search.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Loads under the write lock, so changes committed meanwhile are applied after the load, not lost under it.
+     */
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            doctorRepository.findIdsByActive(true).forEach(doctorId -> activeDoctors.set(bitOf(doctorId)));
+            addAll(doctorRepository.findAnimalTypeIds(), doctorsByAnimalTypeId);
+            addAll(doctorRepository.findMedSpecialtyIds(), doctorsByMedSpecialtyId);
+            loaded = true;
+            LOGGER.debug("Loaded {} doctors, {} animal types and {} medical specialties in {} ms.", bitsByDoctorId.size(),
+                         doctorsByAnimalTypeId.size(), doctorsByMedSpecialtyId.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addAll(List<DoctorAttribute> attributes, Map<Long, BitSet> doctorsByAttributeId) {
+        for (DoctorAttribute attribute : attributes) {
+            doctorsByAttributeId.computeIfAbsent(attribute.getAttributeId(), id -> new BitSet())
+                                .set(bitOf(attribute.getDoctorId()));
+        }
+    }
+
+    private int bitOf(Long doctorId) {
+        Integer bit = bitsByDoctorId.get(doctorId);
+        if (bit != null) {
+            return bit;
+        }
+        int newBit = bitsByDoctorId.size();
+        if (newBit == doctorIdsByBit.length) {
+            doctorIdsByBit = Arrays.copyOf(doctorIdsByBit, newBit * 2);
+        }
+        doctorIdsByBit[newBit] = doctorId;
+        bitsByDoctorId.put(doctorId, newBit);
+        return newBit;
+    }
+
+    private void clearBit(int bit) {
+        activeDoctors.clear(bit);
+        doctorsByAnimalTypeId.values().forEach(doctors -> doctors.clear(bit));
+        doctorsByMedSpecialtyId.values().forEach(doctors -> doctors.clear(bit));
+    }
+
+    private void clear() {
+        loaded = false;
+        bitsByDoctorId.clear();
+        doctorsByAnimalTypeId.clear();
+        doctorsByMedSpecialtyId.clear();
+        activeDoctors.clear();
+    }
+
+    /*
+     * Ids are null when they are not known, e.g. collections which have not been loaded.
+     */
+    public static final class Attributes {
+        private final Long doctorId;
+        private final boolean active;
+        private final List<Long> animalTypeIds;
+        private final List<Long> medSpecialtyIds;
+
+        private Attributes(Long doctorId, boolean active, List<Long> animalTypeIds, List<Long> medSpecialtyIds) {
+            this.doctorId = doctorId;
+            this.active = active;
+            this.animalTypeIds = animalTypeIds;
+            this.medSpecialtyIds = medSpecialtyIds;
+        }
+
+        /*
+         * Reads the doctor at once, so the change may be applied after the session is gone.
+         */
+        public static Attributes of(Doctor doctor) {
+            return new Attributes(doctor.getId(),
+                                  Boolean.TRUE.equals(doctor.getActive()),
+                                  idsOf(doctor.getAnimalTypes(), AnimalType::getId),
+                                  idsOf(doctor.getMedSpecialties(), MedSpecialty::getId));
+        }
+
+        private static <T> List<Long> idsOf(Collection<T> items, Function<T, Long> id) {
+            if (items == null) {
+                return new ArrayList<>();
+            }
+            if (!Hibernate.isInitialized(items)) {
+                return null;
+            }
+            return items.stream().map(id).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pl.baranowski.dev.index;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.baranowski.dev.entity.Doctor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+ * Keeps DoctorAttributeIndex in sync with every Doctor written through JPA (added, fired, imported or removed),
+ * applying changes only once they are committed. Changes of the doctor's specialties alone are not seen by JPA callbacks;
+ * DoctorService reports them itself.
+ */
+@Component
+public class DoctorAttributeIndexListener {
+    private final ObjectProvider<DoctorAttributeIndex> doctorAttributeIndex;
+
+    public DoctorAttributeIndexListener(ObjectProvider<DoctorAttributeIndex> doctorAttributeIndex) {
+        this.doctorAttributeIndex = doctorAttributeIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void doctorSaved(Doctor doctor) {
+        DoctorAttributeIndex.Attributes attributes = DoctorAttributeIndex.Attributes.of(doctor);
+        afterCommit(() -> doctorAttributeIndex.ifAvailable(index -> index.put(attributes)));
+    }
+
+    @PostRemove
+    public void doctorRemoved(Doctor doctor) {
+        Long doctorId = doctor.getId();
+        afterCommit(() -> doctorAttributeIndex.ifAvailable(index -> index.remove(doctorId)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
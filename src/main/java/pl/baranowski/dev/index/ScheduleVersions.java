@@ -0,0 +1,35 @@
+package pl.baranowski.dev.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/*
+ * Version of every doctor's schedule, increased after every change of the doctor's busy hours or of the doctor itself.
+ * A result computed from schedules stays valid as long as their versions do not change.
+ * Listeners are told about every change, after the version has been increased.
+ */
+@Component
+public class ScheduleVersions {
+    private final Map<Long, AtomicLong> versionsByDoctorId = new ConcurrentHashMap<>();
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    public long versionOf(Long doctorId) {
+        AtomicLong version = versionsByDoctorId.get(doctorId);
+        return version == null ? 0 : version.get();
+    }
+
+    public void changed(Long doctorId) {
+        versionsByDoctorId.computeIfAbsent(doctorId, id -> new AtomicLong()).incrementAndGet();
+        listeners.forEach(listener -> listener.accept(doctorId));
+    }
+
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,127 @@
+package pl.baranowski.dev.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.baranowski.dev.dto.BookingShardStatsDTO;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Fixed set of single-threaded executors. Bookings of a doctor always run on the same shard, one after another,
+ * so they never compete for the doctor's slots, while bookings of other doctors run on the other shards.
+ * Every shard has a bounded queue; when it is full, a booking is rejected at once instead of waiting.
+ * Threads are started on first use.
+ */
+public class BookingShards {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingShards.class);
+
+    private final List<Shard> shards;
+    private final long retryAfterSeconds;
+
+    public BookingShards(int shardCount, int queueCapacity, long retryAfterSeconds) {
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(i, queueCapacity));
+        }
+        this.retryAfterSeconds = retryAfterSeconds;
+        LOGGER.debug("Created {} booking shards with queues of {}.", shardCount, queueCapacity);
+    }
+
+    /*
+     * Runs the task on the shard of the doctor. The future completes with the result or the exception thrown by the task.
+     * A task whose future is cancelled before it starts is not run.
+     */
+    public <T> CompletableFuture<T> submit(Long doctorId, Callable<T> task) throws BookingQueueFullException {
+        Shard shard = shards.get(shardOf(doctorId));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // counted before, as the task may be done before execute(...) returns
+        shard.submitted.incrementAndGet();
+        try {
+            shard.executor.execute(() -> shard.run(task, result));
+        } catch (RejectedExecutionException e) {
+            shard.submitted.decrementAndGet();
+            shard.rejected.incrementAndGet();
+            LOGGER.debug("Booking shard {} is full, rejecting booking of doctor {}.", shard.index, doctorId);
+            throw new BookingQueueFullException(retryAfterSeconds);
+        }
+        return result;
+    }
+
+    public int shardOf(long doctorId) {
+        return Math.floorMod(Long.hashCode(doctorId), shards.size());
+    }
+
+    public List<BookingShardStatsDTO> stats() {
+        List<BookingShardStatsDTO> result = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            result.add(shard.stats());
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        shards.forEach(shard -> shard.executor.shutdown());
+    }
+
+    private static class Shard {
+        private final int index;
+        private final int queueCapacity;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong serviceNanos = new AtomicLong();
+
+        private Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.queueCapacity = queueCapacity;
+            // the default AbortPolicy throws RejectedExecutionException when the queue is full
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), task -> {
+                Thread thread = new Thread(task, "booking-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private <T> void run(Callable<T> task, CompletableFuture<T> result) {
+            // the caller has stopped waiting while the task was queued
+            if (result.isCancelled()) {
+                failed.incrementAndGet();
+                return;
+            }
+            long started = System.nanoTime();
+            try {
+                T value = task.call();
+                completed.incrementAndGet();
+                result.complete(value);
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                result.completeExceptionally(e);
+            } finally {
+                serviceNanos.addAndGet(System.nanoTime() - started);
+            }
+        }
+
+        private BookingShardStatsDTO stats() {
+            long done = completed.get() + failed.get();
+            return new BookingShardStatsDTO(index,
+                                            executor.getQueue().size(),
+                                            queueCapacity,
+                                            submitted.get(),
+                                            rejected.get(),
+                                            completed.get(),
+                                            failed.get(),
+                                            done == 0 ? 0 : serviceNanos.get() / done / 1000);
+        }
+    }
+}
@@ -6,21 +6,41 @@ import pl.baranowski.dev.builder.VisitBuilder;
 import pl.baranowski.dev.entity.Doctor;
 import pl.baranowski.dev.entity.Patient;
 import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.exception.ApiException;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
 import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
+import pl.baranowski.dev.model.BookingResult;
+import pl.baranowski.dev.model.VisitIntervals;
+import pl.baranowski.dev.model.VisitRequest;
+import pl.baranowski.dev.model.VisitTime;
+import pl.baranowski.dev.repository.VisitRepository;
 import pl.baranowski.dev.service.DoctorService;
 import pl.baranowski.dev.service.PatientService;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
 public class Reception {
     private static final Logger LOGGER = LoggerFactory.getLogger(Reception.class);
+    // duration given to new visits by VisitBuilder
+    private static final long VISIT_DURATION = 3600;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    private final VisitRepository visitRepository;
 
-    public Reception(DoctorService doctorService, PatientService patientService) {
+    public Reception(DoctorService doctorService, PatientService patientService, VisitRepository visitRepository) {
         this.doctorService = doctorService;
         this.patientService = patientService;
-        LOGGER.debug("Created new Reception with: doctorService={}, patientService={}", doctorService, patientService);
+        this.visitRepository = visitRepository;
+        LOGGER.debug("Created new Reception with: doctorService={}, patientService={}, visitRepository={}", doctorService, patientService, visitRepository);
     }
 
     public Visit createNewVisitIfPossible(Long doctorId,
@@ -39,17 +59,129 @@ public class Reception {
         LOGGER.debug("Patient found: {}", patient);
 
         Visit visit = new VisitBuilder().doctor(doctor).patient(patient).epoch(epochInSeconds).build();
-        validateVisit(visit);
+        validateVisit(visit, this::doctorHasVisitsOverlapping, this::patientHasVisitsOverlapping);
         LOGGER.debug("New visit has been validated - OK. {}", visit);
 
         return visit;
     }
 
-    private void validateVisit(Visit visit) throws NewVisitNotPossibleException, DoctorNotActiveException {
+    /*
+     * Validates a batch of visits with the same rules as createNewVisitIfPossible(...).
+     * Doctors and patients are loaded once for the whole batch, their visits around the requested slots
+     * with one query per window of close slots, see windowsOf(...).
+     * Visits accepted earlier in the batch count as taken for the later ones.
+     * Results are in the order of requests.
+     */
+    public List<BookingResult> createNewVisitsIfPossible(List<VisitRequest> requests) {
+        LOGGER.debug("Received createNewVisitsIfPossible() with {} requests.", requests.size());
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> doctorIds = requests.stream().map(VisitRequest::getDoctorId).collect(Collectors.toSet());
+        Set<Long> patientIds = requests.stream().map(VisitRequest::getPatientId).collect(Collectors.toSet());
+        Map<Long, Doctor> doctors = doctorService.getEntities(doctorIds);
+        Map<Long, Patient> patients = patientService.getEntities(patientIds);
+        LOGGER.debug("Found {} of {} doctors and {} of {} patients.", doctors.size(), doctorIds.size(), patients.size(), patientIds.size());
+
+        Map<Long, VisitIntervals> doctorsVisits = new HashMap<>();
+        Map<Long, VisitIntervals> patientsVisits = new HashMap<>();
+        for (List<VisitRequest> window : windowsOf(requests)) {
+            long start = window.get(0).getEpochInSeconds();
+            long end = window.get(window.size() - 1).getEpochInSeconds() + VISIT_DURATION;
+            Set<Long> windowDoctorIds = idsOf(window, VisitRequest::getDoctorId, doctors.keySet());
+            Set<Long> windowPatientIds = idsOf(window, VisitRequest::getPatientId, patients.keySet());
+            if (!windowDoctorIds.isEmpty()) {
+                addIntervals(doctorsVisits, visitRepository.findTimesOfDoctorsBetween(windowDoctorIds, start, end), VisitTime::getDoctorId);
+            }
+            if (!windowPatientIds.isEmpty()) {
+                addIntervals(patientsVisits, visitRepository.findTimesOfPatientsBetween(windowPatientIds, start, end), VisitTime::getPatientId);
+            }
+        }
+
+        List<BookingResult> result = new ArrayList<>(requests.size());
+        for (VisitRequest request : requests) {
+            try {
+                Doctor doctor = doctors.containsKey(request.getDoctorId())
+                        ? doctors.get(request.getDoctorId())
+                        : doctorService.getEntity(request.getDoctorId());
+                Patient patient = patients.containsKey(request.getPatientId())
+                        ? patients.get(request.getPatientId())
+                        : patientService.getEntity(request.getPatientId());
+
+                Visit visit = new VisitBuilder().doctor(doctor).patient(patient).epoch(request.getEpochInSeconds()).build();
+                validateVisit(visit,
+                              v -> overlaps(doctorsVisits, doctor.getId(), v),
+                              v -> overlaps(patientsVisits, patient.getId(), v));
+                doctorsVisits.computeIfAbsent(doctor.getId(), id -> new VisitIntervals()).add(visit);
+                patientsVisits.computeIfAbsent(patient.getId(), id -> new VisitIntervals()).add(visit);
+                result.add(BookingResult.accepted(request, visit));
+            } catch (ApiException e) {
+                LOGGER.debug("Visit rejected: {}, reason: {}", request, e.getMessage());
+                result.add(BookingResult.rejected(request, e));
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Requests sorted by epoch, split where the next slot is far enough from the previous one that the index ranges
+     * read for them do not meet; overlap queries read visits starting up to Visit.MAX_DURATION before a slot.
+     * A series spread over a year reads visits around its slots, not the whole year.
+     */
+    private static List<List<VisitRequest>> windowsOf(List<VisitRequest> requests) {
+        List<VisitRequest> sorted = new ArrayList<>(requests);
+        sorted.sort(Comparator.comparingLong(VisitRequest::getEpochInSeconds));
+
+        List<List<VisitRequest>> result = new ArrayList<>();
+        List<VisitRequest> window = new ArrayList<>();
+        for (VisitRequest request : sorted) {
+            if (!window.isEmpty()
+                    && request.getEpochInSeconds() - Visit.MAX_DURATION >= window.get(window.size() - 1).getEpochInSeconds() + VISIT_DURATION) {
+                result.add(window);
+                window = new ArrayList<>();
+            }
+            window.add(request);
+        }
+        result.add(window);
+        return result;
+    }
+
+    // ids of the window's requests which have been found
+    private static Set<Long> idsOf(List<VisitRequest> window, Function<VisitRequest, Long> id, Set<Long> found) {
+        return window.stream().map(id).filter(found::contains).collect(Collectors.toSet());
+    }
+
+    private static void addIntervals(Map<Long, VisitIntervals> visitsById, List<VisitTime> visitTimes, Function<VisitTime, Long> key) {
+        for (VisitTime visitTime : visitTimes) {
+            visitsById.computeIfAbsent(key.apply(visitTime), id -> new VisitIntervals())
+                      .add(visitTime.getEpochInSeconds(), visitTime.getEndInSeconds());
+        }
+    }
+
+    private static boolean overlaps(Map<Long, VisitIntervals> visitsById, Long id, Visit visit) {
+        VisitIntervals visits = visitsById.get(id);
+        return visits != null && visits.overlaps(visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+    }
+
+    /*
+     * The database is asked whether any visit overlaps the new one; no visits are loaded.
+     */
+    private boolean doctorHasVisitsOverlapping(Visit visit) {
+        return visitRepository.existsOverlappingOfDoctor(visit.getDoctor().getId(), visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+    }
+
+    // unconfirmed visits are also considered
+    private boolean patientHasVisitsOverlapping(Visit visit) {
+        return visitRepository.existsOverlappingOfPatient(visit.getPatient().getId(), visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+    }
+
+    private void validateVisit(Visit visit,
+                               Predicate<Visit> doctorBusy,
+                               Predicate<Visit> patientBusy) throws NewVisitNotPossibleException, DoctorNotActiveException {
         validateEpoch(visit.getEpoch());
         validateDoctor(visit.getDoctor());
-        validateDoctorAvailability(visit);
-        validatePatientAvailability(visit);
+        validateDoctorAvailability(visit, doctorBusy);
+        validatePatientAvailability(visit, patientBusy);
         validateAnimalTypeMatching(visit.getDoctor(), visit.getPatient());
 
     }
@@ -82,15 +214,16 @@ public class Reception {
         }
     }
 
-    private void validateDoctorAvailability(Visit visit) throws NewVisitNotPossibleException {
-        throwIfDoctorIsBusyAtEpoch(visit.getDoctor(), visit.getEpoch());
+    private void validateDoctorAvailability(Visit visit, Predicate<Visit> doctorBusy) throws NewVisitNotPossibleException {
+        throwIfDoctorIsBusyAtEpoch(visit, doctorBusy);
         throwIfDoctorDoesNotWorkAtEpoch(visit.getDoctor(), visit.getEpoch());
         throwIfDoctorEndsWorkBeforeVisitEnds(visit);
 
     }
 
-    private void throwIfDoctorIsBusyAtEpoch(Doctor doctor, Long epochInSeconds) throws NewVisitNotPossibleException {
-        if (doctor.hasVisitsAtEpoch(epochInSeconds)) {
+    private void throwIfDoctorIsBusyAtEpoch(Visit visit, Predicate<Visit> doctorBusy) throws NewVisitNotPossibleException {
+        Doctor doctor = visit.getDoctor();
+        if (doctorBusy.test(visit)) {
             throw new NewVisitNotPossibleException("Doctor with id " + doctor.getId() + " is busy at provided time.");
         }
     }
@@ -110,16 +243,15 @@ public class Reception {
         }
     }
 
-    private void validatePatientAvailability(Visit visit) throws NewVisitNotPossibleException {
-        throwIfPatientBusyAtEpoch(visit);
+    private void validatePatientAvailability(Visit visit, Predicate<Visit> patientBusy) throws NewVisitNotPossibleException {
+        throwIfPatientBusyAtEpoch(visit, patientBusy);
     }
 
     /*
-     * Checks, if Patient has any visits at epoch.
-     * Unconfirmed visits are also considered.
+     * Checks, if Patient has any visits overlapping the new one.
      */
-    private void throwIfPatientBusyAtEpoch(Visit visit) throws NewVisitNotPossibleException {
-        if (visit.getPatient().hasVisitsAt(visit.getEpoch())) {
+    private void throwIfPatientBusyAtEpoch(Visit visit, Predicate<Visit> patientBusy) throws NewVisitNotPossibleException {
+        if (patientBusy.test(visit)) {
             throw new NewVisitNotPossibleException("Patient has another visit at this time.");
         }
     }
@@ -0,0 +1,89 @@
+package pl.baranowski.dev.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.baranowski.dev.model.HashedTimingWheel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Expiry timers of visit holds, on a HashedTimingWheel ticked by a single thread. Holds which come due are passed
+ * to the expiry handler, one by one, on that thread. The thread is started with the first hold.
+ * A hold whose handler fails, e.g. with a lock timeout, is scheduled again, with the delay doubled after every
+ * failure up to MAX_RETRY_TICKS ticks, so a transient failure does not leave the slot blocked.
+ */
+public class VisitHolds {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisitHolds.class);
+    private static final int MAX_RETRY_TICKS = 64;
+
+    private final long tickMillis;
+    private final HashedTimingWheel<Long> wheel;
+    private final ScheduledExecutorService ticker;
+    private final Map<Long, Integer> failuresByVisitId = new ConcurrentHashMap<>();
+    private volatile Consumer<Long> expiryHandler = visitId -> {
+    };
+    private boolean started;
+
+    public VisitHolds(long tickMillis, int wheelSize) {
+        this.tickMillis = tickMillis;
+        this.wheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "visit-holds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOGGER.debug("Created visit holds wheel of {} ticks, {} ms each.", wheelSize, tickMillis);
+    }
+
+    public void setExpiryHandler(Consumer<Long> expiryHandler) {
+        this.expiryHandler = expiryHandler;
+    }
+
+    public void hold(Long visitId, long expiresAtMillis) {
+        startIfNeeded();
+        wheel.schedule(visitId, expiresAtMillis);
+    }
+
+    public void release(Long visitId) {
+        wheel.cancel(visitId);
+        failuresByVisitId.remove(visitId);
+    }
+
+    public int size() {
+        return wheel.size();
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private synchronized void startIfNeeded() {
+        if (!started) {
+            ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            started = true;
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Long> expired = wheel.advance(now);
+        for (Long visitId : expired) {
+            // a failing hold must not stop the ticker, which would leave every other hold in place
+            try {
+                expiryHandler.accept(visitId);
+                failuresByVisitId.remove(visitId);
+            } catch (RuntimeException e) {
+                int failures = failuresByVisitId.merge(visitId, 1, Integer::sum);
+                long retryInMillis = tickMillis * Math.min(1L << Math.min(failures - 1, 30), MAX_RETRY_TICKS);
+                LOGGER.error("Expiry of hold of visit {} has failed {} time(s), retrying in {} ms.", visitId, failures, retryInMillis, e);
+                wheel.schedule(visitId, now + retryInMillis);
+            }
+        }
+    }
+}
@@ -2,8 +2,12 @@ package pl.baranowski.dev.mapper;
 
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
+import pl.baranowski.dev.dto.DoctorsFreeRangesDTO;
 import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.dto.EpochRangeDTO;
+import pl.baranowski.dev.model.DoctorsFreeRanges;
 import pl.baranowski.dev.model.DoctorsFreeSlots;
+import pl.baranowski.dev.model.EpochRange;
 
 @Mapper(config = MapperCentralConfig.class,
         uses = DoctorMapper.class)
@@ -16,4 +20,11 @@ public interface AvailableSlotsMapper {
 
     @InheritInverseConfiguration
     DoctorsFreeSlots toEntity(DoctorsFreeSlotsDTO dto);
+
+    @Mapping(source = "doctor", target = "doctorDTO")
+    DoctorsFreeRangesDTO toDto(DoctorsFreeRanges entity);
+
+    @Mapping(source = "startInSeconds", target = "start")
+    @Mapping(source = "endInSeconds", target = "end")
+    EpochRangeDTO toDto(EpochRange entity);
 }
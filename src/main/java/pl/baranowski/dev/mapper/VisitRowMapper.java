@@ -0,0 +1,72 @@
+package pl.baranowski.dev.mapper;
+
+import org.springframework.stereotype.Component;
+import pl.baranowski.dev.dto.AnimalTypeDTO;
+import pl.baranowski.dev.dto.DoctorDTO;
+import pl.baranowski.dev.dto.MedSpecialtyDTO;
+import pl.baranowski.dev.dto.PatientDTO;
+import pl.baranowski.dev.dto.VisitDTO;
+import pl.baranowski.dev.model.DoctorAttribute;
+import pl.baranowski.dev.model.VisitRow;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+ * Builds the same VisitDTOs VisitMapper does, from VisitRows and the collections of their doctors,
+ * which are read separately for a whole page of rows.
+ */
+@Component
+public class VisitRowMapper {
+
+    public Function<VisitRow, VisitDTO> toDto(Collection<DoctorAttribute> animalTypes, Collection<DoctorAttribute> medSpecialties) {
+        Map<Long, Set<AnimalTypeDTO>> animalTypesByDoctorId = byDoctorId(animalTypes, a -> new AnimalTypeDTO(a.getAttributeId(), a.getName()));
+        Map<Long, Set<MedSpecialtyDTO>> medSpecialtiesByDoctorId = byDoctorId(medSpecialties, m -> new MedSpecialtyDTO(m.getAttributeId(), m.getName()));
+        return row -> toDto(row,
+                            new HashSet<>(animalTypesByDoctorId.getOrDefault(row.getDoctorId(), Set.of())),
+                            new HashSet<>(medSpecialtiesByDoctorId.getOrDefault(row.getDoctorId(), Set.of())));
+    }
+
+    private static <T> Map<Long, Set<T>> byDoctorId(Collection<DoctorAttribute> attributes, Function<DoctorAttribute, T> toDto) {
+        Map<Long, Set<T>> result = new HashMap<>();
+        for (DoctorAttribute attribute : attributes) {
+            result.computeIfAbsent(attribute.getDoctorId(), id -> new HashSet<>()).add(toDto.apply(attribute));
+        }
+        return result;
+    }
+
+    private static VisitDTO toDto(VisitRow row, Set<AnimalTypeDTO> animalTypes, Set<MedSpecialtyDTO> medSpecialties) {
+        DoctorDTO doctor = DoctorDTO.builder()
+                                    .id(row.getDoctorId())
+                                    .name(row.getDoctorName())
+                                    .surname(row.getDoctorSurname())
+                                    .hourlyRate(row.getDoctorHourlyRate() == null ? null : row.getDoctorHourlyRate().toString())
+                                    .nip(row.getDoctorNip())
+                                    .active(row.getDoctorActive())
+                                    .animalTypes(animalTypes)
+                                    .medSpecialties(medSpecialties)
+                                    .build();
+
+        PatientDTO patient = new PatientDTO();
+        patient.setId(row.getPatientId());
+        patient.setName(row.getPatientName());
+        patient.setAge(row.getPatientAge());
+        patient.setAnimalType(row.getAnimalTypeId() == null ? null : new AnimalTypeDTO(row.getAnimalTypeId(), row.getAnimalTypeName()));
+        patient.setOwnerName(row.getOwnerName());
+        patient.setOwnerEmail(row.getOwnerEmail());
+
+        VisitDTO visit = new VisitDTO();
+        visit.setId(row.getId());
+        visit.setDoctor(doctor);
+        visit.setPatient(patient);
+        visit.setEpoch(row.getEpochInSeconds());
+        visit.setConfirmed(row.getIsConfirmed());
+        visit.setDuration(row.getDuration());
+        visit.setHoldExpiresAt(row.getHoldExpiresAt());
+        return visit;
+    }
+}
@@ -0,0 +1,37 @@
+package pl.baranowski.dev.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Ids of animal types or medical specialties a doctor should have: at least one of anyOf, unless it is empty,
+ * and all of allOf.
+ */
+public class AttributeCriteria {
+    private final Set<Long> anyOf;
+    private final Set<Long> allOf;
+
+    public AttributeCriteria(Collection<Long> anyOf, Collection<Long> allOf) {
+        this.anyOf = Collections.unmodifiableSet(new TreeSet<>(anyOf));
+        this.allOf = Collections.unmodifiableSet(new TreeSet<>(allOf));
+    }
+
+    public static AttributeCriteria of(Long id) {
+        return new AttributeCriteria(Collections.emptySet(), Collections.singleton(id));
+    }
+
+    public Set<Long> getAnyOf() {
+        return anyOf;
+    }
+
+    public Set<Long> getAllOf() {
+        return allOf;
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeCriteria [anyOf=" + anyOf + ", allOf=" + allOf + "]";
+    }
+}
@@ -4,37 +4,176 @@ import pl.baranowski.dev.entity.Doctor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 
 public class AvailableSlotsFinder {
+    private static final long HOUR = HourBitmap.HOUR_IN_SECONDS;
+
     private final List<Doctor> doctors;
     private final EpochFutureTimeRange timeRange;
+    private final Function<Doctor, HourBitmap> busyHours;
 
     public AvailableSlotsFinder(List<Doctor> doctors, EpochFutureTimeRange timeRange) {
+        this(doctors, timeRange, doctor -> HourBitmap.ofVisits(doctor.getVisits()));
+    }
+
+    public AvailableSlotsFinder(List<Doctor> doctors,
+                                EpochFutureTimeRange timeRange,
+                                Function<Doctor, HourBitmap> busyHours) {
         this.doctors = doctors;
         this.timeRange = timeRange;
+        this.busyHours = busyHours;
     }
 
     public List<DoctorsFreeSlots> find() {
-        List<DoctorsFreeSlots> result = new ArrayList<>();
-        for (Doctor doctor : doctors) {
-            List<Long> availableSlots = freeSlotsForDoctorBetween(doctor, timeRange);
-            if (availableSlots.size() > 0) {
-                DoctorsFreeSlots doctorsFreeSlots = new DoctorsFreeSlots(doctor, availableSlots);
-                result.add(doctorsFreeSlots);
+        return findBetween(0, doctors.size(), this::freeSlotsOf);
+    }
+
+    /*
+     * Same result as find(), with the doctors list split in halves until parts have at most splitThreshold doctors.
+     * Parts are joined left to right, so doctors keep their order.
+     */
+    public List<DoctorsFreeSlots> find(ForkJoinPool pool, int splitThreshold) {
+        return pool.invoke(new FindTask<>(0, doctors.size(), Math.max(1, splitThreshold), this::freeSlotsOf));
+    }
+
+    /*
+     * Free time of every doctor merged into [start, end) ranges of consecutive free hours.
+     */
+    public List<DoctorsFreeRanges> findRanges() {
+        return findBetween(0, doctors.size(), this::freeRangesOf);
+    }
+
+    public List<DoctorsFreeRanges> findRanges(ForkJoinPool pool, int splitThreshold) {
+        return pool.invoke(new FindTask<>(0, doctors.size(), Math.max(1, splitThreshold), this::freeRangesOf));
+    }
+
+    // doctors without free time are skipped (freeTimeOf returns null)
+    private <T> List<T> findBetween(int fromDoctor, int toDoctor, Function<Doctor, T> freeTimeOf) {
+        List<T> result = new ArrayList<>();
+        for (Doctor doctor : doctors.subList(fromDoctor, toDoctor)) {
+            T freeTime = freeTimeOf.apply(doctor);
+            if (freeTime != null) {
+                result.add(freeTime);
             }
         }
         return result;
     }
 
-    private List<Long> freeSlotsForDoctorBetween(Doctor doctor, EpochFutureTimeRange timeRange) {
-        List<Long> topHours = topHoursBetween(timeRange);
+    private class FindTask<T> extends RecursiveTask<List<T>> {
+        private final int fromDoctor;
+        private final int toDoctor;
+        private final int splitThreshold;
+        private final Function<Doctor, T> freeTimeOf;
+
+        FindTask(int fromDoctor, int toDoctor, int splitThreshold, Function<Doctor, T> freeTimeOf) {
+            this.fromDoctor = fromDoctor;
+            this.toDoctor = toDoctor;
+            this.splitThreshold = splitThreshold;
+            this.freeTimeOf = freeTimeOf;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (toDoctor - fromDoctor <= splitThreshold) {
+                return findBetween(fromDoctor, toDoctor, freeTimeOf);
+            }
+            int middle = (fromDoctor + toDoctor) >>> 1;
+            FindTask<T> left = new FindTask<>(fromDoctor, middle, splitThreshold, freeTimeOf);
+            FindTask<T> right = new FindTask<>(middle, toDoctor, splitThreshold, freeTimeOf);
+            right.fork();
+            List<T> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
+    private DoctorsFreeSlots freeSlotsOf(Doctor doctor) {
+        long firstHour = firstHour();
+        long lastHour = lastHour();
+        HourBitmap busy = busyHours.apply(doctor);
+
+        List<Long> result = new ArrayList<>();
+        for (long wordIndex = firstHour >> 6; wordIndex <= lastHour >> 6; wordIndex++) {
+            long free = freeWord(doctor, busy, wordIndex, firstHour, lastHour);
+            while (free != 0) {
+                long hour = (wordIndex << 6) + Long.numberOfTrailingZeros(free);
+                result.add(hour * HOUR);
+                free &= free - 1;
+            }
+        }
+        return result.isEmpty() ? null : new DoctorsFreeSlots(doctor, result);
+    }
+
+    private DoctorsFreeRanges freeRangesOf(Doctor doctor) {
+        long firstHour = firstHour();
+        long lastHour = lastHour();
+        HourBitmap busy = busyHours.apply(doctor);
+
+        List<EpochRange> result = new ArrayList<>();
+        long runStart = -1;
+        long runEnd = -1; // exclusive, in hours
+        for (long wordIndex = firstHour >> 6; wordIndex <= lastHour >> 6; wordIndex++) {
+            long free = freeWord(doctor, busy, wordIndex, firstHour, lastHour);
+            while (free != 0) {
+                int startBit = Long.numberOfTrailingZeros(free);
+                long notFree = ~free & (-1L << startBit);
+                int endBit = notFree == 0 ? 64 : Long.numberOfTrailingZeros(notFree);
+                long start = (wordIndex << 6) + startBit;
+                if (start != runEnd) {
+                    if (runStart >= 0) {
+                        result.add(new EpochRange(runStart * HOUR, runEnd * HOUR));
+                    }
+                    runStart = start;
+                }
+                runEnd = (wordIndex << 6) + endBit;
+                free = endBit == 64 ? 0 : free & (-1L << endBit);
+            }
+        }
+        if (runStart >= 0) {
+            result.add(new EpochRange(runStart * HOUR, runEnd * HOUR));
+        }
+        return result.isEmpty() ? null : new DoctorsFreeRanges(doctor, result);
+    }
+
+    private long firstHour() {
+        return Math.floorDiv(timeRange.getStartInSeconds() + HOUR - 1, HOUR);
+    }
+
+    private long lastHour() {
+        return Math.floorDiv(timeRange.getEndInSeconds(), HOUR);
+    }
+
+    private long freeWord(Doctor doctor, HourBitmap busy, long wordIndex, long firstHour, long lastHour) {
+        long inRange = rangeMask(wordIndex, firstHour, lastHour);
+        return workingHoursWord(doctor, wordIndex, inRange) & ~busy.word(wordIndex);
+    }
 
-        List<Long> result = topHours.stream()
-                                    .filter(hour -> doctor.isAvailableAt(hour)) // checks, if doctor is free at the beginning of visit
-                                    .filter(hour -> doctor.isAvailableAt(hour + 3600 - 1)) // checks, if doctor is free at the ending of visit (inclusive)
-                                    .collect(Collectors.toList());
+    // bits of the word that fall into [firstHour, lastHour]
+    private static long rangeMask(long wordIndex, long firstHour, long lastHour) {
+        long wordStart = wordIndex << 6;
+        long mask = -1L;
+        if (firstHour > wordStart) {
+            mask &= -1L << (firstHour - wordStart);
+        }
+        if (lastHour < wordStart + 63) {
+            mask &= -1L >>> (63 - (lastHour - wordStart));
+        }
+        return mask;
+    }
 
+    // a bit is set when the doctor works for the whole hour, the same way Doctor.isAvailableAt checks both ends of a visit
+    private static long workingHoursWord(Doctor doctor, long wordIndex, long mask) {
+        long result = 0L;
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            long epoch = ((wordIndex << 6) + bit) * HOUR;
+            if (doctor.worksAt(epoch) && doctor.worksAt(epoch + HOUR - 1)) {
+                result |= 1L << bit;
+            }
+        }
         return result;
     }
 
@@ -0,0 +1,48 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.exception.ApiException;
+
+/*
+ * Outcome of one visit of a batch: the visit to be saved, or the reason why it cannot be booked.
+ */
+public class BookingResult {
+    private final VisitRequest request;
+    private final Visit visit;
+    private final ApiException error;
+
+    private BookingResult(VisitRequest request, Visit visit, ApiException error) {
+        this.request = request;
+        this.visit = visit;
+        this.error = error;
+    }
+
+    public static BookingResult accepted(VisitRequest request, Visit visit) {
+        return new BookingResult(request, visit, null);
+    }
+
+    public static BookingResult rejected(VisitRequest request, ApiException error) {
+        return new BookingResult(request, null, error);
+    }
+
+    public boolean isAccepted() {
+        return error == null;
+    }
+
+    public VisitRequest getRequest() {
+        return request;
+    }
+
+    public Visit getVisit() {
+        return visit;
+    }
+
+    public ApiException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingResult [request=" + request + ", visit=" + visit + ", error=" + (error == null ? null : error.getMessage()) + "]";
+    }
+}
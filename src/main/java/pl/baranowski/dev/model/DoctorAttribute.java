@@ -0,0 +1,38 @@
+package pl.baranowski.dev.model;
+
+/*
+ * Id of an animal type or a medical specialty of a doctor, read from a join table with a JPQL constructor expression.
+ * The name is read only where it is shown, otherwise it is null.
+ */
+public class DoctorAttribute {
+    private final Long doctorId;
+    private final Long attributeId;
+    private final String name;
+
+    public DoctorAttribute(Long doctorId, Long attributeId) {
+        this(doctorId, attributeId, null);
+    }
+
+    public DoctorAttribute(Long doctorId, Long attributeId, String name) {
+        this.doctorId = doctorId;
+        this.attributeId = attributeId;
+        this.name = name;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getAttributeId() {
+        return attributeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "DoctorAttribute [doctorId=" + doctorId + ", attributeId=" + attributeId + ", name=" + name + "]";
+    }
+}
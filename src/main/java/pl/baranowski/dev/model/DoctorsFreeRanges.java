@@ -0,0 +1,56 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.entity.Doctor;
+
+import java.util.List;
+
+public class DoctorsFreeRanges {
+    private final Doctor doctor;
+    private final List<EpochRange> freeRanges;
+
+    public DoctorsFreeRanges(Doctor doctor, List<EpochRange> freeRanges) {
+        this.doctor = doctor;
+        this.freeRanges = freeRanges;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public List<EpochRange> getFreeRanges() {
+        return freeRanges;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((freeRanges == null) ? 0 : freeRanges.hashCode());
+        result = prime * result + ((doctor == null) ? 0 : doctor.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        DoctorsFreeRanges other = (DoctorsFreeRanges) obj;
+        if (freeRanges == null) {
+            if (other.freeRanges != null)
+                return false;
+        } else if (!freeRanges.equals(other.freeRanges))
+            return false;
+        if (doctor == null) {
+            return other.doctor == null;
+        } else return doctor.equals(other.doctor);
+    }
+
+    @Override
+    public String toString() {
+        return "DoctorsFreeRanges [doctor=" + doctor + ", freeRanges=" + freeRanges + "]";
+    }
+}
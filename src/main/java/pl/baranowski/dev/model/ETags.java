@@ -0,0 +1,40 @@
+package pl.baranowski.dev.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/*
+ * Strong ETags of API responses, built from the versions of what a response is made of, so they can be checked
+ * before the response is built. Tags of many versions are their SHA-256 digest, so their length does not grow.
+ * Versions kept only in memory start again after a restart; tags built from them carry RUN_ID,
+ * so a tag of an earlier run never matches.
+ */
+public final class ETags {
+    public static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    public static String of(String kind, Object... parts) {
+        StringBuilder result = new StringBuilder(kind);
+        for (Object part : parts) {
+            result.append('-').append(part);
+        }
+        return result.toString();
+    }
+
+    public static String digest(String kind, Collection<?> parts) {
+        String joined = parts.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(joined.getBytes(StandardCharsets.UTF_8));
+            return kind + "-" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package pl.baranowski.dev.model;
+
+/*
+ * Id and @Version of an entity without the entity itself, read with a JPQL constructor expression.
+ */
+public class EntityVersion {
+    private final Long id;
+    private final long version;
+
+    public EntityVersion(Long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return id + ":" + version;
+    }
+}
@@ -0,0 +1,48 @@
+package pl.baranowski.dev.model;
+
+/*
+ * Time range [startInSeconds, endInSeconds), end exclusive.
+ */
+public class EpochRange {
+    private final long startInSeconds;
+    private final long endInSeconds;
+
+    public EpochRange(long startInSeconds, long endInSeconds) {
+        this.startInSeconds = startInSeconds;
+        this.endInSeconds = endInSeconds;
+    }
+
+    public long getStartInSeconds() {
+        return startInSeconds;
+    }
+
+    public long getEndInSeconds() {
+        return endInSeconds;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (int) (startInSeconds ^ (startInSeconds >>> 32));
+        result = prime * result + (int) (endInSeconds ^ (endInSeconds >>> 32));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        EpochRange other = (EpochRange) obj;
+        return startInSeconds == other.startInSeconds && endInSeconds == other.endInSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "EpochRange [startInSeconds=" + startInSeconds + ", endInSeconds=" + endInSeconds + "]";
+    }
+}
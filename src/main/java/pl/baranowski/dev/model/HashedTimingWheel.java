@@ -0,0 +1,84 @@
+package pl.baranowski.dev.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Timers of items, kept in a ring of buckets, one bucket per tick of tickMillis. An item due at tick n is kept in bucket
+ * n % wheelSize, so scheduling and cancelling take constant time, and advancing the wheel by one tick only looks at
+ * one bucket, whose items are mostly due. Items due more than wheelSize ticks ahead stay in their bucket for more rounds.
+ * Items never come due before their deadline, but may come due up to one tick after it.
+ * Time is given by the caller, so the wheel may be driven by any thread or by tests.
+ */
+public class HashedTimingWheel<T> {
+    private final long startMillis;
+    private final long tickMillis;
+    private final int mask;
+    private final List<Map<T, Long>> buckets;
+    // bucket of every scheduled item, to cancel it without a search
+    private final Map<T, Integer> bucketOfItem = new HashMap<>();
+    private long currentTick;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size should be positive.");
+        }
+        int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.startMillis = startMillis;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /*
+     * Schedules the item, or moves it when it is already scheduled.
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        cancel(item);
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis - startMillis, tickMillis), currentTick + 1);
+        int bucket = (int) (deadlineTick & mask);
+        buckets.get(bucket).put(item, deadlineTick);
+        bucketOfItem.put(item, bucket);
+    }
+
+    public synchronized boolean cancel(T item) {
+        Integer bucket = bucketOfItem.remove(item);
+        return bucket != null && buckets.get(bucket).remove(item) != null;
+    }
+
+    /*
+     * Moves the wheel to nowMillis and returns items which have come due, removing them from the wheel.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> result = new ArrayList<>();
+        // after a pause longer than a round, every bucket is looked at once
+        for (long tick = Math.max(currentTick + 1, nowTick - mask); tick <= nowTick; tick++) {
+            Iterator<Map.Entry<T, Long>> iterator = buckets.get((int) (tick & mask)).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<T, Long> entry = iterator.next();
+                if (entry.getValue() <= nowTick) {
+                    result.add(entry.getKey());
+                    bucketOfItem.remove(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return result;
+    }
+
+    public synchronized int size() {
+        return bucketOfItem.size();
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,78 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.entity.Visit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Sparse bitmap of hours: bit n stands for the hour starting at epoch second n * 3600.
+ * Bits are kept in pages of 4096 hours (~5.6 months), so memory grows only with the months that have any bit set.
+ */
+public class HourBitmap {
+    public static final long HOUR_IN_SECONDS = 3600;
+    private static final int WORDS_PER_PAGE = 64;
+    private static final int PAGE_SHIFT = 6; // log2(WORDS_PER_PAGE)
+
+    private final Map<Long, long[]> pages = new HashMap<>();
+
+    public static HourBitmap ofVisits(Collection<Visit> visits) {
+        HourBitmap result = new HourBitmap();
+        for (Visit visit : visits) {
+            result.markSeconds(visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+        }
+        return result;
+    }
+
+    public static long hourOf(long epochInSeconds) {
+        return Math.floorDiv(epochInSeconds, HOUR_IN_SECONDS);
+    }
+
+    public synchronized void set(long hour) {
+        long wordIndex = hour >> 6;
+        long[] page = pages.computeIfAbsent(wordIndex >> PAGE_SHIFT, key -> new long[WORDS_PER_PAGE]);
+        page[(int) (wordIndex & (WORDS_PER_PAGE - 1))] |= 1L << hour;
+    }
+
+    public synchronized void clear(long hour) {
+        long wordIndex = hour >> 6;
+        long[] page = pages.get(wordIndex >> PAGE_SHIFT);
+        if (page != null) {
+            page[(int) (wordIndex & (WORDS_PER_PAGE - 1))] &= ~(1L << hour);
+        }
+    }
+
+    public synchronized boolean get(long hour) {
+        return (word(hour >> 6) & (1L << hour)) != 0;
+    }
+
+    /*
+     * Sets every hour overlapped by [startInSeconds, endInSeconds).
+     */
+    public synchronized void markSeconds(long startInSeconds, long endInSeconds) {
+        if (endInSeconds <= startInSeconds) {
+            return;
+        }
+        for (long hour = hourOf(startInSeconds); hour <= hourOf(endInSeconds - 1); hour++) {
+            set(hour);
+        }
+    }
+
+    /*
+     * Returns 64 hours starting at hour wordIndex * 64, the lowest bit being the earliest hour.
+     */
+    public synchronized long word(long wordIndex) {
+        long[] page = pages.get(wordIndex >> PAGE_SHIFT);
+        return page == null ? 0L : page[(int) (wordIndex & (WORDS_PER_PAGE - 1))];
+    }
+
+    public synchronized boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "HourBitmap [pages=" + pages.size() + "]";
+    }
+}
@@ -0,0 +1,35 @@
+package pl.baranowski.dev.model;
+
+import org.springframework.http.MediaType;
+import pl.baranowski.dev.exception.InvalidParamException;
+
+/*
+ * Formats of bulk imports: CSV with a header line, or one JSON object per line.
+ */
+public enum ImportFormat {
+    CSV(ImportFormat.CSV_VALUE),
+    NDJSON(ImportFormat.NDJSON_VALUE);
+
+    public static final String CSV_VALUE = "text/csv";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final MediaType mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public static ImportFormat of(String contentType) throws InvalidParamException {
+        try {
+            MediaType requested = MediaType.parseMediaType(contentType);
+            for (ImportFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(requested)) {
+                    return format;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new InvalidParamException("Content-Type", contentType);
+    }
+}
@@ -0,0 +1,53 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.dto.ImportRejectDTO;
+import pl.baranowski.dev.dto.ImportReportDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Counts rows of a running import. Only the first MAX_LISTED_REJECTS rejects are kept,
+ * so a bad file does not fill the memory with error messages.
+ */
+public class ImportReport {
+    public static final int MAX_LISTED_REJECTS = 100;
+
+    private final long startedMillis = System.currentTimeMillis();
+    private final List<ImportRejectDTO> rejects = new ArrayList<>();
+    private long rows;
+    private long importedRows;
+    private long rejectedRows;
+
+    public void rowRead() {
+        rows++;
+    }
+
+    public void imported(int count) {
+        importedRows += count;
+    }
+
+    public void rejected(int line, String reason) {
+        rejectedRows++;
+        if (rejects.size() < MAX_LISTED_REJECTS) {
+            rejects.add(new ImportRejectDTO(line, reason));
+        }
+    }
+
+    // adds rows imported and rejected in a part of the import, counted separately
+    public void add(ImportReport part) {
+        importedRows += part.importedRows;
+        rejectedRows += part.rejectedRows;
+        for (ImportRejectDTO reject : part.rejects) {
+            if (rejects.size() == MAX_LISTED_REJECTS) {
+                break;
+            }
+            rejects.add(reject);
+        }
+    }
+
+    public ImportReportDTO toDto() {
+        long durationMillis = Math.max(1, System.currentTimeMillis() - startedMillis);
+        return new ImportReportDTO(rows, importedRows, rejectedRows, durationMillis, rows * 1000 / durationMillis, rejects);
+    }
+}
@@ -0,0 +1,173 @@
+package pl.baranowski.dev.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Reads rows of a bulk import one line at a time, so memory use does not depend on the size of the input.
+ * Every row becomes a JSON object, whatever the format. CSV rows are keyed by the header line,
+ * and values of listColumns are split on '|', e.g. "Dog|Cat". Quoted CSV values may contain commas, but not line breaks.
+ * A row which cannot be read is returned with an error instead of a value, and reading goes on with the next line.
+ */
+public class ImportRowReader implements Closeable {
+    private static final String LIST_SEPARATOR = "\\|";
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Set<String> listColumns;
+    private List<String> header;
+    private int lineNumber;
+
+    public ImportRowReader(InputStream in, ImportFormat format, ObjectMapper objectMapper, Set<String> listColumns) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.listColumns = listColumns;
+    }
+
+    // next row, or null at the end of input
+    public Row next() throws IOException {
+        String line = nextLine();
+        if (line != null && format == ImportFormat.CSV && header == null) {
+            header = readHeader(line);
+            line = nextLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        try {
+            return new Row(lineNumber, format == ImportFormat.CSV ? csvRow(line) : jsonRow(line), null);
+        } catch (IllegalArgumentException e) {
+            return new Row(lineNumber, null, e.getMessage());
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    private List<String> readHeader(String line) {
+        List<String> result = new ArrayList<>();
+        for (String column : splitCsv(line)) {
+            result.add(column.trim());
+        }
+        return result;
+    }
+
+    private ObjectNode csvRow(String line) {
+        List<String> values = splitCsv(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " values, found " + values.size() + ".");
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        for (int i = 0; i < values.size(); i++) {
+            String column = header.get(i);
+            String value = values.get(i).trim();
+            if (listColumns.contains(column)) {
+                ArrayNode items = result.putArray(column);
+                for (String item : value.split(LIST_SEPARATOR)) {
+                    if (!item.isBlank()) {
+                        items.add(item.trim());
+                    }
+                }
+            } else {
+                result.put(column, value.isEmpty() ? null : value);
+            }
+        }
+        return result;
+    }
+
+    private JsonNode jsonRow(String line) throws JsonProcessingException {
+        JsonNode result = objectMapper.readTree(line);
+        if (!result.isObject()) {
+            throw new IllegalArgumentException("Row should be a JSON object.");
+        }
+        return result;
+    }
+
+    // values of a CSV line; "" inside a quoted value stands for one quote
+    static List<String> splitCsv(String line) {
+        List<String> result = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                result.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Quoted value is not closed.");
+        }
+        result.add(value.toString());
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public static class Row {
+        private final int line;
+        private final JsonNode value;
+        private final String error;
+
+        private Row(int line, JsonNode value, String error) {
+            this.line = line;
+            this.value = value;
+            this.error = error;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public JsonNode getValue() {
+            return value;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isReadable() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.exception.InvalidParamException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/*
+ * Position in a list ordered by one or more long keys, e.g. (epochInSeconds, id) of the last visit of a page.
+ * Clients get it as an opaque token and give it back to read the next page; a query then starts right after it,
+ * with an index range scan instead of skipping the rows of every previous page.
+ * An empty token stands for the start of the list.
+ */
+public class KeysetCursor {
+    private static final String SEPARATOR = ":";
+
+    private final long[] keys;
+
+    private KeysetCursor(long[] keys) {
+        this.keys = keys;
+    }
+
+    public static KeysetCursor of(long... keys) {
+        return new KeysetCursor(keys.clone());
+    }
+
+    public static KeysetCursor decode(String token, int keyCount) throws InvalidParamException {
+        if (token == null || token.isEmpty()) {
+            long[] keys = new long[keyCount];
+            Arrays.fill(keys, Long.MIN_VALUE);
+            return new KeysetCursor(keys);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (parts.length != keyCount) {
+                throw new InvalidParamException("after", token);
+            }
+            long[] keys = new long[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = Long.parseLong(parts[i]);
+            }
+            return new KeysetCursor(keys);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParamException("after", token);
+        }
+    }
+
+    public String encode() {
+        StringBuilder text = new StringBuilder();
+        for (long key : keys) {
+            if (text.length() > 0) {
+                text.append(SEPARATOR);
+            }
+            text.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long key(int index) {
+        return keys[index];
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor " + Arrays.toString(keys);
+    }
+}
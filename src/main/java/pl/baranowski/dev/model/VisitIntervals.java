@@ -0,0 +1,91 @@
+package pl.baranowski.dev.model;
+
+import pl.baranowski.dev.entity.Visit;
+
+import java.util.Arrays;
+
+/*
+ * Visits as [start, end) intervals in epoch seconds, sorted by start.
+ * maxEnds[i] holds the latest end among the first i + 1 intervals, so an overlap check is one binary search.
+ */
+public class VisitIntervals {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] starts;
+    private long[] ends;
+    private long[] maxEnds;
+    private int size;
+
+    public VisitIntervals() {
+        starts = new long[INITIAL_CAPACITY];
+        ends = new long[INITIAL_CAPACITY];
+        maxEnds = new long[INITIAL_CAPACITY];
+    }
+
+    public void add(long start, long end) {
+        if (size == starts.length) {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            maxEnds = Arrays.copyOf(maxEnds, capacity);
+        }
+        int position = lastStartingBefore(start + 1) + 1;
+        System.arraycopy(starts, position, starts, position + 1, size - position);
+        System.arraycopy(ends, position, ends, position + 1, size - position);
+        starts[position] = start;
+        ends[position] = end;
+        size++;
+        recomputeMaxEnds(position);
+    }
+
+    public void add(Visit visit) {
+        add(visit.getEpoch(), visit.getEpoch() + visit.getDuration());
+    }
+
+    /*
+     * True, if any interval contains given second.
+     */
+    public boolean covers(long epochInSeconds) {
+        return overlaps(epochInSeconds, epochInSeconds + 1);
+    }
+
+    /*
+     * True, if any interval shares at least one second with [start, end).
+     */
+    public boolean overlaps(long start, long end) {
+        int last = lastStartingBefore(end);
+        return last >= 0 && maxEnds[last] > start;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // index of the last interval with start < bound, -1 if there is none
+    private int lastStartingBefore(long bound) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < bound) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void recomputeMaxEnds(int from) {
+        long max = from == 0 ? Long.MIN_VALUE : maxEnds[from - 1];
+        for (int i = from; i < size; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VisitIntervals [size=" + size + "]";
+    }
+}
@@ -0,0 +1,33 @@
+package pl.baranowski.dev.model;
+
+/*
+ * Doctor, patient and start of a visit to be booked, before Reception validates it.
+ */
+public class VisitRequest {
+    private final Long doctorId;
+    private final Long patientId;
+    private final long epochInSeconds;
+
+    public VisitRequest(Long doctorId, Long patientId, long epochInSeconds) {
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.epochInSeconds = epochInSeconds;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public long getEpochInSeconds() {
+        return epochInSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitRequest [doctorId=" + doctorId + ", patientId=" + patientId + ", epochInSeconds=" + epochInSeconds + "]";
+    }
+}
@@ -0,0 +1,130 @@
+package pl.baranowski.dev.model;
+
+import java.math.BigDecimal;
+
+/*
+ * What VisitDTO shows of a visit, its doctor and its patient, read with a JPQL constructor expression,
+ * so no entity is created. Collections of the doctor are read separately, for all rows at once.
+ */
+public class VisitRow {
+    private final Long id;
+    private final long epochInSeconds;
+    private final long duration;
+    private final Boolean isConfirmed;
+    private final Long holdExpiresAt;
+    private final Long doctorId;
+    private final String doctorName;
+    private final String doctorSurname;
+    private final BigDecimal doctorHourlyRate;
+    private final String doctorNip;
+    private final Boolean doctorActive;
+    private final Long patientId;
+    private final String patientName;
+    private final Integer patientAge;
+    private final String ownerName;
+    private final String ownerEmail;
+    private final Long animalTypeId;
+    private final String animalTypeName;
+
+    public VisitRow(Long id, long epochInSeconds, long duration, Boolean isConfirmed, Long holdExpiresAt,
+                    Long doctorId, String doctorName, String doctorSurname, BigDecimal doctorHourlyRate, String doctorNip, Boolean doctorActive,
+                    Long patientId, String patientName, Integer patientAge, String ownerName, String ownerEmail,
+                    Long animalTypeId, String animalTypeName) {
+        this.id = id;
+        this.epochInSeconds = epochInSeconds;
+        this.duration = duration;
+        this.isConfirmed = isConfirmed;
+        this.holdExpiresAt = holdExpiresAt;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.doctorSurname = doctorSurname;
+        this.doctorHourlyRate = doctorHourlyRate;
+        this.doctorNip = doctorNip;
+        this.doctorActive = doctorActive;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.patientAge = patientAge;
+        this.ownerName = ownerName;
+        this.ownerEmail = ownerEmail;
+        this.animalTypeId = animalTypeId;
+        this.animalTypeName = animalTypeName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getEpochInSeconds() {
+        return epochInSeconds;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public Boolean getIsConfirmed() {
+        return isConfirmed;
+    }
+
+    public Long getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getDoctorSurname() {
+        return doctorSurname;
+    }
+
+    public BigDecimal getDoctorHourlyRate() {
+        return doctorHourlyRate;
+    }
+
+    public String getDoctorNip() {
+        return doctorNip;
+    }
+
+    public Boolean getDoctorActive() {
+        return doctorActive;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public Integer getPatientAge() {
+        return patientAge;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public String getOwnerEmail() {
+        return ownerEmail;
+    }
+
+    public Long getAnimalTypeId() {
+        return animalTypeId;
+    }
+
+    public String getAnimalTypeName() {
+        return animalTypeName;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitRow [id=" + id + ", epochInSeconds=" + epochInSeconds + ", doctorId=" + doctorId
+                + ", patientId=" + patientId + "]";
+    }
+}
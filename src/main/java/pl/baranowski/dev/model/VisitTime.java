@@ -0,0 +1,44 @@
+package pl.baranowski.dev.model;
+
+/*
+ * Time of a Visit without the Visit entity itself, read with a JPQL constructor expression.
+ */
+public class VisitTime {
+    private final Long doctorId;
+    private final Long patientId;
+    private final long epochInSeconds;
+    private final long duration;
+
+    public VisitTime(Long doctorId, Long patientId, long epochInSeconds, long duration) {
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.epochInSeconds = epochInSeconds;
+        this.duration = duration;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public long getEpochInSeconds() {
+        return epochInSeconds;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getEndInSeconds() {
+        return epochInSeconds + duration;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitTime [doctorId=" + doctorId + ", patientId=" + patientId + ", epochInSeconds=" + epochInSeconds
+                + ", duration=" + duration + "]";
+    }
+}
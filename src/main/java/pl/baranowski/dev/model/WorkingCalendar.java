@@ -0,0 +1,84 @@
+package pl.baranowski.dev.model;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Collection;
+
+/*
+ * Weekly working hours compiled into a 168-bit mask (bit = day of week * 24 + hour, Monday being day 0).
+ * The zone offset is cached together with the span of instants it is valid for, so a lookup allocates only
+ * when it crosses an offset transition (e.g. a DST change).
+ */
+public class WorkingCalendar {
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int HOURS_PER_DAY = 24;
+
+    private final long[] weekMask = new long[3];
+    private final ZoneRules zoneRules;
+    private volatile OffsetSpan offsetSpan;
+
+    public WorkingCalendar(Collection<DayOfWeek> workingDays, Integer worksFromHour, Integer worksTillHour, ZoneId zone) {
+        this.zoneRules = zone.getRules();
+        if (workingDays == null || worksFromHour == null || worksTillHour == null) {
+            return;
+        }
+        for (DayOfWeek day : workingDays) {
+            for (int hour = Math.max(0, worksFromHour); hour < Math.min(HOURS_PER_DAY, worksTillHour); hour++) {
+                int bit = (day.getValue() - 1) * HOURS_PER_DAY + hour;
+                weekMask[bit >> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    public boolean worksAt(long epochInSeconds) {
+        long localSeconds = epochInSeconds + offsetAt(epochInSeconds);
+        long localDay = Math.floorDiv(localSeconds, SECONDS_PER_DAY);
+        int dayOfWeek = (int) Math.floorMod(localDay + 3, 7); // 1970-01-01 was a Thursday
+        int hour = (int) (Math.floorMod(localSeconds, SECONDS_PER_DAY) / SECONDS_PER_HOUR);
+        int bit = dayOfWeek * HOURS_PER_DAY + hour;
+        return (weekMask[bit >> 6] & (1L << bit)) != 0;
+    }
+
+    private int offsetAt(long epochInSeconds) {
+        OffsetSpan span = offsetSpan;
+        if (span == null || !span.contains(epochInSeconds)) {
+            span = OffsetSpan.of(zoneRules, epochInSeconds);
+            offsetSpan = span;
+        }
+        return span.offsetInSeconds;
+    }
+
+    private static class OffsetSpan {
+        private final long validFrom;
+        private final long validUntil;
+        private final int offsetInSeconds;
+
+        private OffsetSpan(long validFrom, long validUntil, int offsetInSeconds) {
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.offsetInSeconds = offsetInSeconds;
+        }
+
+        static OffsetSpan of(ZoneRules rules, long epochInSeconds) {
+            Instant instant = Instant.ofEpochSecond(epochInSeconds);
+            ZoneOffset offset = rules.getOffset(instant);
+            if (rules.isFixedOffset()) {
+                return new OffsetSpan(Long.MIN_VALUE, Long.MAX_VALUE, offset.getTotalSeconds());
+            }
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            long validFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond();
+            long validUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond();
+            return new OffsetSpan(validFrom, validUntil, offset.getTotalSeconds());
+        }
+
+        boolean contains(long epochInSeconds) {
+            return epochInSeconds >= validFrom && epochInSeconds < validUntil;
+        }
+    }
+}
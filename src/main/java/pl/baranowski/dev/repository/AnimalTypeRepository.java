@@ -4,13 +4,17 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.model.EntityVersion;
 
 @Repository
 public interface AnimalTypeRepository extends JpaRepository<AnimalType, Long> {
 
 	Optional<AnimalType> findOneByName(String name);
 	List<AnimalType> findByName(String name);
+	@Query("select new pl.baranowski.dev.model.EntityVersion(a.id, a.version) from AnimalType a")
+	List<EntityVersion> findVersions();
 }
@@ -1,16 +1,56 @@
 package pl.baranowski.dev.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
 
-import pl.baranowski.dev.entity.AnimalType;
-import pl.baranowski.dev.entity.MedSpecialty;
 import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.model.DoctorAttribute;
+import pl.baranowski.dev.model.EntityVersion;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long>{
 
 	List<Doctor> findByNip(String nip);
-	List<Doctor> findByAnimalTypesAndMedSpecialties(AnimalType animalType, MedSpecialty medSpecialty);
+	// doctors found by DoctorAttributeIndex; results are cached until any doctor changes
+	@EntityGraph(Doctor.WITH_SCHEDULE)
+	@QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Doctor.SEARCH_CACHE_REGION)})
+	List<Doctor> findWithScheduleByIdIn(Collection<Long> ids);
+	@EntityGraph(Doctor.WITH_SPECIALTIES)
+	Optional<Doctor> findWithSpecialtiesById(Long id);
+	@EntityGraph(Doctor.WITH_DETAILS)
+	Optional<Doctor> findWithDetailsById(Long id);
+	@EntityGraph(Doctor.WITH_DETAILS)
+	List<Doctor> findWithDetailsByIdIn(Collection<Long> ids);
+	// which of given NIPs are taken
+	@Query("select d.nip from Doctor d where d.nip in :nips")
+	List<String> findNipsIn(@Param("nips") Collection<String> nips);
+	// versions of the doctors findAll(pageable) returns
+	@Query("select new pl.baranowski.dev.model.EntityVersion(d.id, d.version) from Doctor d")
+	List<EntityVersion> findVersions(Pageable pageable);
+	// keyset page: doctors following id, read from the primary key index
+	@Query("select d from Doctor d where d.id > :id order by d.id")
+	List<Doctor> findPageAfter(@Param("id") long id, Pageable limit);
+	// what DoctorAttributeIndex is built from
+	@Query("select d.id from Doctor d where d.active = :active")
+	List<Long> findIdsByActive(@Param("active") Boolean active);
+	@Query("select new pl.baranowski.dev.model.DoctorAttribute(d.id, a.id) from Doctor d join d.animalTypes a")
+	List<DoctorAttribute> findAnimalTypeIds();
+	@Query("select new pl.baranowski.dev.model.DoctorAttribute(d.id, m.id) from Doctor d join d.medSpecialties m")
+	List<DoctorAttribute> findMedSpecialtyIds();
+	// collections of the doctors of a page of VisitRows, one query each for the whole page
+	@Query("select new pl.baranowski.dev.model.DoctorAttribute(d.id, a.id, a.name) from Doctor d join d.animalTypes a where d.id in :doctorIds")
+	List<DoctorAttribute> findAnimalTypesOf(@Param("doctorIds") Collection<Long> doctorIds);
+	@Query("select new pl.baranowski.dev.model.DoctorAttribute(d.id, m.id, m.name) from Doctor d join d.medSpecialties m where d.id in :doctorIds")
+	List<DoctorAttribute> findMedSpecialtiesOf(@Param("doctorIds") Collection<Long> doctorIds);
 
 }
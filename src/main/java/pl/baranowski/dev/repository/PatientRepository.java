@@ -1,9 +1,27 @@
 package pl.baranowski.dev.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.model.EntityVersion;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
+	// ownerEmails should be lower case
+	@Query("select p from Patient p join fetch p.animalType where lower(p.ownerEmail) in :ownerEmails")
+	List<Patient> findByOwnerEmailsIgnoreCase(@Param("ownerEmails") Collection<String> ownerEmails);
+
+	@Query("select new pl.baranowski.dev.model.EntityVersion(p.id, p.version) from Patient p where p.id = :id")
+	Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+	// keyset page: patients following id, read from the primary key index
+	@Query("select p from Patient p join fetch p.animalType where p.id > :id order by p.id")
+	List<Patient> findPageAfter(@Param("id") long id, Pageable limit);
 }
\ No newline at end of file
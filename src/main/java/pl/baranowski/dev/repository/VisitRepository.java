@@ -1,15 +1,101 @@
 package pl.baranowski.dev.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.model.VisitRow;
+import pl.baranowski.dev.model.VisitTime;
 
 public interface VisitRepository extends JpaRepository<Visit, Long>{
+	// read endpoints select VisitRows straight from the joined tables; no Visit, Doctor or Patient is created
+	String VISIT_ROWS = "select new pl.baranowski.dev.model.VisitRow(v.id, v.epochInSeconds, v.duration, v.isConfirmed, v.holdExpiresAt, "
+			+ "d.id, d.name, d.surname, d.hourlyRate, d.nip, d.active, p.id, p.name, p.age, p.ownerName, p.ownerEmail, a.id, a.name) "
+			+ "from Visit v join v.doctor d join v.patient p left join p.animalType a";
+
+	@Query(value = VISIT_ROWS, countQuery = "select count(v) from Visit v")
+	public Page<VisitRow> findRows(Pageable pageable);
+	@Query(VISIT_ROWS + " where v.id = :id")
+	public Optional<VisitRow> findRowById(@Param("id") Long id);
+	/*
+	 * Keyset pages: visits following (epoch, id) in (epochInSeconds, id) order and starting before to.
+	 * The first condition bounds the scan; the limit comes from the pageable, which takes no count query with a List.
+	 * All visits are read from the (epochInSeconds, id) index, a doctor's from the unique constraint's index
+	 * on (doctor_id, epochInSeconds), a patient's from the (patient_id, epochInSeconds) index.
+	 */
+	@Query(VISIT_ROWS + " where v.epochInSeconds >= :epoch and (v.epochInSeconds > :epoch or v.id > :id) and v.epochInSeconds < :to "
+			+ "order by v.epochInSeconds, v.id")
+	public List<VisitRow> findPageBetween(@Param("epoch") long epoch, @Param("id") long id, @Param("to") long to, Pageable limit);
+	@Query(VISIT_ROWS + " where v.doctor.id = :doctorId "
+			+ "and v.epochInSeconds >= :epoch and (v.epochInSeconds > :epoch or v.id > :id) and v.epochInSeconds < :to "
+			+ "order by v.epochInSeconds, v.id")
+	public List<VisitRow> findPageOfDoctorBetween(@Param("doctorId") long doctorId, @Param("epoch") long epoch, @Param("id") long id, @Param("to") long to, Pageable limit);
+	@Query(VISIT_ROWS + " where v.patient.id = :patientId "
+			+ "and v.epochInSeconds >= :epoch and (v.epochInSeconds > :epoch or v.id > :id) and v.epochInSeconds < :to "
+			+ "order by v.epochInSeconds, v.id")
+	public List<VisitRow> findPageOfPatientBetween(@Param("patientId") long patientId, @Param("epoch") long epoch, @Param("id") long id, @Param("to") long to, Pageable limit);
+	@Query(VISIT_ROWS + " where v.doctor.id = :doctorId and v.patient.id = :patientId "
+			+ "and v.epochInSeconds >= :epoch and (v.epochInSeconds > :epoch or v.id > :id) and v.epochInSeconds < :to "
+			+ "order by v.epochInSeconds, v.id")
+	public List<VisitRow> findPageOfDoctorAndPatientBetween(@Param("doctorId") long doctorId, @Param("patientId") long patientId,
+			@Param("epoch") long epoch, @Param("id") long id, @Param("to") long to, Pageable limit);
+	// confirmation and expiry of a hold lock the visit, so a hold is never both confirmed and released
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	public Optional<Visit> findForUpdateById(Long id);
+	@Query("select v.id from Visit v where v.holdExpiresAt is not null")
+	public List<Long> findHeldIds();
 
 	public List<Visit> findByDoctorId(long doctorId);
 	public List<Visit> findByEpochInSecondsAndDoctorId(long epochInSeconds, long doctorId);
 	public List<Visit> findByEpochInSecondsAndPatientId(long epochInSeconds, long patientId);
 
+	/*
+	 * Visits overlapping [start, end). Apart from the overlap itself, every query bounds epochInSeconds from both sides,
+	 * so it is a range scan of the (doctor_id, epochInSeconds) or (patient_id, epochInSeconds) index, however long the history is.
+	 * The cast keeps start - MAX_DURATION a bigint; the literal alone would make H2 bind start as an int.
+	 */
+	// existence checks read one id with limit 1, so the scan stops at the first overlapping visit
+	@Query("select v.id from Visit v "
+			+ "where v.doctor.id = :doctorId and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<Long> findIdsOverlappingOfDoctor(@Param("doctorId") long doctorId, @Param("start") long start, @Param("end") long end, Pageable limit);
+
+	public default boolean existsOverlappingOfDoctor(long doctorId, long start, long end) {
+		return !findIdsOverlappingOfDoctor(doctorId, start, end, PageRequest.of(0, 1)).isEmpty();
+	}
+
+	@Query("select v.id from Visit v "
+			+ "where v.patient.id = :patientId and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<Long> findIdsOverlappingOfPatient(@Param("patientId") long patientId, @Param("start") long start, @Param("end") long end, Pageable limit);
+
+	public default boolean existsOverlappingOfPatient(long patientId, long start, long end) {
+		return !findIdsOverlappingOfPatient(patientId, start, end, PageRequest.of(0, 1)).isEmpty();
+	}
+
+	@Query("select new pl.baranowski.dev.model.VisitTime(v.doctor.id, v.patient.id, v.epochInSeconds, v.duration) from Visit v "
+			+ "where v.doctor.id in :doctorIds and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<VisitTime> findTimesOfDoctorsBetween(@Param("doctorIds") Collection<Long> doctorIds, @Param("start") long start, @Param("end") long end);
+
+	@Query("select new pl.baranowski.dev.model.VisitTime(v.doctor.id, v.patient.id, v.epochInSeconds, v.duration) from Visit v "
+			+ "where v.doctor.id = :doctorId and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<VisitTime> findTimesOfDoctorBetween(@Param("doctorId") long doctorId, @Param("start") long start, @Param("end") long end);
+
+	@Query("select new pl.baranowski.dev.model.VisitTime(v.doctor.id, v.patient.id, v.epochInSeconds, v.duration) from Visit v "
+			+ "where v.patient.id = :patientId and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<VisitTime> findTimesOfPatientBetween(@Param("patientId") long patientId, @Param("start") long start, @Param("end") long end);
+
+	@Query("select new pl.baranowski.dev.model.VisitTime(v.doctor.id, v.patient.id, v.epochInSeconds, v.duration) from Visit v "
+			+ "where v.patient.id in :patientIds and v.epochInSeconds < :end and v.epochInSeconds > cast(:start as long) - " + Visit.MAX_DURATION + " and v.epochInSeconds + v.duration > :start")
+	public List<VisitTime> findTimesOfPatientsBetween(@Param("patientIds") Collection<Long> patientIds, @Param("start") long start, @Param("end") long end);
+
 }
@@ -4,11 +4,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
 import pl.baranowski.dev.dto.AnimalTypeDTO;
 import pl.baranowski.dev.entity.AnimalType;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.animalType.AnimalTypeAlreadyExistsException;
 import pl.baranowski.dev.mapper.AnimalTypeMapper;
+import pl.baranowski.dev.model.ETags;
 import pl.baranowski.dev.repository.AnimalTypeRepository;
 
 import java.util.List;
@@ -20,10 +22,12 @@ public class AnimalTypeService {
 
     private final AnimalTypeRepository animalTypeRepo;
     private final AnimalTypeMapper mapper;
+    private final ReferenceDataCaches referenceDataCaches;
 
-    public AnimalTypeService(AnimalTypeRepository animalTypeRepo, AnimalTypeMapper mapper) {
+    public AnimalTypeService(AnimalTypeRepository animalTypeRepo, AnimalTypeMapper mapper, ReferenceDataCaches referenceDataCaches) {
         this.animalTypeRepo = animalTypeRepo;
         this.mapper = mapper;
+        this.referenceDataCaches = referenceDataCaches;
     }
 
     public AnimalTypeDTO findById(Long id) throws NotFoundException {
@@ -44,7 +48,7 @@ public class AnimalTypeService {
     public AnimalTypeDTO findByName(String name) throws NotFoundException {
         LOGGER.debug("findByName(name='{}')", name);
 
-        AnimalType result = animalTypeRepo.findOneByName(name).orElseThrow(() -> {
+        AnimalType result = referenceDataCaches.animalTypes().get(name).orElseThrow(() -> {
             NotFoundException e = new NotFoundException("Animal type with name=" + name + " has not been found.");
             LOGGER.error(e.getMessage(), e);
             return e;
@@ -56,6 +60,14 @@ public class AnimalTypeService {
         return mapper.toDto(result);
     }
 
+    /*
+     * ETag of findAll(), from versions of all animal types.
+     */
+    public String getAllETag() {
+        LOGGER.debug("getAllETag()");
+        return ETags.digest("animalTypes", animalTypeRepo.findVersions());
+    }
+
     public List<AnimalTypeDTO> findAll() {
         LOGGER.debug("findAll()");
         List<AnimalTypeDTO> result = animalTypeRepo.findAll()
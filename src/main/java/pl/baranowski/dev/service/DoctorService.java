@@ -4,9 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.DoctorDTO;
+import pl.baranowski.dev.dto.NameCriteriaDTO;
 import pl.baranowski.dev.entity.AnimalType;
 import pl.baranowski.dev.entity.Doctor;
 import pl.baranowski.dev.entity.MedSpecialty;
@@ -14,12 +20,20 @@ import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.doctor.DoctorAlreadyExistsException;
 import pl.baranowski.dev.exception.doctor.DoctorDoubledSpecialtyException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
+import pl.baranowski.dev.index.DoctorAttributeIndex;
 import pl.baranowski.dev.mapper.DoctorMapper;
+import pl.baranowski.dev.model.AttributeCriteria;
+import pl.baranowski.dev.model.ETags;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.repository.AnimalTypeRepository;
 import pl.baranowski.dev.repository.DoctorRepository;
 import pl.baranowski.dev.repository.MedSpecialtyRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -30,22 +44,32 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final AnimalTypeRepository animalTypeRepository;
     private final MedSpecialtyRepository medSpecialtyRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+    private final SlotSearchCache slotSearchCache;
+    private final DoctorAttributeIndex doctorAttributeIndex;
     private final DoctorMapper doctorMapper;
 
     public DoctorService(DoctorRepository doctorRepository,
                          AnimalTypeRepository animalTypeRepository,
                          MedSpecialtyRepository medSpecialtyRepository,
+                         ReferenceDataCaches referenceDataCaches,
+                         SlotSearchCache slotSearchCache,
+                         DoctorAttributeIndex doctorAttributeIndex,
                          DoctorMapper doctorMapper) {
         this.doctorRepository = doctorRepository;
         this.animalTypeRepository = animalTypeRepository;
         this.medSpecialtyRepository = medSpecialtyRepository;
+        this.referenceDataCaches = referenceDataCaches;
+        this.slotSearchCache = slotSearchCache;
+        this.doctorAttributeIndex = doctorAttributeIndex;
         this.doctorMapper = doctorMapper;
     }
 
+    @Transactional(readOnly = true)
     public DoctorDTO getDTO(long doctorId) throws NotFoundException {
         LOGGER.debug("get(doctorId='{}')", doctorId);
 
-        Doctor doctor = getEntity(doctorId);
+        Doctor doctor = findWithSpecialtiesOrThrow(doctorId);
         LOGGER.debug("Found: {}", doctor);
 
         DoctorDTO result = doctorMapper.toDto(doctor);
@@ -53,37 +77,121 @@ public class DoctorService {
         return result;
     }
 
+    /*
+     * ETag of getDTO(doctorId), from the doctor's version. The doctor comes from the second-level cache, when it is there.
+     */
+    public String getETag(long doctorId) throws NotFoundException {
+        LOGGER.debug("getETag(doctorId='{}')", doctorId);
+        Doctor doctor = doctorRepository.findById(doctorId).orElseThrow(() -> doctorNotFound(doctorId));
+        return ETags.of("doctor", doctorId, doctor.getVersion());
+    }
+
+    /*
+     * Returns Doctor with all collections but visits loaded, so it can be used after the transaction ends.
+     */
     public Doctor getEntity(long doctorId) throws NotFoundException {
         LOGGER.debug("getEntity(doctorId='{}')", doctorId);
-        Doctor doctor = doctorRepository.findById(doctorId)
-                                        .orElseThrow(() -> {
-                                            NotFoundException e = new NotFoundException("Doctor with id=" + doctorId + " has not been found.");
-                                            LOGGER.error(e.getMessage(), e);
-                                            return e;
-                                        });
+        Doctor doctor = doctorRepository.findWithDetailsById(doctorId)
+                                        .orElseThrow(() -> doctorNotFound(doctorId));
         LOGGER.debug("Returning found doctor: {}", doctor);
         return doctor;
     }
 
+    /*
+     * Doctors loaded like in getEntity(...), with one query. Ids not found are missing in the result.
+     */
+    public Map<Long, Doctor> getEntities(Collection<Long> doctorIds) {
+        LOGGER.debug("getEntities(doctorIds='{}')", doctorIds);
+        Map<Long, Doctor> result = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findWithDetailsByIdIn(doctorIds)) {
+            result.put(doctor.getId(), doctor);
+        }
+        LOGGER.debug("Returning {} found doctors.", result.size());
+        return result;
+    }
+
+    private Doctor findWithSpecialtiesOrThrow(long doctorId) throws NotFoundException {
+        return doctorRepository.findWithSpecialtiesById(doctorId).orElseThrow(() -> doctorNotFound(doctorId));
+    }
+
+    private NotFoundException doctorNotFound(long doctorId) {
+        NotFoundException e = new NotFoundException("Doctor with id=" + doctorId + " has not been found.");
+        LOGGER.error(e.getMessage(), e);
+        return e;
+    }
+
+    /*
+     * Active doctors treating the animal type and having the medical specialty, with their working days.
+     */
     protected List<Doctor> findByAnimalTypeNameAndMedSpecialtyName(String animalTypeName,
                                                                    String medSpecialtyName) throws NotFoundException {
         LOGGER.debug("findByAnimalTypeNameAndMedSpecialtyName(animalTypeName='{}', medSpecialtyName='{}')",
                      animalTypeName,
                      medSpecialtyName);
 
+        List<Long> doctorIds = findIdsByAnimalTypeNameAndMedSpecialtyName(animalTypeName, medSpecialtyName);
+        List<Doctor> result = findWithSchedule(doctorIds);
+        LOGGER.debug("Returning Doctor list with size: {}", result.size());
+        return result;
+    }
+
+    /*
+     * Active doctors meeting criteria of both animal types and medical specialties, with their working days.
+     */
+    protected List<Doctor> findByCriteria(NameCriteriaDTO animalTypes,
+                                          NameCriteriaDTO medSpecialties) throws NotFoundException {
+        LOGGER.debug("findByCriteria(animalTypes='{}', medSpecialties='{}')", animalTypes, medSpecialties);
+
+        AttributeCriteria animalTypeCriteria = new AttributeCriteria(animalTypeIdsOf(animalTypes.getAnyOf()),
+                                                                     animalTypeIdsOf(animalTypes.getAllOf()));
+        AttributeCriteria medSpecialtyCriteria = new AttributeCriteria(medSpecialtyIdsOf(medSpecialties.getAnyOf()),
+                                                                       medSpecialtyIdsOf(medSpecialties.getAllOf()));
+        List<Long> doctorIds = doctorAttributeIndex.findActive(animalTypeCriteria, medSpecialtyCriteria);
+        LOGGER.debug("Found {} matching doctor ids.", doctorIds.size());
+
+        List<Doctor> result = findWithSchedule(doctorIds);
+        LOGGER.debug("Returning Doctor list with size: {}", result.size());
+        return result;
+    }
+
+    private List<Doctor> findWithSchedule(List<Long> doctorIds) {
+        return doctorIds.isEmpty() ? new ArrayList<>() : doctorRepository.findWithScheduleByIdIn(doctorIds);
+    }
+
+    private List<Long> animalTypeIdsOf(List<String> names) throws NotFoundException {
+        List<Long> result = new ArrayList<>();
+        for (String name : names == null ? List.<String>of() : names) {
+            result.add(findAnimalType(name).getId());
+        }
+        return result;
+    }
+
+    private List<Long> medSpecialtyIdsOf(List<String> names) throws NotFoundException {
+        List<Long> result = new ArrayList<>();
+        for (String name : names == null ? List.<String>of() : names) {
+            result.add(findMedSpecialty(name).getId());
+        }
+        return result;
+    }
+
+    /*
+     * Ids of doctors findByAnimalTypeNameAndMedSpecialtyName(...) returns, found without the database.
+     */
+    protected List<Long> findIdsByAnimalTypeNameAndMedSpecialtyName(String animalTypeName,
+                                                                    String medSpecialtyName) throws NotFoundException {
         AnimalType animalType = findAnimalType(animalTypeName);
         LOGGER.debug("AnimalType received: {}", animalType);
 
         MedSpecialty medSpecialty = findMedSpecialty(medSpecialtyName);
         LOGGER.debug("MedSpecialty received: {}", medSpecialty);
 
-        List<Doctor> result = doctorRepository.findByAnimalTypesAndMedSpecialties(animalType, medSpecialty);
-        LOGGER.debug("Returning Doctor list with size: {}", result.size());
+        List<Long> result = doctorAttributeIndex.findActive(animalType.getId(), medSpecialty.getId());
+        LOGGER.debug("Found {} matching doctor ids.", result.size());
         return result;
     }
 
     private AnimalType findAnimalType(String animalTypeName) throws NotFoundException {
-        Optional<AnimalType> result = animalTypeRepository.findOneByName(animalTypeName);
+        Optional<AnimalType> result = referenceDataCaches.animalTypes().get(animalTypeName);
         return result.orElseThrow(() -> {
             NotFoundException e = new NotFoundException("Animal type with name '" + animalTypeName + "'has not been found.");
             LOGGER.error(e.getMessage(), e);
@@ -92,7 +200,7 @@ public class DoctorService {
     }
 
     private MedSpecialty findMedSpecialty(String medSpecialtyName) throws NotFoundException {
-        Optional<MedSpecialty> result = medSpecialtyRepository.findOneByName(medSpecialtyName);
+        Optional<MedSpecialty> result = referenceDataCaches.medSpecialties().get(medSpecialtyName);
         return result.orElseThrow(() -> {
             NotFoundException e = new NotFoundException("Med specialty with name '" + medSpecialtyName + "' has not been found.");
             LOGGER.error(e.getMessage(), e);
@@ -100,6 +208,7 @@ public class DoctorService {
         });
     }
 
+    @Transactional(readOnly = true)
     public Page<DoctorDTO> findAll(Pageable pageable) {
         LOGGER.debug("findAll(pageable='{}')", pageable);
         Page<Doctor> doctors = doctorRepository.findAll(pageable);
@@ -115,6 +224,35 @@ public class DoctorService {
         return doctorsDTO;
     }
 
+    /*
+     * Keyset page of all doctors in id order, following the cursor.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<DoctorDTO> findAfter(KeysetCursor after, int size) {
+        LOGGER.debug("findAfter(after='{}', size='{}')", after, size);
+        List<Doctor> doctors = doctorRepository.findPageAfter(after.key(0), PageRequest.of(0, size + 1));
+        LOGGER.debug("Found '{}' doctors.", doctors.size());
+
+        CursorPageDTO<DoctorDTO> result = CursorPageDTO.of(doctors, size, doctorMapper::toDto,
+                                                           doctor -> KeysetCursor.of(doctor.getId()).encode());
+        LOGGER.debug("Returning page of {} DoctorDTOs, next='{}'.", result.getContent().size(), result.getNext());
+        return result;
+    }
+
+    /*
+     * ETag of findAll(pageable), from versions of the doctors on the page and the count of all doctors,
+     * as the page also carries totals, which change when a doctor is added or removed on another page.
+     */
+    public String getPageETag(Pageable pageable) {
+        LOGGER.debug("getPageETag(pageable='{}')", pageable);
+        List<Object> parts = new ArrayList<>();
+        parts.add(pageable.getPageNumber());
+        parts.add(pageable.getPageSize());
+        parts.add(doctorRepository.count());
+        parts.addAll(doctorRepository.findVersions(pageable));
+        return ETags.digest("doctors", parts);
+    }
+
     public DoctorDTO addNew(DoctorDTO doctorDTO) throws DoctorAlreadyExistsException {
         LOGGER.debug("addNew(doctorDTO): {}", doctorDTO);
         if (!doctorRepository.findByNip(doctorDTO.getNip()).isEmpty()) {
@@ -136,7 +274,7 @@ public class DoctorService {
     public DoctorDTO fire(Long id) throws DoctorNotActiveException, NotFoundException {
         LOGGER.debug("fire(id='{}')", id);
 
-        Optional<Doctor> doctorOpt = doctorRepository.findById(id);
+        Optional<Doctor> doctorOpt = doctorRepository.findWithSpecialtiesById(id);
         LOGGER.debug("Received Optional of Doctor: {}", doctorOpt);
 
         if (doctorOpt.isPresent()) {
@@ -165,7 +303,7 @@ public class DoctorService {
                                    Long animalTypeId) throws NotFoundException, DoctorNotActiveException, DoctorDoubledSpecialtyException {
         LOGGER.debug("addAnimalType(doctorId='{}', animalTypeId='{}')", doctorId, animalTypeId);
 
-        Doctor doctor = getEntity(doctorId);
+        Doctor doctor = findWithSpecialtiesOrThrow(doctorId);
         LOGGER.debug("Found Doctor: {}", doctor);
 
         if (!doctor.getActive()) {
@@ -192,7 +330,12 @@ public class DoctorService {
         doctor.addAnimalType(animalType);
         LOGGER.debug("Animal Type has been added to Doctor. Doctor after changes: {}", doctor);
 
-        DoctorDTO resultDTO = doctorMapper.toDto(doctorRepository.saveAndFlush(doctor));
+        Doctor saved = doctorRepository.saveAndFlush(doctor);
+        // a new specialty alone does not trigger DoctorAttributeIndexListener nor SlotSearchCacheListener
+        doctorAttributeIndex.put(saved);
+        slotSearchCache.doctorChanged(saved);
+
+        DoctorDTO resultDTO = doctorMapper.toDto(saved);
         LOGGER.debug("Returning Doctor DTO: {}", resultDTO);
         return resultDTO;
     }
@@ -201,7 +344,7 @@ public class DoctorService {
                                      Long msId) throws NotFoundException, DoctorNotActiveException, DoctorDoubledSpecialtyException {
         LOGGER.debug("addMedSpecialty(doctorId='{}', msId='{}')", doctorId, msId);
 
-        Doctor doctor = getEntity(doctorId);
+        Doctor doctor = findWithSpecialtiesOrThrow(doctorId);
         LOGGER.debug("Found Doctor: {}", doctor);
         if (!doctor.getActive()) {
             DoctorNotActiveException e = new DoctorNotActiveException(doctor.getId());
@@ -225,7 +368,12 @@ public class DoctorService {
 
         doctor.addMedSpecialty(medSpecialty);
 
-        DoctorDTO resultDTO = doctorMapper.toDto(doctorRepository.saveAndFlush(doctor));
+        Doctor saved = doctorRepository.saveAndFlush(doctor);
+        // a new specialty alone does not trigger DoctorAttributeIndexListener nor SlotSearchCacheListener
+        doctorAttributeIndex.put(saved);
+        slotSearchCache.doctorChanged(saved);
+
+        DoctorDTO resultDTO = doctorMapper.toDto(saved);
         LOGGER.debug("MedSpecialty has been added to Doctor. Returning result: {}", resultDTO);
         return resultDTO;
     }
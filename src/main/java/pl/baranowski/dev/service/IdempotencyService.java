@@ -0,0 +1,73 @@
+package pl.baranowski.dev.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import pl.baranowski.dev.cache.IdempotencyRecord;
+import pl.baranowski.dev.cache.IdempotencyStore;
+import pl.baranowski.dev.exception.ApiException;
+import pl.baranowski.dev.exception.idempotency.IdempotencyKeyInProgressException;
+import pl.baranowski.dev.exception.idempotency.IdempotencyKeyReusedException;
+
+import java.util.Optional;
+
+/*
+ * Runs a request once per idempotency key. Retries with the same key and the same request get the first response again,
+ * with a lookup in IdempotencyStore instead of running the request.
+ * Client errors are replayed as well, e.g. a busy doctor; server errors and unavailability are not kept,
+ * so such requests can be retried with the same key.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+    private final IdempotencyStore store;
+
+    public IdempotencyService(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    /*
+     * fingerprint identifies the request, to tell a retry from a different request sent with the same key
+     */
+    public <T> T execute(String key, String fingerprint, Request<T> request) throws ApiException {
+        Optional<IdempotencyRecord> existing = store.reserve(key, fingerprint);
+        if (existing.isPresent()) {
+            LOGGER.debug("Replaying response for idempotency key '{}': {}", key, existing.get());
+            return replay(key, fingerprint, existing.get());
+        }
+        try {
+            T result = request.run();
+            store.complete(key, IdempotencyRecord.succeeded(fingerprint, result));
+            return result;
+        } catch (ApiException e) {
+            if (e.getHttpStatus().is4xxClientError()) {
+                store.complete(key, IdempotencyRecord.failed(fingerprint, e));
+            } else {
+                store.release(key);
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // whatever else went wrong, the key must not stay in progress until its TTL
+            store.release(key);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T replay(String key, String fingerprint, IdempotencyRecord record) throws ApiException {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        if (record.isInProgress()) {
+            throw new IdempotencyKeyInProgressException(key);
+        }
+        if (record.isFailed()) {
+            throw new ApiException(record.getErrorStatus(), record.getErrorMessage());
+        }
+        return (T) record.getResult();
+    }
+
+    public interface Request<T> {
+        T run() throws ApiException;
+    }
+}
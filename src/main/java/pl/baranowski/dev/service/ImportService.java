@@ -0,0 +1,295 @@
+package pl.baranowski.dev.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.dto.ImportReportDTO;
+import pl.baranowski.dev.dto.ImportedDoctorDTO;
+import pl.baranowski.dev.dto.NewPatientDTO;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.exception.doctor.DoctorAlreadyExistsException;
+import pl.baranowski.dev.exception.patient.PatientAlreadyExistsException;
+import pl.baranowski.dev.model.ImportFormat;
+import pl.baranowski.dev.model.ImportReport;
+import pl.baranowski.dev.model.ImportRowReader;
+import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.repository.DoctorRepository;
+import pl.baranowski.dev.repository.MedSpecialtyRepository;
+import pl.baranowski.dev.repository.PatientRepository;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Bulk import of doctors and patients, with the same rules as DoctorService.addNew(...) and PatientService.addNew(...).
+ * Input is read row by row and saved in chunks of CHUNK_SIZE rows, each chunk in its own transaction,
+ * so memory use does not grow with the input. Animal types and medical specialties are loaded once per import.
+ * Duplicates are looked up with one query per chunk; rows of earlier chunks are already in the database by then.
+ * Rows which are invalid or duplicated are rejected and the import goes on.
+ * A chunk refused by the database (e.g. a value too long for its column) is rolled back and saved again row by row,
+ * so only the offending rows are rejected. Imports are not atomic: chunks saved before a failure stay in the database.
+ */
+@Service
+public class ImportService {
+    public static final int CHUNK_SIZE = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportService.class);
+    private static final Set<String> DOCTOR_LIST_COLUMNS = Set.of("animalTypes", "medSpecialties");
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final AnimalTypeRepository animalTypeRepository;
+    private final MedSpecialtyRepository medSpecialtyRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public ImportService(DoctorRepository doctorRepository,
+                         PatientRepository patientRepository,
+                         AnimalTypeRepository animalTypeRepository,
+                         MedSpecialtyRepository medSpecialtyRepository,
+                         EntityManager entityManager,
+                         TransactionTemplate transactionTemplate,
+                         ObjectMapper objectMapper,
+                         Validator validator) {
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.animalTypeRepository = animalTypeRepository;
+        this.medSpecialtyRepository = medSpecialtyRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public ImportReportDTO importDoctors(InputStream in, ImportFormat format) throws IOException {
+        LOGGER.info("importDoctors(format={})", format);
+        Map<String, AnimalType> animalTypes = byName(animalTypeRepository.findAll(), AnimalType::getName);
+        Map<String, MedSpecialty> medSpecialties = byName(medSpecialtyRepository.findAll(), MedSpecialty::getName);
+
+        ImportReportDTO result = importRows(in, format, DOCTOR_LIST_COLUMNS, ImportedDoctorDTO.class,
+                                            (rows, report) -> saveDoctors(rows, animalTypes, medSpecialties, report));
+        LOGGER.info("Doctors imported: {}", result);
+        return result;
+    }
+
+    public ImportReportDTO importPatients(InputStream in, ImportFormat format) throws IOException {
+        LOGGER.info("importPatients(format={})", format);
+        Map<String, AnimalType> animalTypes = byName(animalTypeRepository.findAll(), AnimalType::getName);
+
+        ImportReportDTO result = importRows(in, format, Set.of(), NewPatientDTO.class,
+                                            (rows, report) -> savePatients(rows, animalTypes, report));
+        LOGGER.info("Patients imported: {}", result);
+        return result;
+    }
+
+    private <T> ImportReportDTO importRows(InputStream in,
+                                           ImportFormat format,
+                                           Set<String> listColumns,
+                                           Class<T> rowType,
+                                           ChunkSaver<T> chunkSaver) throws IOException {
+        ImportReport report = new ImportReport();
+        // valid rows of the current chunk by line number
+        Map<Integer, T> chunk = new LinkedHashMap<>();
+        try (ImportRowReader reader = new ImportRowReader(in, format, objectMapper, listColumns)) {
+            ImportRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                report.rowRead();
+                T value = readValid(row, rowType, report);
+                if (value != null) {
+                    chunk.put(row.getLine(), value);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(chunk, chunkSaver, report);
+                }
+            }
+        }
+        saveChunk(chunk, chunkSaver, report);
+        return report.toDto();
+    }
+
+    // value of the row, or null when it has been rejected
+    private <T> T readValid(ImportRowReader.Row row, Class<T> rowType, ImportReport report) {
+        if (!row.isReadable()) {
+            report.rejected(row.getLine(), row.getError());
+            return null;
+        }
+        T value;
+        try {
+            value = objectMapper.treeToValue(row.getValue(), rowType);
+        } catch (JsonProcessingException e) {
+            report.rejected(row.getLine(), "Invalid row: " + e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            report.rejected(row.getLine(), violations.stream()
+                                                     .map(ConstraintViolation::getMessage)
+                                                     .sorted()
+                                                     .collect(Collectors.joining(" ")));
+            return null;
+        }
+        return value;
+    }
+
+    private <T> void saveChunk(Map<Integer, T> chunk, ChunkSaver<T> chunkSaver, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            saveInTransaction(chunk, chunkSaver, report);
+            LOGGER.debug("Saved chunk of {} valid rows.", chunk.size());
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.warn("Chunk of {} rows has been refused by the database, saving rows one by one.", chunk.size(), e);
+            for (Map.Entry<Integer, T> row : chunk.entrySet()) {
+                try {
+                    saveInTransaction(Collections.singletonMap(row.getKey(), row.getValue()), chunkSaver, report);
+                } catch (DataIntegrityViolationException rowException) {
+                    LOGGER.debug("Row {} has been refused by the database.", row.getKey(), rowException);
+                    report.rejected(row.getKey(), "Row has been refused by the database.");
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    // rows are counted in the report only when their transaction commits
+    private <T> void saveInTransaction(Map<Integer, T> rows, ChunkSaver<T> chunkSaver, ImportReport report) {
+        ImportReport rowsReport = new ImportReport();
+        transactionTemplate.executeWithoutResult(status -> {
+            chunkSaver.save(rows, rowsReport);
+            // saved entities are not needed anymore, and Hibernate would keep them all until the end of the import
+            entityManager.clear();
+        });
+        report.add(rowsReport);
+    }
+
+    private void saveDoctors(Map<Integer, ImportedDoctorDTO> rows,
+                             Map<String, AnimalType> animalTypes,
+                             Map<String, MedSpecialty> medSpecialties,
+                             ImportReport report) {
+        Set<String> nips = rows.values().stream().map(ImportedDoctorDTO::getNip).collect(Collectors.toSet());
+        Set<String> takenNips = new HashSet<>(doctorRepository.findNipsIn(nips));
+
+        List<Doctor> doctors = new ArrayList<>();
+        for (Map.Entry<Integer, ImportedDoctorDTO> row : rows.entrySet()) {
+            ImportedDoctorDTO dto = row.getValue();
+            if (takenNips.contains(dto.getNip())) {
+                report.rejected(row.getKey(), new DoctorAlreadyExistsException(dto.getNip()).getMessage());
+                continue;
+            }
+            try {
+                doctors.add(new DoctorBuilder().name(dto.getName())
+                                               .surname(dto.getSurname())
+                                               .hourlyRate(new BigDecimal(dto.getHourlyRate()))
+                                               .nip(dto.getNip())
+                                               .animalTypes(resolve(dto.getAnimalTypes(), animalTypes, "Animal type"))
+                                               .medSpecialties(resolve(dto.getMedSpecialties(), medSpecialties, "Medical specialty"))
+                                               .build());
+                takenNips.add(dto.getNip());
+            } catch (IllegalArgumentException e) {
+                report.rejected(row.getKey(), e.getMessage());
+            }
+        }
+        // flushed through the repository, so a refused insert is translated to DataIntegrityViolationException
+        doctorRepository.saveAllAndFlush(doctors);
+        report.imported(doctors.size());
+    }
+
+    private void savePatients(Map<Integer, NewPatientDTO> rows,
+                              Map<String, AnimalType> animalTypes,
+                              ImportReport report) {
+        Set<String> ownerEmails = rows.values().stream().map(dto -> lowerCase(dto.getOwnerEmail())).collect(Collectors.toSet());
+        // same as the Example used by PatientService.addNew(...): all fields, ignoring case
+        Set<String> takenKeys = patientRepository.findByOwnerEmailsIgnoreCase(ownerEmails)
+                                                 .stream()
+                                                 .map(ImportService::keyOf)
+                                                 .collect(Collectors.toCollection(HashSet::new));
+
+        List<Patient> patients = new ArrayList<>();
+        for (Map.Entry<Integer, NewPatientDTO> row : rows.entrySet()) {
+            NewPatientDTO dto = row.getValue();
+            try {
+                AnimalType animalType = resolve(dto.getAnimalTypeName(), animalTypes, "Animal type");
+                Patient patient = new Patient(dto.getName(), animalType, Integer.valueOf(dto.getAge()), dto.getOwnerName(), dto.getOwnerEmail());
+                if (!takenKeys.add(keyOf(patient))) {
+                    report.rejected(row.getKey(), new PatientAlreadyExistsException(dto).getMessage());
+                    continue;
+                }
+                patients.add(patient);
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included, as age is optional in NewPatientDTO
+                report.rejected(row.getKey(), e instanceof NumberFormatException ? "Age should be a number within range: 0-99." : e.getMessage());
+            }
+        }
+        patientRepository.saveAllAndFlush(patients);
+        report.imported(patients.size());
+    }
+
+    private static String keyOf(Patient patient) {
+        return String.join("\n",
+                           lowerCase(patient.getName()),
+                           String.valueOf(patient.getAnimalType().getId()),
+                           String.valueOf(patient.getAge()),
+                           lowerCase(patient.getOwnerName()),
+                           lowerCase(patient.getOwnerEmail()));
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> Map<String, T> byName(List<T> entities, Function<T, String> name) {
+        Map<String, T> result = new HashMap<>();
+        for (T entity : entities) {
+            result.put(name.apply(entity), entity);
+        }
+        return result;
+    }
+
+    private static <T> Set<T> resolve(List<String> names, Map<String, T> byName, String kind) {
+        Set<T> result = new HashSet<>();
+        if (names == null) {
+            return result;
+        }
+        for (String name : names) {
+            result.add(resolve(name, byName, kind));
+        }
+        return result;
+    }
+
+    private static <T> T resolve(String name, Map<String, T> byName, String kind) {
+        T result = byName.get(name);
+        if (result == null) {
+            throw new IllegalArgumentException(kind + " with name '" + name + "' has not been found.");
+        }
+        return result;
+    }
+
+    private interface ChunkSaver<T> {
+        void save(Map<Integer, T> rows, ImportReport report);
+    }
+}
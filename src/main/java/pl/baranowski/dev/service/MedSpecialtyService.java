@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
 import pl.baranowski.dev.dto.MedSpecialtyDTO;
 import pl.baranowski.dev.entity.MedSpecialty;
 import pl.baranowski.dev.exception.NotFoundException;
@@ -19,11 +20,14 @@ public class MedSpecialtyService {
     private static final Logger LOGGER = LoggerFactory.getLogger(MedSpecialtyService.class);
     private final MedSpecialtyRepository medSpecialtyRepository;
     private final MedSpecialtyMapper mapper;
+    private final ReferenceDataCaches referenceDataCaches;
 
     public MedSpecialtyService(MedSpecialtyRepository medSpecialtyRepository,
-                               MedSpecialtyMapper mapper) {
+                               MedSpecialtyMapper mapper,
+                               ReferenceDataCaches referenceDataCaches) {
         this.medSpecialtyRepository = medSpecialtyRepository;
         this.mapper = mapper;
+        this.referenceDataCaches = referenceDataCaches;
     }
 
     public MedSpecialtyDTO getById(Long id) throws NotFoundException {
@@ -43,7 +47,7 @@ public class MedSpecialtyService {
 
     public MedSpecialtyDTO findByName(String specialtyName) throws NotFoundException {
         LOGGER.debug("findByName(name='{}')", specialtyName);
-        MedSpecialty result = medSpecialtyRepository.findOneByName(specialtyName).orElseThrow(() -> {
+        MedSpecialty result = referenceDataCaches.medSpecialties().get(specialtyName).orElseThrow(() -> {
             NotFoundException e = new NotFoundException("Medical specialty with name=" + specialtyName + " has not been found.");
             LOGGER.error(e.getMessage(), e);
             return e;
@@ -4,6 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import pl.baranowski.dev.cache.ReferenceDataCaches;
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.NewPatientDTO;
 import pl.baranowski.dev.dto.PatientDTO;
 import pl.baranowski.dev.entity.AnimalType;
@@ -11,9 +13,15 @@ import pl.baranowski.dev.entity.Patient;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.patient.PatientAlreadyExistsException;
 import pl.baranowski.dev.mapper.PatientMapper;
-import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.model.ETags;
+import pl.baranowski.dev.model.EntityVersion;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.repository.PatientRepository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,14 +29,14 @@ public class PatientService {
     public static final Pageable DEFAULT_PAGEABLE = PageRequest.of(0, 10);
     private static final Logger LOGGER = LoggerFactory.getLogger(PatientService.class);
     private final PatientRepository patientRepo;
-    private final AnimalTypeRepository animalTypeRepo;
+    private final ReferenceDataCaches referenceDataCaches;
     private final PatientMapper mapper;
 
     public PatientService(PatientRepository patientRepo,
-                          AnimalTypeRepository animalTypeRepo,
+                          ReferenceDataCaches referenceDataCaches,
                           PatientMapper mapper) {
         this.patientRepo = patientRepo;
-        this.animalTypeRepo = animalTypeRepo;
+        this.referenceDataCaches = referenceDataCaches;
         this.mapper = mapper;
     }
 
@@ -50,6 +58,21 @@ public class PatientService {
         return resultDTO;
     }
 
+    /*
+     * Keyset page of all patients in id order, following the cursor.
+     */
+    public CursorPageDTO<PatientDTO> findAfter(KeysetCursor after, int size) {
+        LOGGER.debug("findAfter(after='{}', size='{}')", after, size);
+
+        List<Patient> result = patientRepo.findPageAfter(after.key(0), PageRequest.of(0, size + 1));
+        LOGGER.debug("Found {} patients.", result.size());
+
+        CursorPageDTO<PatientDTO> resultDTO = CursorPageDTO.of(result, size, mapper::toDto,
+                                                               patient -> KeysetCursor.of(patient.getId()).encode());
+        LOGGER.debug("Returning page of {} DTOs, next='{}'.", resultDTO.getContent().size(), resultDTO.getNext());
+        return resultDTO;
+    }
+
     public PatientDTO getDto(Long patientId) throws NotFoundException {
         LOGGER.debug("getDto(patientId='{}')", patientId);
 
@@ -61,6 +84,19 @@ public class PatientService {
         return resultDTO;
     }
 
+    /*
+     * ETag of getDto(patientId), from the patient's version, read without the patient itself.
+     */
+    public String getETag(Long patientId) throws NotFoundException {
+        LOGGER.debug("getETag(patientId='{}')", patientId);
+        EntityVersion version = patientRepo.findVersionById(patientId).orElseThrow(() -> {
+            NotFoundException e = new NotFoundException("Patient with id " + patientId + " has not been found.");
+            LOGGER.debug(e.getMessage(), e);
+            return e;
+        });
+        return ETags.of("patient", patientId, version.getVersion());
+    }
+
     public Patient getEntity(Long patientId) throws NotFoundException {
         LOGGER.debug("getEntity(patientId='{}')", patientId);
 
@@ -74,6 +110,19 @@ public class PatientService {
         return result;
     }
 
+    /*
+     * Patients with given ids, loaded with one query. Ids not found are missing in the result.
+     */
+    public Map<Long, Patient> getEntities(Collection<Long> patientIds) {
+        LOGGER.debug("getEntities(patientIds='{}')", patientIds);
+        Map<Long, Patient> result = new HashMap<>();
+        for (Patient patient : patientRepo.findAllById(patientIds)) {
+            result.put(patient.getId(), patient);
+        }
+        LOGGER.debug("Returning {} found patients.", result.size());
+        return result;
+    }
+
     public PatientDTO addNew(NewPatientDTO newPatientDTO) throws PatientAlreadyExistsException, NotFoundException {
         LOGGER.info("addNew(newPatientDTO): {}", newPatientDTO);
 
@@ -105,7 +154,7 @@ public class PatientService {
     }
 
     private AnimalType findAnimalType(String animalTypeName) throws NotFoundException {
-        Optional<AnimalType> result = animalTypeRepo.findOneByName(animalTypeName);
+        Optional<AnimalType> result = referenceDataCaches.animalTypes().get(animalTypeName);
         return result.orElseThrow(() -> {
             NotFoundException e = new NotFoundException("Animal type with name '" + animalTypeName + "' has not been found.");
             LOGGER.error(e.getMessage(), e);
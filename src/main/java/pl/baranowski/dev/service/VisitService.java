@@ -1,27 +1,70 @@
 package pl.baranowski.dev.service;
 
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.configuration.BookingShardsProperties;
+import pl.baranowski.dev.configuration.SlotSearchProperties;
+import pl.baranowski.dev.configuration.VisitHoldsProperties;
+import pl.baranowski.dev.dto.BookingResultDTO;
+import pl.baranowski.dev.dto.CursorPageDTO;
+import pl.baranowski.dev.dto.DoctorsFreeRangesDTO;
 import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.dto.ErrorDTO;
+import pl.baranowski.dev.dto.NameCriteriaDTO;
 import pl.baranowski.dev.dto.VisitDTO;
 import pl.baranowski.dev.entity.Doctor;
 import pl.baranowski.dev.entity.Visit;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
 import pl.baranowski.dev.exception.epoch.InvalidEpochTimeException;
+import pl.baranowski.dev.exception.search.SearchRequestInvalidException;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
+import pl.baranowski.dev.exception.visit.HoldExpiredException;
 import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
+import pl.baranowski.dev.index.AvailabilityIndex;
+import pl.baranowski.dev.manager.BookingShards;
 import pl.baranowski.dev.manager.Reception;
+import pl.baranowski.dev.manager.VisitHolds;
 import pl.baranowski.dev.mapper.AvailableSlotsMapper;
 import pl.baranowski.dev.mapper.VisitMapper;
+import pl.baranowski.dev.mapper.VisitRowMapper;
 import pl.baranowski.dev.model.AvailableSlotsFinder;
+import pl.baranowski.dev.model.BookingResult;
+import pl.baranowski.dev.model.DoctorsFreeRanges;
 import pl.baranowski.dev.model.DoctorsFreeSlots;
 import pl.baranowski.dev.model.EpochFutureTimeRange;
+import pl.baranowski.dev.model.HourBitmap;
+import pl.baranowski.dev.model.KeysetCursor;
+import pl.baranowski.dev.model.VisitRequest;
+import pl.baranowski.dev.model.VisitRow;
+import pl.baranowski.dev.repository.DoctorRepository;
 import pl.baranowski.dev.repository.VisitRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,86 +72,450 @@ public class VisitService {
     private static final Logger LOGGER = LoggerFactory.getLogger(VisitService.class);
 
     private final VisitMapper visitMapper;
+    private final VisitRowMapper visitRowMapper;
     private final AvailableSlotsMapper slotsMapper;
     private final VisitRepository visitRepository;
+    private final DoctorRepository doctorRepository;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    private final AvailabilityIndex availabilityIndex;
+    private final SlotSearchProperties slotSearchProperties;
+    private final ForkJoinPool slotSearchPool;
+    private final SlotSearchCache slotSearchCache;
+    private final BookingShards bookingShards;
+    private final BookingShardsProperties bookingShardsProperties;
+    private final VisitHolds visitHolds;
+    private final VisitHoldsProperties visitHoldsProperties;
+    private final TransactionTemplate transactionTemplate;
 
     public VisitService(VisitMapper visitMapper,
+                        VisitRowMapper visitRowMapper,
                         AvailableSlotsMapper slotsMapper,
                         VisitRepository visitRepository,
+                        DoctorRepository doctorRepository,
                         DoctorService doctorService,
-                        PatientService patientService) {
+                        PatientService patientService,
+                        AvailabilityIndex availabilityIndex,
+                        SlotSearchProperties slotSearchProperties,
+                        ForkJoinPool slotSearchPool,
+                        SlotSearchCache slotSearchCache,
+                        BookingShards bookingShards,
+                        BookingShardsProperties bookingShardsProperties,
+                        VisitHolds visitHolds,
+                        VisitHoldsProperties visitHoldsProperties,
+                        TransactionTemplate transactionTemplate) {
         this.visitMapper = visitMapper;
+        this.visitRowMapper = visitRowMapper;
         this.slotsMapper = slotsMapper;
         this.visitRepository = visitRepository;
+        this.doctorRepository = doctorRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
+        this.availabilityIndex = availabilityIndex;
+        this.slotSearchProperties = slotSearchProperties;
+        this.slotSearchPool = slotSearchPool;
+        this.slotSearchCache = slotSearchCache;
+        this.bookingShards = bookingShards;
+        this.bookingShardsProperties = bookingShardsProperties;
+        this.visitHolds = visitHolds;
+        this.visitHoldsProperties = visitHoldsProperties;
+        this.transactionTemplate = transactionTemplate;
+        visitHolds.setExpiryHandler(this::expireHold);
     }
 
+    @Transactional(readOnly = true)
     public VisitDTO getById(long id) throws NotFoundException {
         LOGGER.debug("getById(id='{}')", id);
-        Visit result = findByIdOrThrow(id);
+        VisitRow result = visitRepository.findRowById(id)
+                                         .orElseThrow(() -> visitNotFound(id));
         LOGGER.debug("Result: {}", result);
 
-        VisitDTO resultDTO = visitMapper.toDto(result);
+        VisitDTO resultDTO = rowMapperFor(Collections.singletonList(result)).apply(result);
         LOGGER.debug("Returning DTO: {}", resultDTO);
         return resultDTO;
     }
 
-    private Visit findByIdOrThrow(long id) throws NotFoundException {
-        return visitRepository.findById(id)
-                              .orElseThrow(() -> {
-                                  NotFoundException e = new NotFoundException("Visit with id: " + id + " has not been found");
-                                  LOGGER.debug(e.getMessage(), e);
-                                  return e;
-                              });
+    private static NotFoundException visitNotFound(long id) {
+        NotFoundException e = new NotFoundException("Visit with id: " + id + " has not been found");
+        LOGGER.debug(e.getMessage(), e);
+        return e;
     }
 
+    @Transactional(readOnly = true)
     public Page<VisitDTO> findAll(Pageable pageable) {
         LOGGER.debug("findAll(Pageable): {}", pageable);
-        Page<Visit> result = visitRepository.findAll(pageable);
+        Page<VisitRow> result = visitRepository.findRows(pageable);
         LOGGER.debug("Received Page of {} Visits.", result.getSize());
 
-        Page<VisitDTO> pageOfDTOs = result.map(visitMapper::toDto);
+        Page<VisitDTO> pageOfDTOs = result.map(rowMapperFor(result.getContent()));
         LOGGER.debug("Returning Page of {} DTOs.", pageOfDTOs.getSize());
         return pageOfDTOs;
     }
 
+    /*
+     * Keyset page of all visits in (epochInSeconds, id) order, following the cursor.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VisitDTO> findAfter(KeysetCursor after, int size) {
+        LOGGER.debug("findAfter(after='{}', size='{}')", after, size);
+        List<VisitRow> visits = visitRepository.findPageBetween(after.key(0), after.key(1), Long.MAX_VALUE, PageRequest.of(0, size + 1));
+        LOGGER.debug("Received {} Visits.", visits.size());
+
+        CursorPageDTO<VisitDTO> result = toCursorPage(visits, size);
+        LOGGER.debug("Returning page of {} DTOs, next='{}'.", result.getContent().size(), result.getNext());
+        return result;
+    }
+
+    /*
+     * Keyset page of visits starting within [from, to), of the doctor and of the patient when they are given,
+     * in (epochInSeconds, id) order, following the cursor. Every page is one range scan of an index.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VisitDTO> findBetween(Long doctorId, Long patientId, long from, long to, KeysetCursor after, int size) throws InvalidEpochTimeException {
+        LOGGER.debug("findBetween(doctorId='{}', patientId='{}', from='{}', to='{}', after='{}', size='{}')",
+                     doctorId, patientId, from, to, after, size);
+        if (from >= to) {
+            throw new InvalidEpochTimeException("Searching request not valid: epoch start should be less than epoch end.");
+        }
+        // a cursor from before the range, e.g. the empty one of the first page, starts at from
+        long epoch = Math.max(after.key(0), from);
+        long id = after.key(0) < from ? Long.MIN_VALUE : after.key(1);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<VisitRow> visits;
+        if (doctorId != null && patientId != null) {
+            visits = visitRepository.findPageOfDoctorAndPatientBetween(doctorId, patientId, epoch, id, to, limit);
+        } else if (doctorId != null) {
+            visits = visitRepository.findPageOfDoctorBetween(doctorId, epoch, id, to, limit);
+        } else if (patientId != null) {
+            visits = visitRepository.findPageOfPatientBetween(patientId, epoch, id, to, limit);
+        } else {
+            visits = visitRepository.findPageBetween(epoch, id, to, limit);
+        }
+        LOGGER.debug("Received {} Visits.", visits.size());
+
+        CursorPageDTO<VisitDTO> result = toCursorPage(visits, size);
+        LOGGER.debug("Returning page of {} DTOs, next='{}'.", result.getContent().size(), result.getNext());
+        return result;
+    }
+
+    private CursorPageDTO<VisitDTO> toCursorPage(List<VisitRow> visits, int size) {
+        return CursorPageDTO.of(visits, size, rowMapperFor(visits),
+                                visit -> KeysetCursor.of(visit.getEpochInSeconds(), visit.getId()).encode());
+    }
+
+    /*
+     * Animal types and medical specialties of the rows' doctors are read with one query each, whatever the number of rows.
+     */
+    private Function<VisitRow, VisitDTO> rowMapperFor(List<VisitRow> rows) {
+        if (rows.isEmpty()) {
+            return visitRowMapper.toDto(Collections.emptyList(), Collections.emptyList());
+        }
+        Set<Long> doctorIds = rows.stream().map(VisitRow::getDoctorId).collect(Collectors.toSet());
+        return visitRowMapper.toDto(doctorRepository.findAnimalTypesOf(doctorIds), doctorRepository.findMedSpecialtiesOf(doctorIds));
+    }
+
     public VisitDTO addNew(Long doctorId,
                            Long patientId,
-                           Long epochInSeconds) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException {
+                           Long epochInSeconds) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, BookingQueueFullException {
         LOGGER.info("addNew(doctorId='{}', patientId='{}', epochInSeconds='{}')",
                     doctorId,
                     patientId,
                     epochInSeconds);
-        Reception reception = new Reception(doctorService, patientService);
+        return bookOnShardIfEnabled(doctorId, patientId, epochInSeconds, false);
+    }
+
+    /*
+     * Books the slot as a hold. The slot is busy, as for any other visit, until the visit is confirmed with confirm(...)
+     * or the hold expires after the TTL of holds; VisitHolds then removes the visit.
+     */
+    public VisitDTO hold(Long doctorId,
+                         Long patientId,
+                         Long epochInSeconds) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, BookingQueueFullException {
+        LOGGER.info("hold(doctorId='{}', patientId='{}', epochInSeconds='{}')",
+                    doctorId,
+                    patientId,
+                    epochInSeconds);
+        return bookOnShardIfEnabled(doctorId, patientId, epochInSeconds, true);
+    }
+
+    private VisitDTO bookOnShardIfEnabled(Long doctorId,
+                                          Long patientId,
+                                          Long epochInSeconds,
+                                          boolean hold) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, BookingQueueFullException {
+        if (bookingShardsProperties.isEnabled()) {
+            return await(submit(doctorId, patientId, epochInSeconds, hold));
+        }
+        return book(doctorId, patientId, epochInSeconds, hold);
+    }
+
+    /*
+     * Books the visit on the booking shard of the doctor, see BookingShards, so bookings of one doctor do not race
+     * each other for the doctor's slots. Batches, imports and expiring holds write visits without the shards,
+     * so the booking is validated and saved the same way as on the request thread.
+     */
+    public CompletableFuture<VisitDTO> addNewAsync(Long doctorId, Long patientId, Long epochInSeconds) throws BookingQueueFullException {
+        LOGGER.debug("addNewAsync(doctorId='{}', patientId='{}', epochInSeconds='{}')", doctorId, patientId, epochInSeconds);
+        return submit(doctorId, patientId, epochInSeconds, false);
+    }
+
+    private CompletableFuture<VisitDTO> submit(Long doctorId, Long patientId, Long epochInSeconds, boolean hold) throws BookingQueueFullException {
+        return bookingShards.submit(doctorId, () -> book(doctorId, patientId, epochInSeconds, hold));
+    }
+
+    private VisitDTO book(Long doctorId,
+                          Long patientId,
+                          Long epochInSeconds,
+                          boolean hold) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException {
+        Reception reception = new Reception(doctorService, patientService, visitRepository);
         LOGGER.debug("Created new Reception: {}", reception);
 
         Visit possibleVisit = reception.createNewVisitIfPossible(doctorId, patientId, epochInSeconds);
         LOGGER.debug("New Visit is possible: {}", possibleVisit);
+        if (hold) {
+            long expiresAtMillis = System.currentTimeMillis() + visitHoldsProperties.getTtl().toMillis();
+            possibleVisit = new VisitBuilder().doctor(possibleVisit.getDoctor())
+                                              .patient(possibleVisit.getPatient())
+                                              .epoch(possibleVisit.getEpoch())
+                                              .duration(possibleVisit.getDuration())
+                                              // rounded up, so the hold lasts at least the whole ttl
+                                              .holdExpiresAt(Math.floorDiv(expiresAtMillis + 999, 1000))
+                                              .build();
+        }
 
-        Visit savedVisit = visitRepository.save(possibleVisit);
+        Visit savedVisit = saveIfSlotFree(possibleVisit);
+        if (savedVisit.isHeld()) {
+            visitHolds.hold(savedVisit.getId(), TimeUnit.SECONDS.toMillis(savedVisit.getHoldExpiresAt()));
+        }
         LOGGER.debug("New Visit has been saved to database. Returning result: {}", savedVisit);
         return visitMapper.toDto(savedVisit);
     }
 
+    /*
+     * Confirms the visit, so a hold does not expire anymore. Its timer is left in VisitHolds;
+     * when it comes due, the visit is found confirmed and kept.
+     */
+    @Transactional
+    public VisitDTO confirm(long id) throws NotFoundException, HoldExpiredException {
+        LOGGER.info("confirm(id='{}')", id);
+        Visit visit = visitRepository.findForUpdateById(id).orElseThrow(() -> visitNotFound(id));
+        // VisitHolds may be up to one tick late
+        if (visit.isHeld() && visit.getHoldExpiresAt() <= currentEpochSecond()) {
+            throw new HoldExpiredException(id);
+        }
+        visit.confirm();
+        LOGGER.debug("Visit has been confirmed: {}", visit);
+        return visitMapper.toDto(visit);
+    }
+
+    // called by VisitHolds on its own thread
+    private void expireHold(Long id) {
+        transactionTemplate.executeWithoutResult(status -> visitRepository.findForUpdateById(id)
+                                                                         .filter(Visit::isHeld)
+                                                                         .ifPresent(this::removeIfExpired));
+    }
+
+    private void removeIfExpired(Visit visit) {
+        if (visit.getHoldExpiresAt() > currentEpochSecond()) {
+            visitHolds.hold(visit.getId(), TimeUnit.SECONDS.toMillis(visit.getHoldExpiresAt()));
+            return;
+        }
+        // AvailabilityIndexListener frees the slot in AvailabilityIndex after commit
+        visitRepository.delete(visit);
+        LOGGER.info("Hold of visit {} has expired, the slot is free again.", visit.getId());
+    }
+
+    /*
+     * Timers of holds are kept in memory only; holds stored before a restart are scheduled again, at once,
+     * and those which are not due yet are moved to their time by removeIfExpired(...).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleStoredHolds() {
+        List<Long> heldIds = visitRepository.findHeldIds();
+        long now = System.currentTimeMillis();
+        heldIds.forEach(id -> visitHolds.hold(id, now));
+        LOGGER.debug("Scheduled {} stored holds.", heldIds.size());
+    }
+
+    private static long currentEpochSecond() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    /*
+     * Rethrows what the booking task has thrown. A booking not done within the await timeout is cancelled,
+     * so it is not run if it is still queued, and refused like one of a full queue.
+     */
+    private VisitDTO await(CompletableFuture<VisitDTO> booking) throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, BookingQueueFullException {
+        try {
+            return booking.get(bookingShardsProperties.getAwaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            booking.cancel(false);
+            LOGGER.warn("Booking has not been done within {}, refusing it.", bookingShardsProperties.getAwaitTimeout());
+            throw new BookingQueueFullException(bookingShardsProperties.getRetryAfterSeconds());
+        } catch (InterruptedException e) {
+            booking.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new BookingQueueFullException(bookingShardsProperties.getRetryAfterSeconds());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NewVisitNotPossibleException) {
+                throw (NewVisitNotPossibleException) cause;
+            }
+            if (cause instanceof NotFoundException) {
+                throw (NotFoundException) cause;
+            }
+            if (cause instanceof DoctorNotActiveException) {
+                throw (DoctorNotActiveException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /*
+     * Books visits validated together by Reception. Accepted visits are inserted in one transaction, in JDBC batches.
+     * When some of their slots are taken concurrently, the batch is rolled back and visits are saved one by one instead,
+     * so only the conflicting ones are rejected.
+     */
+    public List<BookingResultDTO> addNewBatch(List<VisitRequest> requests) {
+        LOGGER.info("addNewBatch() with {} requests.", requests.size());
+        Reception reception = new Reception(doctorService, patientService, visitRepository);
+        List<BookingResult> results = reception.createNewVisitsIfPossible(requests);
+
+        List<Visit> accepted = results.stream().filter(BookingResult::isAccepted).map(BookingResult::getVisit).collect(Collectors.toList());
+        LOGGER.debug("{} of {} visits are possible.", accepted.size(), results.size());
+        try {
+            visitRepository.saveAllAndFlush(accepted);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDoctorSlotViolation(e)) {
+                throw e;
+            }
+            LOGGER.debug("Slots have been taken concurrently, saving visits one by one.", e);
+            results = saveOneByOne(results);
+        }
+        LOGGER.debug("Visits have been saved to database.");
+        return results.stream().map(this::toDto).collect(Collectors.toList());
+    }
+
+    private List<BookingResult> saveOneByOne(List<BookingResult> results) {
+        List<BookingResult> savedResults = new ArrayList<>(results.size());
+        for (BookingResult result : results) {
+            if (!result.isAccepted()) {
+                savedResults.add(result);
+                continue;
+            }
+            // ids given by the rolled back batch are not used
+            Visit visit = new VisitBuilder().doctor(result.getVisit().getDoctor())
+                                            .patient(result.getVisit().getPatient())
+                                            .epoch(result.getVisit().getEpoch())
+                                            .duration(result.getVisit().getDuration())
+                                            .build();
+            try {
+                savedResults.add(BookingResult.accepted(result.getRequest(), saveIfSlotFree(visit)));
+            } catch (NewVisitNotPossibleException e) {
+                savedResults.add(BookingResult.rejected(result.getRequest(), e));
+            }
+        }
+        return savedResults;
+    }
+
+    private BookingResultDTO toDto(BookingResult result) {
+        return result.isAccepted()
+                ? new BookingResultDTO(visitMapper.toDto(result.getVisit()), null)
+                : new BookingResultDTO(null, new ErrorDTO(result.getError()));
+    }
+
+    /*
+     * Reception checks run without locks, so two requests for the same slot may both pass them.
+     * The unique constraint on doctor and epoch lets only the first insert through.
+     */
+    private Visit saveIfSlotFree(Visit visit) throws NewVisitNotPossibleException {
+        try {
+            return visitRepository.saveAndFlush(visit);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDoctorSlotViolation(e)) {
+                throw e;
+            }
+            LOGGER.debug("Slot has been taken concurrently: {}", visit, e);
+            throw doctorBusy(visit.getDoctor().getId());
+        }
+    }
+
+    // databases report the constraint name in their own case, some with the table name around it
+    private static boolean isDoctorSlotViolation(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null && constraintName.toLowerCase(Locale.ROOT).contains(Visit.DOCTOR_SLOT_CONSTRAINT);
+    }
+
+    private static NewVisitNotPossibleException doctorBusy(Long doctorId) {
+        return new NewVisitNotPossibleException("Doctor with id " + doctorId + " is busy at provided time.");
+    }
+
+    @Transactional(readOnly = true)
     public List<DoctorsFreeSlotsDTO> findAvailableVisits(String animalTypeName,
                                                          String medSpecialtyName,
                                                          Long epochStart,
                                                          Long epochEnd) throws InvalidEpochTimeException, NotFoundException {
         LOGGER.debug("findAvailableVisits(animalTypeName='{}', medSpecialtyName='{}', epochStart='{}', epochEnd='{}')", animalTypeName, medSpecialtyName, epochStart, epochEnd);
 
+        EpochFutureTimeRange timeRange = new EpochFutureTimeRange(epochStart, epochEnd);
+        SlotSearchCache.Key cacheKey = SlotSearchCache.Key.of(animalTypeName, medSpecialtyName, epochStart, epochEnd);
+        Optional<List<DoctorsFreeSlotsDTO>> cached = slotSearchCache.get(cacheKey);
+        if (cached.isPresent()) {
+            LOGGER.debug("Returning {} DTOs from cache.", cached.get().size());
+            return cached.get();
+        }
+        // taken before doctors and their schedules are read, so changes made while searching keep the result out of the cache
+        long cacheGeneration = slotSearchCache.generation();
         List<Doctor> matchingDoctors = findDoctors(animalTypeName, medSpecialtyName);
         LOGGER.debug("Found {} matching doctors.", matchingDoctors.size());
+        SlotSearchCache.Snapshot snapshot = slotSearchCache.snapshot(cacheGeneration, idsOf(matchingDoctors));
 
-        EpochFutureTimeRange timeRange = new EpochFutureTimeRange(epochStart, epochEnd);
-        LOGGER.debug("Created TimeRange: {}", timeRange);
+        AvailableSlotsFinder slotsFinder = createSlotsFinder(matchingDoctors, timeRange);
+        List<DoctorsFreeSlots> availableSlots = slotSearchProperties.isParallel()
+                ? slotsFinder.find(slotSearchPool, slotSearchProperties.getSplitThreshold())
+                : slotsFinder.find();
+        LOGGER.debug("Found {} doctors with free slots.", availableSlots.size());
 
-        AvailableSlotsFinder slotsFinder = new AvailableSlotsFinder(matchingDoctors, timeRange);
-        LOGGER.debug("Created AvailableSlotsFinder: {}", slotsFinder);
+        List<DoctorsFreeSlotsDTO> availableSlotsDTO = availableSlots.stream().map(slotsMapper::toDto).collect(
+                Collectors.toList());
+        LOGGER.debug("Mapping results to {} DTOs.", availableSlotsDTO.size());
+        slotSearchCache.put(cacheKey, snapshot, availableSlotsDTO);
+        return availableSlotsDTO;
+    }
+
+    /*
+     * Free slots of active doctors meeting criteria of both animal types and medical specialties, found in one pass
+     * over DoctorAttributeIndex. Results are not cached, as combinations of criteria rarely repeat.
+     */
+    @Transactional(readOnly = true)
+    public List<DoctorsFreeSlotsDTO> searchAvailableVisits(NameCriteriaDTO animalTypes,
+                                                           NameCriteriaDTO medSpecialties,
+                                                           Long epochStart,
+                                                           Long epochEnd) throws InvalidEpochTimeException, NotFoundException, SearchRequestInvalidException {
+        LOGGER.debug("searchAvailableVisits(animalTypes='{}', medSpecialties='{}', epochStart='{}', epochEnd='{}')", animalTypes, medSpecialties, epochStart, epochEnd);
 
-        List<DoctorsFreeSlots> availableSlots = slotsFinder.find();
+        if (animalTypes.isEmpty() || medSpecialties.isEmpty()) {
+            SearchRequestInvalidException e = new SearchRequestInvalidException(
+                    "Invalid search criteria: please provide at least one animal type and one medical specialty.");
+            LOGGER.debug(e.getMessage(), e);
+            throw e;
+        }
+        EpochFutureTimeRange timeRange = new EpochFutureTimeRange(epochStart, epochEnd);
+        List<Doctor> matchingDoctors = withWorkingDays(doctorService.findByCriteria(animalTypes, medSpecialties));
+        LOGGER.debug("Found {} matching doctors.", matchingDoctors.size());
+
+        AvailableSlotsFinder slotsFinder = createSlotsFinder(matchingDoctors, timeRange);
+        List<DoctorsFreeSlots> availableSlots = slotSearchProperties.isParallel()
+                ? slotsFinder.find(slotSearchPool, slotSearchProperties.getSplitThreshold())
+                : slotsFinder.find();
         LOGGER.debug("Found {} doctors with free slots.", availableSlots.size());
 
         List<DoctorsFreeSlotsDTO> availableSlotsDTO = availableSlots.stream().map(slotsMapper::toDto).collect(
@@ -117,19 +524,75 @@ public class VisitService {
         return availableSlotsDTO;
     }
 
-    private List<Doctor> findDoctors(String animalTypeName,
-                                     String medSpecialtyName) throws NotFoundException {
-        List<Doctor> doctorsWithSpecialities = findDoctorsWithSpecialities(animalTypeName, medSpecialtyName);
-        List<Doctor> activeDoctorsWithSpecialties = chooseActiveDoctors(doctorsWithSpecialities);
-        return activeDoctorsWithSpecialties;
+    /*
+     * ETag of findAvailableVisits(...) with the same arguments, built from versions of the matching doctors' schedules,
+     * so a result the client already has is found current without searching slots.
+     */
+    @Transactional(readOnly = true)
+    public String getAvailableVisitsETag(String animalTypeName,
+                                         String medSpecialtyName,
+                                         Long epochStart,
+                                         Long epochEnd) throws InvalidEpochTimeException, NotFoundException {
+        LOGGER.debug("getAvailableVisitsETag(animalTypeName='{}', medSpecialtyName='{}', epochStart='{}', epochEnd='{}')", animalTypeName, medSpecialtyName, epochStart, epochEnd);
+
+        EpochFutureTimeRange timeRange = new EpochFutureTimeRange(epochStart, epochEnd);
+        LOGGER.debug("Created TimeRange: {}", timeRange);
+        SlotSearchCache.Key cacheKey = SlotSearchCache.Key.of(animalTypeName, medSpecialtyName, epochStart, epochEnd);
+        Optional<String> cached = slotSearchCache.eTagOf(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long cacheGeneration = slotSearchCache.generation();
+        List<Long> matchingDoctorIds = doctorService.findIdsByAnimalTypeNameAndMedSpecialtyName(animalTypeName, medSpecialtyName);
+        return SlotSearchCache.eTagOf(cacheKey, slotSearchCache.snapshot(cacheGeneration, matchingDoctorIds));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DoctorsFreeRangesDTO> findAvailableRanges(String animalTypeName,
+                                                          String medSpecialtyName,
+                                                          Long epochStart,
+                                                          Long epochEnd) throws InvalidEpochTimeException, NotFoundException {
+        LOGGER.debug("findAvailableRanges(animalTypeName='{}', medSpecialtyName='{}', epochStart='{}', epochEnd='{}')", animalTypeName, medSpecialtyName, epochStart, epochEnd);
+
+        List<Doctor> matchingDoctors = findDoctors(animalTypeName, medSpecialtyName);
+        LOGGER.debug("Found {} matching doctors.", matchingDoctors.size());
+
+        AvailableSlotsFinder slotsFinder = createSlotsFinder(matchingDoctors, new EpochFutureTimeRange(epochStart, epochEnd));
+        List<DoctorsFreeRanges> availableRanges = slotSearchProperties.isParallel()
+                ? slotsFinder.findRanges(slotSearchPool, slotSearchProperties.getSplitThreshold())
+                : slotsFinder.findRanges();
+        LOGGER.debug("Found {} doctors with free ranges.", availableRanges.size());
+
+        List<DoctorsFreeRangesDTO> availableRangesDTO = availableRanges.stream().map(slotsMapper::toDto).collect(
+                Collectors.toList());
+        LOGGER.debug("Mapping results to {} DTOs.", availableRangesDTO.size());
+        return availableRangesDTO;
     }
 
-    private List<Doctor> chooseActiveDoctors(List<Doctor> doctorsWithSpecialities) {
-        return doctorsWithSpecialities.stream().filter(Doctor::isActive).collect(Collectors.toList());
+    private AvailableSlotsFinder createSlotsFinder(List<Doctor> matchingDoctors, EpochFutureTimeRange timeRange) {
+        LOGGER.debug("Created TimeRange: {}", timeRange);
+
+        availabilityIndex.load(idsOf(matchingDoctors), timeRange.getStartInSeconds(), timeRange.getEndInSeconds() + HourBitmap.HOUR_IN_SECONDS);
+
+        AvailableSlotsFinder slotsFinder = new AvailableSlotsFinder(matchingDoctors,
+                                                                    timeRange,
+                                                                    availabilityIndex::busyHoursOf);
+        LOGGER.debug("Created AvailableSlotsFinder: {}", slotsFinder);
+        return slotsFinder;
+    }
+
+    private static List<Long> idsOf(List<Doctor> doctors) {
+        return doctors.stream().map(Doctor::getId).collect(Collectors.toList());
+    }
+
+    private List<Doctor> findDoctors(String animalTypeName,
+                                     String medSpecialtyName) throws NotFoundException {
+        return withWorkingDays(doctorService.findByAnimalTypeNameAndMedSpecialtyName(animalTypeName, medSpecialtyName));
     }
 
-    private List<Doctor> findDoctorsWithSpecialities(String animalTypeName,
-                                                     String medSpecialtyName) throws NotFoundException {
-        return doctorService.findByAnimalTypeNameAndMedSpecialtyName(animalTypeName, medSpecialtyName);
+    private static List<Doctor> withWorkingDays(List<Doctor> doctors) {
+        // doctors of a cached search come without the entity graph; slot search may run on other threads, so load it here
+        doctors.forEach(doctor -> Hibernate.initialize(doctor.getWorkingDays()));
+        return doctors;
     }
 }
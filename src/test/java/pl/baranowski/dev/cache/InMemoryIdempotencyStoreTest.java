@@ -0,0 +1,51 @@
+package pl.baranowski.dev.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+    private final AtomicLong now = new AtomicLong(1000);
+
+    @Test
+    void reserve_whenKeyKept_returnsRecord_untilCompletedRecordExpires() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, 100, now::get);
+
+        assertEquals(Optional.empty(), store.reserve("key", "a"));
+        assertTrue(store.reserve("key", "a").get().isInProgress());
+
+        store.complete("key", IdempotencyRecord.succeeded("a", "result"));
+        now.addAndGet(99);
+        assertEquals("result", store.reserve("key", "a").get().getResult());
+
+        now.addAndGet(1);
+        assertEquals(Optional.empty(), store.reserve("key", "a"));
+    }
+
+    @Test
+    void reserve_whenFull_dropsOldestKey() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(2, 100, now::get);
+        store.reserve("first", "a");
+        store.reserve("second", "b");
+        store.reserve("third", "c");
+
+        assertEquals(2, store.size());
+        assertTrue(store.reserve("second", "b").isPresent());
+        assertTrue(store.reserve("third", "c").isPresent());
+        assertEquals(Optional.empty(), store.reserve("first", "a"));
+    }
+
+    @Test
+    void release_forgetsKey() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, 100, now::get);
+        store.reserve("key", "a");
+
+        store.release("key");
+
+        assertEquals(0, store.size());
+        assertEquals(Optional.empty(), store.reserve("key", "a"));
+    }
+}
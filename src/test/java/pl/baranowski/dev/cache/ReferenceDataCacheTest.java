@@ -0,0 +1,71 @@
+package pl.baranowski.dev.cache;
+
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.dto.CacheStatsDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReferenceDataCacheTest {
+
+    @Test
+    void get_loadsEachNameOnce_includingMissingNames() {
+        List<String> loaded = new ArrayList<>();
+        ReferenceDataCache<String> underTest = new ReferenceDataCache<>("test", 10, name -> {
+            loaded.add(name);
+            return name.equals("Cat") ? Optional.of("cat") : Optional.empty();
+        });
+
+        assertEquals(Optional.of("cat"), underTest.get("Cat"));
+        assertEquals(Optional.of("cat"), underTest.get("Cat"));
+        assertEquals(Optional.empty(), underTest.get("Horse"));
+        assertEquals(Optional.empty(), underTest.get("Horse"));
+
+        assertEquals(List.of("Cat", "Horse"), loaded);
+        assertEquals(new CacheStatsDTO("test", 2, 10, 2, 2, 0, 0), underTest.stats());
+    }
+
+    @Test
+    void get_whenFull_dropsLeastRecentlyUsedName() {
+        List<String> loaded = new ArrayList<>();
+        ReferenceDataCache<String> underTest = new ReferenceDataCache<>("test", 2, name -> {
+            loaded.add(name);
+            return Optional.of(name);
+        });
+
+        underTest.get("a");
+        underTest.get("b");
+        underTest.get("a");
+        underTest.get("c"); // drops "b"
+        underTest.get("a");
+        underTest.get("b");
+
+        assertEquals(List.of("a", "b", "c", "b"), loaded);
+        assertEquals(2, underTest.stats().getEvictions());
+    }
+
+    @Test
+    void invalidateAll_dropsEveryName_andLoadRunningMeanwhileIsNotStored() {
+        List<String> loaded = new ArrayList<>();
+        List<ReferenceDataCache<String>> self = new ArrayList<>();
+        ReferenceDataCache<String> underTest = new ReferenceDataCache<>("test", 10, name -> {
+            loaded.add(name);
+            if (name.equals("changing")) {
+                self.get(0).invalidateAll();
+            }
+            return Optional.of(name);
+        });
+        self.add(underTest);
+
+        underTest.get("a");
+        underTest.get("changing");
+        underTest.get("changing");
+        underTest.get("a");
+
+        assertEquals(List.of("a", "changing", "changing", "a"), loaded);
+        assertEquals(2, underTest.stats().getInvalidations());
+    }
+}
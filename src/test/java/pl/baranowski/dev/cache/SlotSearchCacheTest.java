@@ -0,0 +1,94 @@
+package pl.baranowski.dev.cache;
+
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.index.ScheduleVersions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SlotSearchCacheTest {
+    private final long HOUR = 3600;
+    private final long START = 4_102_444_800L; // 2100-01-01T00:00Z
+    private final List<DoctorsFreeSlotsDTO> RESULT = Collections.singletonList(new DoctorsFreeSlotsDTO(null, List.of(START)));
+
+    private final ScheduleVersions scheduleVersions = new ScheduleVersions();
+    private final SlotSearchCache underTest = new SlotSearchCache(10, scheduleVersions);
+
+    @Test
+    void key_isAlignedToWholeHoursOfWindow() {
+        assertEquals(SlotSearchCache.Key.of("Cat", "Surgeon", START, START + 2 * HOUR),
+                     SlotSearchCache.Key.of("Cat", "Surgeon", START - HOUR + 1, START + 3 * HOUR - 1));
+        assertNotEquals(SlotSearchCache.Key.of("Cat", "Surgeon", START, START + 2 * HOUR),
+                        SlotSearchCache.Key.of("Cat", "Surgeon", START + 1, START + 2 * HOUR));
+    }
+
+    @Test
+    void get_whenScheduleOfAnyDoctorChanged_dropsOnlyItsResults() {
+        SlotSearchCache.Key first = SlotSearchCache.Key.of("Cat", "Surgeon", START, START + HOUR);
+        SlotSearchCache.Key second = SlotSearchCache.Key.of("Dog", "Surgeon", START, START + HOUR);
+        underTest.put(first, underTest.snapshot(underTest.generation(), List.of(1L, 2L)), RESULT);
+        underTest.put(second, underTest.snapshot(underTest.generation(), List.of(3L)), RESULT);
+
+        scheduleVersions.changed(2L);
+
+        assertEquals(Optional.empty(), underTest.get(first));
+        assertEquals(Optional.of(RESULT), underTest.get(second));
+        assertEquals(1, underTest.stats().getSize());
+    }
+
+    @Test
+    void put_whenScheduleChangedSinceSnapshot_doesNotStoreResult() {
+        SlotSearchCache.Key key = SlotSearchCache.Key.of("Cat", "Surgeon", START, START + HOUR);
+        SlotSearchCache.Snapshot snapshot = underTest.snapshot(underTest.generation(), List.of(1L));
+
+        scheduleVersions.changed(1L);
+        underTest.put(key, snapshot, RESULT);
+
+        assertEquals(Optional.empty(), underTest.get(key));
+    }
+
+    @Test
+    void doctorChanged_dropsResultsOfQueriesDoctorMatches_andSearchesRunningMeanwhile() {
+        SlotSearchCache.Key catSurgeon = SlotSearchCache.Key.of("Cat", "Surgeon", START, START + HOUR);
+        SlotSearchCache.Key dogSurgeon = SlotSearchCache.Key.of("Dog", "Surgeon", START, START + HOUR);
+        SlotSearchCache.Key catDentist = SlotSearchCache.Key.of("Cat", "Dentist", START, START + HOUR);
+        underTest.put(catSurgeon, underTest.snapshot(underTest.generation(), List.of(1L)), RESULT);
+        underTest.put(dogSurgeon, underTest.snapshot(underTest.generation(), List.of(2L)), RESULT);
+        SlotSearchCache.Snapshot running = underTest.snapshot(underTest.generation(), List.of(3L));
+
+        Doctor newDoctor = new DoctorBuilder().name("Jan").surname("Nowak").nip("1111111111").build();
+        newDoctor.addAnimalType(new AnimalType("Cat"));
+        newDoctor.addMedSpecialty(new MedSpecialty("Surgeon"));
+        underTest.doctorChanged(newDoctor);
+        underTest.put(catDentist, running, RESULT);
+
+        assertEquals(Optional.empty(), underTest.get(catSurgeon));
+        assertEquals(Optional.of(RESULT), underTest.get(dogSurgeon));
+        assertEquals(Optional.empty(), underTest.get(catDentist));
+    }
+
+    @Test
+    void put_whenFull_dropsLeastRecentlyUsedResult() {
+        SlotSearchCache small = new SlotSearchCache(2, scheduleVersions);
+        SlotSearchCache.Key a = SlotSearchCache.Key.of("a", "x", START, START + HOUR);
+        SlotSearchCache.Key b = SlotSearchCache.Key.of("b", "x", START, START + HOUR);
+        SlotSearchCache.Key c = SlotSearchCache.Key.of("c", "x", START, START + HOUR);
+        small.put(a, small.snapshot(small.generation(), List.of(1L)), RESULT);
+        small.put(b, small.snapshot(small.generation(), List.of(1L)), RESULT);
+        small.get(a);
+        small.put(c, small.snapshot(small.generation(), List.of(1L)), RESULT);
+
+        assertEquals(Optional.of(RESULT), small.get(a));
+        assertEquals(Optional.empty(), small.get(b));
+        assertEquals(1, small.stats().getEvictions());
+    }
+}
@@ -36,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -128,6 +129,28 @@ public class DoctorControllerTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void getById_whenETagMatches_returnsStatus304_withoutLoadingDoctor() throws Exception {
+        given(doctorService.getETag(mostowiak.getId())).willReturn("doctor-1-3");
+
+        mockMvc.perform(get("/doctors/{id}", mostowiak.getId()).header("If-None-Match", "\"doctor-1-3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("ETag", "\"doctor-1-3\""));
+
+        verify(doctorService, never()).getDTO(anyLong());
+    }
+
+    @Test
+    void getById_whenETagDoesNotMatch_returnsDoctor_withETag() throws Exception {
+        given(doctorService.getETag(mostowiak.getId())).willReturn("doctor-1-4");
+        given(doctorService.getDTO(mostowiak.getId())).willReturn(mostowiak);
+
+        mockMvc.perform(get("/doctors/{id}", mostowiak.getId()).header("If-None-Match", "\"doctor-1-3\""))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"doctor-1-4\""))
+               .andExpect(jsonPath("$.id").value(mostowiak.getId()));
+    }
+
     @Test
     void getById_whenInvalidId_returnsError_andStatus400() throws Exception {
         String invalidId = "eee";
@@ -561,4 +584,11 @@ public class DoctorControllerTest {
         assertEquals(expectedError, resultError);
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAfter_whenSizeAboveMax_returns400() throws Exception {
+        mockMvc.perform(get("/doctors/").param("after", "").param("size", String.valueOf(Integer.MAX_VALUE)))
+               .andExpect(status().isBadRequest());
+
+        verify(doctorService, times(0)).findAfter(any(), anyInt());
+    }
+}
@@ -0,0 +1,81 @@
+package pl.baranowski.dev.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.baranowski.dev.dto.ImportRejectDTO;
+import pl.baranowski.dev.dto.ImportReportDTO;
+import pl.baranowski.dev.model.ImportFormat;
+import pl.baranowski.dev.service.ImportService;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = ImportController.class)
+class ImportControllerTest {
+    @MockBean
+    ImportService importService;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void importDoctors_whenCsv_passesBodyAndReturnsReport() throws Exception {
+        String csv = "name,surname,hourlyRate,nip,animalTypes,medSpecialties\nAnna,Nowak,120,1181328620,Dog,\n";
+        ImportReportDTO report = new ImportReportDTO(1, 1, 0, 5, 200, Collections.emptyList());
+        given(importService.importDoctors(any(InputStream.class), eq(ImportFormat.CSV))).willReturn(report);
+
+        MvcResult result = mockMvc.perform(post("/import/doctors")
+                                                   .contentType(ImportFormat.CSV_VALUE)
+                                                   .content(csv))
+                                  .andExpect(status().isOk())
+                                  .andReturn();
+
+        ArgumentCaptor<InputStream> bodyCaptor = ArgumentCaptor.forClass(InputStream.class);
+        verify(importService).importDoctors(bodyCaptor.capture(), eq(ImportFormat.CSV));
+        assertEquals(report, objectMapper.readValue(result.getResponse().getContentAsString(), ImportReportDTO.class));
+    }
+
+    @Test
+    void importPatients_whenNdjsonWithCharset_returnsReport() throws Exception {
+        ImportReportDTO report = new ImportReportDTO(1, 0, 1, 5, 200, Collections.singletonList(new ImportRejectDTO(1, "Invalid e-mail format.")));
+        given(importService.importPatients(any(InputStream.class), eq(ImportFormat.NDJSON))).willReturn(report);
+
+        MvcResult result = mockMvc.perform(post("/import/patients")
+                                                   .contentType(ImportFormat.NDJSON_VALUE + ";charset=UTF-8")
+                                                   .content("{\"name\":\"Rex\"}".getBytes(StandardCharsets.UTF_8)))
+                                  .andExpect(status().isOk())
+                                  .andReturn();
+
+        assertEquals(report, objectMapper.readValue(result.getResponse().getContentAsString(), ImportReportDTO.class));
+    }
+
+    @Test
+    void importPatients_whenJson_respondsUnsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/import/patients")
+                                .contentType("application/json")
+                                .content("[]"))
+               .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(importService);
+    }
+}
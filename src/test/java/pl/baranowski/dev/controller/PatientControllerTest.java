@@ -28,6 +28,8 @@ import java.util.Collections;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -236,4 +238,12 @@ class PatientControllerTest {
         ErrorDTO resultError = objectMapper.readValue(resultAsString, ErrorDTO.class);
         assertEquals(expectedError, resultError);
     }
+
+    @Test
+    void findAfter_whenSizeAboveMax_returns400() throws Exception {
+        mockMvc.perform(get("/patients/").param("after", "").param("size", String.valueOf(Integer.MAX_VALUE)))
+               .andExpect(status().isBadRequest());
+
+        verify(patientService, times(0)).findAfter(any(), anyInt());
+    }
 }
@@ -8,9 +8,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -20,9 +22,16 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultMatcher;
 import pl.baranowski.dev.builder.DoctorDTOBuilder;
+import pl.baranowski.dev.configuration.IdempotencyConfig;
 import pl.baranowski.dev.dto.*;
 import pl.baranowski.dev.exception.NotFoundException;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
+import pl.baranowski.dev.exception.visit.HoldExpiredException;
+import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.model.RestPageImpl;
+import pl.baranowski.dev.model.VisitRequest;
+import pl.baranowski.dev.service.IdempotencyService;
 import pl.baranowski.dev.service.VisitService;
 
 import java.time.LocalDateTime;
@@ -34,15 +43,21 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = VisitController.class)
+@Import({IdempotencyService.class, IdempotencyConfig.class})
 class VisitControllerTest {
 
     @Autowired
@@ -51,6 +66,8 @@ class VisitControllerTest {
     ObjectMapper objectMapper;
     @MockBean
     VisitService visitService;
+    @Captor
+    ArgumentCaptor<List<VisitRequest>> requestsCaptor;
     private AnimalTypeDTO animalType;
     private DoctorDTO doctor;
     private PatientDTO patient;
@@ -175,6 +192,87 @@ class VisitControllerTest {
         assertEquals(defaultPaginable, pageableCaptor.getValue());
     }
 
+    @Test
+    void findAfter_decodesCursor_andReturnsCursorPage() throws Exception {
+        VisitDTO visit = new VisitDTO(doctor, patient, 4_102_444_800L, false);
+        CursorPageDTO<VisitDTO> expectedPage = new CursorPageDTO<>(Collections.singletonList(visit), 1, "next-token");
+        given(visitService.findAfter(any(), eq(1))).willReturn(expectedPage);
+
+        MvcResult result = mockMvc.perform(get("/visits/")
+                                                   .param("after", KeysetCursor.of(4_102_441_200L, 17L).encode())
+                                                   .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        ArgumentCaptor<KeysetCursor> cursorCaptor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(visitService).findAfter(cursorCaptor.capture(), eq(1));
+        assertEquals(4_102_441_200L, cursorCaptor.getValue().key(0));
+        assertEquals(17L, cursorCaptor.getValue().key(1));
+        verify(visitService, times(0)).findAll(any());
+
+        CursorPageDTO<VisitDTO> resultPage = objectMapper.readValue(result.getResponse().getContentAsString(),
+                                                                    new TypeReference<>() {
+                                                                    });
+        assertEquals(expectedPage, resultPage);
+    }
+
+    @Test
+    void findAfter_whenCursorInvalid_returns400() throws Exception {
+        mockMvc.perform(get("/visits/")
+                                .param("after", KeysetCursor.of(17L).encode())
+                                .param("size", "1"))
+                .andExpect(status().isBadRequest());
+
+        verify(visitService, times(0)).findAfter(any(), anyInt());
+    }
+
+    @Test
+    void findAfter_andFindBetween_whenSizeAboveMax_returns400() throws Exception {
+        for (String size : new String[]{String.valueOf(CursorPageDTO.MAX_SIZE + 1), String.valueOf(Integer.MAX_VALUE)}) {
+            mockMvc.perform(get("/visits/").param("after", "").param("size", size))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/visits/").param("from", "4102441200").param("to", "4102527600").param("size", size))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(visitService, times(0)).findAfter(any(), anyInt());
+        verify(visitService, times(0)).findBetween(any(), any(), anyLong(), anyLong(), any(), anyInt());
+    }
+
+    @Test
+    void findBetween_passesFiltersAndRange_andStartsWithoutCursor() throws Exception {
+        CursorPageDTO<VisitDTO> expectedPage = new CursorPageDTO<>(Collections.singletonList(new VisitDTO(doctor, patient, 4_102_444_800L, false)), 10, null);
+        given(visitService.findBetween(eq(1L), eq(null), eq(4_102_441_200L), eq(4_102_527_600L), any(), eq(10))).willReturn(expectedPage);
+
+        MvcResult result = mockMvc.perform(get("/visits/")
+                                                   .param("doctorId", "1")
+                                                   .param("from", "4102441200")
+                                                   .param("to", "4102527600")
+                                                   .param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        ArgumentCaptor<KeysetCursor> cursorCaptor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(visitService).findBetween(eq(1L), eq(null), eq(4_102_441_200L), eq(4_102_527_600L), cursorCaptor.capture(), eq(10));
+        assertEquals(Long.MIN_VALUE, cursorCaptor.getValue().key(0));
+        verify(visitService, times(0)).findAfter(any(), anyInt());
+        assertEquals(expectedPage, objectMapper.readValue(result.getResponse().getContentAsString(),
+                                                          new TypeReference<CursorPageDTO<VisitDTO>>() {
+                                                          }));
+    }
+
+    @Test
+    void findBetween_whenDoctorIdInvalid_returns400() throws Exception {
+        mockMvc.perform(get("/visits/")
+                                .param("doctorId", "a")
+                                .param("from", "4102441200")
+                                .param("to", "4102527600")
+                                .param("size", "10"))
+                .andExpect(status().isBadRequest());
+
+        verify(visitService, times(0)).findBetween(any(), any(), anyLong(), anyLong(), any(), anyInt());
+    }
+
     @Test
     void findAll_paramsInvalid_returnsErrors_and400() throws Exception {
         MvcResult result = mockMvc.perform(get("/visits/")
@@ -225,6 +323,66 @@ class VisitControllerTest {
         assertEquals(expectedDTO, resultDTO);
     }
 
+    @Test
+    void addNew_withIdempotencyKey_whenRetried_booksOnce_andReplaysResponse() throws Exception {
+        Long epoch = 1643157711000L;
+        NewVisitDTO newVisitDTO = new NewVisitDTO(doctor.getId().toString(), patient.getId().toString(), epoch.toString());
+        VisitDTO expectedDTO = new VisitDTO(doctor, patient, epoch, false).withId(4L);
+        given(visitService.addNew(doctor.getId(), patient.getId(), epoch)).willReturn(expectedDTO);
+
+        for (int i = 0; i < 3; i++) {
+            MvcResult result = mockMvc.perform(post("/visits/")
+                                                       .header(VisitController.IDEMPOTENCY_KEY_HEADER, "retried-booking")
+                                                       .content(objectMapper.writeValueAsString(newVisitDTO))
+                                                       .contentType("application/json;charset=UTF-8"))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            assertEquals(expectedDTO, objectMapper.readValue(result.getResponse().getContentAsString(), VisitDTO.class));
+        }
+
+        verify(visitService, times(1)).addNew(doctor.getId(), patient.getId(), epoch);
+    }
+
+    @Test
+    void addNew_withIdempotencyKey_whenFirstAttemptRejected_replaysError() throws Exception {
+        Long epoch = 1643157711000L;
+        NewVisitDTO newVisitDTO = new NewVisitDTO("1", "2", epoch.toString());
+        NewVisitNotPossibleException exception = new NewVisitNotPossibleException("Doctor with id 1 is busy at provided time.");
+        given(visitService.addNew(1L, 2L, epoch)).willThrow(exception);
+
+        for (int i = 0; i < 2; i++) {
+            MvcResult result = mockMvc.perform(post("/visits/")
+                                                       .header(VisitController.IDEMPOTENCY_KEY_HEADER, "rejected-booking")
+                                                       .content(objectMapper.writeValueAsString(newVisitDTO))
+                                                       .contentType("application/json;charset=UTF-8"))
+                    .andExpect(status().isForbidden())
+                    .andReturn();
+            assertEquals(new ErrorDTO(exception), objectMapper.readValue(result.getResponse().getContentAsString(), ErrorDTO.class));
+        }
+
+        verify(visitService, times(1)).addNew(1L, 2L, epoch);
+    }
+
+    @Test
+    void addNew_withIdempotencyKey_whenKeyReusedForOtherVisit_respondsUnprocessableEntity() throws Exception {
+        Long epoch = 1643157711000L;
+        VisitDTO expectedDTO = new VisitDTO(doctor, patient, epoch, false).withId(4L);
+        given(visitService.addNew(any(), any(), any())).willReturn(expectedDTO);
+
+        mockMvc.perform(post("/visits/")
+                                .header(VisitController.IDEMPOTENCY_KEY_HEADER, "reused-key")
+                                .content(objectMapper.writeValueAsString(new NewVisitDTO("1", "2", epoch.toString())))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/visits/")
+                                .header(VisitController.IDEMPOTENCY_KEY_HEADER, "reused-key")
+                                .content(objectMapper.writeValueAsString(new NewVisitDTO("1", "3", epoch.toString())))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(visitService, times(1)).addNew(any(), any(), any());
+    }
+
     @Test
     void addNew_validation_handlesIncorrectOrEmptyParams() throws Exception {
         NewVisitDTO incorrect;
@@ -281,6 +439,51 @@ class VisitControllerTest {
 
     }
 
+    @Test
+    void addNewBatch_whenCorrectInputs_respondsWith200_andReturnsResultsInRequestOrder() throws Exception {
+        Long epoch = 4104554400L;
+        List<NewVisitDTO> newVisits = Arrays.asList(new NewVisitDTO("1", "2", epoch.toString()),
+                                                    new NewVisitDTO("1", "3", epoch.toString()));
+        NewVisitNotPossibleException busy = new NewVisitNotPossibleException("Doctor with id 1 is busy at provided time.");
+        List<BookingResultDTO> expected = Arrays.asList(new BookingResultDTO(new VisitDTO(doctor, patient, epoch, false).withId(4L), null),
+                                                        new BookingResultDTO(null, new ErrorDTO(busy)));
+        given(visitService.addNewBatch(any())).willReturn(expected);
+
+        MvcResult result = mockMvc.perform(post("/visits/batch")
+                                                   .content(objectMapper.writeValueAsString(newVisits))
+                                                   .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andExpect(jsonPath("$[1].error.httpStatus").value("FORBIDDEN"))
+                .andReturn();
+
+        verify(visitService, times(1)).addNewBatch(requestsCaptor.capture());
+        List<VisitRequest> requests = requestsCaptor.getValue();
+        assertEquals(2, requests.size());
+        assertEquals(1L, requests.get(1).getDoctorId());
+        assertEquals(3L, requests.get(1).getPatientId());
+        assertEquals(epoch, requests.get(1).getEpochInSeconds());
+
+        assertEquals(objectMapper.writeValueAsString(expected), result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void addNewBatch_validation_handlesEmptyBatchOrIncorrectVisits() throws Exception {
+        mockMvc.perform(post("/visits/batch")
+                                .content("[]")
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isBadRequest());
+
+        List<NewVisitDTO> incorrect = Arrays.asList(new NewVisitDTO("1", "2", "3"), new NewVisitDTO("a", "2", "3"));
+        mockMvc.perform(post("/visits/batch")
+                                .content(objectMapper.writeValueAsString(incorrect))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors[*].field", Matchers.hasItems("doctorId")));
+
+        verify(visitService, times(0)).addNewBatch(any());
+    }
+
     @Test
     void addNew_handlesNotFoundException() throws Exception {
         Long now = System.currentTimeMillis();
@@ -303,6 +506,73 @@ class VisitControllerTest {
         assertEquals(expectedError, resultError);
     }
 
+    @Test
+    void addNew_whenBookingQueueIsFull_respondsServiceUnavailable_withRetryAfter() throws Exception {
+        Long now = System.currentTimeMillis();
+        NewVisitDTO newVisit = new NewVisitDTO("1", "2", now.toString());
+        BookingQueueFullException exception = new BookingQueueFullException(3);
+
+        given(visitService.addNew(1L, 2L, now)).willThrow(exception);
+
+        MvcResult result = mockMvc.perform(post("/visits/")
+                                                   .content(objectMapper.writeValueAsString(newVisit))
+                                                   .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"))
+                .andReturn();
+
+        ErrorDTO resultError = objectMapper.readValue(result.getResponse().getContentAsString(), ErrorDTO.class);
+        assertEquals(new ErrorDTO(exception), resultError);
+    }
+
+    @Test
+    void hold_whenCorrectInputs_respondsWith201_andReturnsHeldVisit() throws Exception {
+        Long epoch = 1643157711000L;
+        NewVisitDTO newVisit = new NewVisitDTO("1", "2", epoch.toString());
+        VisitDTO expectedDTO = new VisitDTO(4L, doctor, patient, epoch, false, 3600L);
+        expectedDTO.setHoldExpiresAt(1643157000L);
+
+        given(visitService.hold(1L, 2L, epoch)).willReturn(expectedDTO);
+
+        MvcResult result = mockMvc.perform(post("/visits/hold")
+                                                   .content(objectMapper.writeValueAsString(newVisit))
+                                                   .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andReturn();
+
+        verify(visitService, times(1)).hold(1L, 2L, epoch);
+        VisitDTO resultDTO = objectMapper.readValue(result.getResponse().getContentAsString(), VisitDTO.class);
+        assertEquals(expectedDTO, resultDTO);
+    }
+
+    @Test
+    void confirm_whenHoldExpired_respondsGone() throws Exception {
+        HoldExpiredException exception = new HoldExpiredException(4L);
+        given(visitService.confirm(4L)).willThrow(exception);
+
+        MvcResult result = mockMvc.perform(put("/visits/{id}/confirm", 4L))
+                .andExpect(status().isGone())
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andReturn();
+
+        ErrorDTO resultError = objectMapper.readValue(result.getResponse().getContentAsString(), ErrorDTO.class);
+        assertEquals(new ErrorDTO(exception), resultError);
+    }
+
+    @Test
+    void confirm_whenValidId_returnsConfirmedVisit() throws Exception {
+        VisitDTO expectedDTO = new VisitDTO(4L, doctor, patient, 1643157711000L, true, 3600L);
+        given(visitService.confirm(4L)).willReturn(expectedDTO);
+
+        MvcResult result = mockMvc.perform(put("/visits/{id}/confirm", 4L))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        VisitDTO resultDTO = objectMapper.readValue(result.getResponse().getContentAsString(), VisitDTO.class);
+        assertEquals(expectedDTO, resultDTO);
+    }
+
     @Test
     void findFreeSlots_returnsCorrectResponseBody_andStatus200() throws JsonProcessingException, Exception {
         // 2100-01-25 10:00:00
@@ -367,6 +637,91 @@ class VisitControllerTest {
         assertEquals(expectedResult, actualResult);
     }
 
+    @Test
+    void findFreeSlots_whenETagMatches_returnsStatus304_withoutSearching() throws Exception {
+        Long start = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 10, 00, 00), ZoneId.systemDefault()).toEpochSecond();
+        Long end = start + 5 * 60 * 60;
+        given(visitService.getAvailableVisitsETag("Koty", "Urolog", start, end)).willReturn("slots-abc");
+
+        mockMvc.perform(get("/visits/check")
+                                .param("animalTypeName", "Koty")
+                                .param("medSpecialtyName", "Urolog")
+                                .param("epochStart", start.toString())
+                                .param("epochEnd", end.toString())
+                                .header("If-None-Match", "\"slots-abc\""))
+               .andExpect(status().isNotModified());
+
+        verify(visitService, times(0)).findAvailableVisits(any(), any(), any(), any());
+    }
+
+    @Test
+    void findFreeRanges_respondsToRequest() throws Exception {
+        Long start = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 10, 00, 00), ZoneId.systemDefault()).toEpochSecond();
+        Long end = start + 5 * 60 * 60;
+        List<DoctorsFreeRangesDTO> expectedResult = Collections.singletonList(
+                new DoctorsFreeRangesDTO(doctor, Arrays.asList(new EpochRangeDTO(start, start + 3600),
+                                                               new EpochRangeDTO(start + 2 * 3600, end))));
+        given(visitService.findAvailableRanges(animalType.getName(), "Urolog", start, end)).willReturn(expectedResult);
+
+        MvcResult result = mockMvc.perform(get("/visits/check/ranges")
+                                                   .param("animalTypeName", animalType.getName())
+                                                   .param("medSpecialtyName", "Urolog")
+                                                   .param("epochStart", start.toString())
+                                                   .param("epochEnd", end.toString()))
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].freeRanges[1].start").value(start + 2 * 3600))
+                .andReturn();
+
+        List<DoctorsFreeRangesDTO> actualResult = objectMapper.readValue(result.getResponse().getContentAsString(),
+                                                                         new TypeReference<>() {
+                                                                         });
+        assertEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    void searchFreeSlots_passesCriteriaToService_andReturnsSlots() throws Exception {
+        Long start = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 10, 00, 00), ZoneId.systemDefault()).toEpochSecond();
+        Long end = start + 5 * 60 * 60;
+        NameCriteriaDTO animalTypes = NameCriteriaDTO.anyOf("Psy", "Koty");
+        NameCriteriaDTO medSpecialties = NameCriteriaDTO.allOf("Chirurg", "Dermatolog");
+        List<DoctorsFreeSlotsDTO> expectedResult = Collections.singletonList(new DoctorsFreeSlotsDTO(doctor, Arrays.asList(start, end)));
+        given(visitService.searchAvailableVisits(animalTypes, medSpecialties, start, end)).willReturn(expectedResult);
+
+        MvcResult result = mockMvc.perform(post("/visits/search")
+                                                   .content(objectMapper.writeValueAsString(new VisitSearchDTO(animalTypes,
+                                                                                                               medSpecialties,
+                                                                                                               start.toString(),
+                                                                                                               end.toString())))
+                                                   .contentType("application/json;charset=UTF-8"))
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<DoctorsFreeSlotsDTO> actualResult = objectMapper.readValue(result.getResponse().getContentAsString(),
+                                                                        new TypeReference<>() {
+                                                                        });
+        assertEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    void searchFreeSlots_validation_handlesMissingCriteriaOrInvalidEpochs() throws Exception {
+        mockMvc.perform(post("/visits/search")
+                                .content(objectMapper.writeValueAsString(new VisitSearchDTO(null, NameCriteriaDTO.anyOf("Chirurg"), "1", "2")))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/visits/search")
+                                .content(objectMapper.writeValueAsString(new VisitSearchDTO(NameCriteriaDTO.anyOf(" "), NameCriteriaDTO.anyOf("Chirurg"), "1", "2")))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/visits/search")
+                                .content(objectMapper.writeValueAsString(new VisitSearchDTO(NameCriteriaDTO.anyOf("Psy"), NameCriteriaDTO.anyOf("Chirurg"), "1a", "2")))
+                                .contentType("application/json;charset=UTF-8"))
+                .andExpect(status().isBadRequest());
+
+        verify(visitService, times(0)).searchAvailableVisits(any(), any(), any(), any());
+    }
+
     private void mockMvcPerformAndExpect(NewVisitDTO requestDTO, ResultMatcher httpStatusMatcher, String field)
             throws Exception {
         mockMvc.perform(post("/visits/")
@@ -39,4 +39,29 @@ class DoctorTest {
 		assert(hasVisits);
 	}
 
+	@Test
+	void hasVisitsAtEpoch_whenVisitAddedAfterFirstCheck_seesIt() {
+		//given
+		assert(!underTest.hasVisitsAtEpoch(mondayH10Y2100 + 1800));
+		Visit newVisit = new VisitBuilder().doctor(underTest).patient(patient).epoch(mondayH10Y2100).build();
+		underTest.addVisit(newVisit);
+		//when
+		Boolean hasVisits = underTest.hasVisitsAtEpoch(mondayH10Y2100 + 1800);
+		//then
+		assert(hasVisits);
+		assert(!underTest.hasVisitsAtEpoch(mondayH10Y2100 + 3600));
+	}
+
+	@Test
+	void hasVisitsAtEpoch_whenVisitAddedThroughGetVisits_seesIt() {
+		//given
+		assert(!underTest.hasVisitsAtEpoch(mondayH10Y2100));
+		Visit newVisit = new VisitBuilder().doctor(underTest).patient(patient).epoch(mondayH10Y2100).build();
+		underTest.getVisits().add(newVisit);
+		//when
+		Boolean hasVisits = underTest.hasVisitsAtEpoch(mondayH10Y2100);
+		//then
+		assert(hasVisits);
+	}
+
 }
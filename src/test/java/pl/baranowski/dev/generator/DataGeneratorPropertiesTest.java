@@ -0,0 +1,33 @@
+package pl.baranowski.dev.generator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DataGeneratorPropertiesTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner().withUserConfiguration(Config.class);
+
+    @Test
+    void binding_whenVisitDensityOrBatchSizeOutOfRange_fails() {
+        for (String property : new String[]{"vet.generator.visit-density=0", "vet.generator.visit-density=1.5",
+                "vet.generator.batch-size=0", "vet.generator.horizon-weeks=0"}) {
+            contextRunner.withPropertyValues(property)
+                         .run(context -> assertNotNull(context.getStartupFailure(), property));
+        }
+    }
+
+    @Test
+    void binding_whenInRange_succeeds() {
+        contextRunner.withPropertyValues("vet.generator.visit-density=1", "vet.generator.batch-size=1")
+                     .run(context -> assertEquals(1.0, context.getBean(DataGeneratorProperties.class).getVisitDensity()));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataGeneratorProperties.class)
+    static class Config {
+    }
+}
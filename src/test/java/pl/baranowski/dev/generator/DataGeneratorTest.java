@@ -0,0 +1,90 @@
+package pl.baranowski.dev.generator;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.repository.DoctorRepository;
+import pl.baranowski.dev.validator.NipValidator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.profiles.active=dev,generate",
+        "vet.generator.doctors=30",
+        "vet.generator.patients=200",
+        "vet.generator.visits=3000",
+        "vet.generator.batch-size=100"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DataGeneratorTest {
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    DoctorRepository doctorRepository;
+    @Autowired
+    AnimalTypeRepository animalTypeRepository;
+
+    @AfterAll
+    void tearDown() {
+        for (String table : new String[]{"visit", "list_of_working_days", "doctors_to_animal_types", "doctors_to_med_specialities",
+                "doctor", "patient", "animal_type", "med_specialty"}) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void run_insertsConfiguredVolumes() {
+        assertEquals(30, count("select count(*) from doctor"));
+        assertEquals(200, count("select count(*) from patient"));
+        assertEquals(3000, count("select count(*) from visit"));
+    }
+
+    @Test
+    void run_visitsArePossibleForReception() {
+        long doublyBookedHours = count("select count(*) from (select doctor_id, epoch_in_seconds from visit "
+                + "group by doctor_id, epoch_in_seconds having count(*) > 1) booked");
+        long doublyBookedPatientHours = count("select count(*) from (select patient_id, epoch_in_seconds from visit "
+                + "group by patient_id, epoch_in_seconds having count(*) > 1) booked");
+        long patientsOfOtherAnimalTypes = count("select count(*) from visit v join patient p on p.id = v.patient_id "
+                + "where not exists (select 1 from doctors_to_animal_types d "
+                + "where d.doctor_id = v.doctor_id and d.animal_type_id = p.animal_type_id)");
+        assertEquals(0, doublyBookedHours);
+        assertEquals(0, doublyBookedPatientHours);
+        assertEquals(0, patientsOfOtherAnimalTypes);
+
+        Map<Long, Doctor> doctors = new HashMap<>();
+        for (Map<String, Object> visit : jdbcTemplate.queryForList("select doctor_id, epoch_in_seconds from visit")) {
+            Doctor doctor = doctors.computeIfAbsent((Long) visit.get("doctor_id"), id -> doctorRepository.findWithDetailsById(id).orElseThrow());
+            long epoch = (Long) visit.get("epoch_in_seconds");
+            assertTrue(doctor.worksAt(epoch) && doctor.worksAt(epoch + 3599));
+        }
+    }
+
+    @Test
+    void run_generatesValidNips() {
+        List<String> nips = jdbcTemplate.queryForList("select nip from doctor", String.class);
+        NipValidator validator = new NipValidator();
+        assertTrue(nips.stream().allMatch(nip -> validator.isValid(nip, null)));
+        assertEquals(nips.size(), nips.stream().distinct().count());
+    }
+
+    @Test
+    void run_movesSequencePastGeneratedIds() {
+        long maxVisitId = count("select max(id) from visit");
+        AnimalType saved = animalTypeRepository.save(new AnimalType("Iguana"));
+        assertTrue(saved.getId() > maxVisitId);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
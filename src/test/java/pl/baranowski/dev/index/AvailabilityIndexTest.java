@@ -0,0 +1,65 @@
+package pl.baranowski.dev.index;
+
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.Visit;
+import pl.baranowski.dev.model.HourBitmap;
+import pl.baranowski.dev.model.VisitTime;
+import pl.baranowski.dev.repository.VisitRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailabilityIndexTest {
+    private final long H10 = 4_102_444_800L;
+
+    private final VisitRepository visitRepository = mock(VisitRepository.class);
+    private final AvailabilityIndex underTest = new AvailabilityIndex(visitRepository, new ScheduleVersions());
+    private final Doctor doctor = new DoctorBuilder().id(1L).build();
+
+    @Test
+    void load_marksBusyHoursOfLoadedVisits_once() {
+        when(visitRepository.findTimesOfDoctorsBetween(any(), anyLong(), anyLong()))
+                .thenReturn(List.of(new VisitTime(doctor.getId(), 2L, H10, HourBitmap.HOUR_IN_SECONDS)));
+
+        underTest.load(Collections.singletonList(doctor.getId()), H10, H10 + HourBitmap.HOUR_IN_SECONDS);
+        underTest.load(Collections.singletonList(doctor.getId()), H10, H10 + HourBitmap.HOUR_IN_SECONDS);
+
+        assertTrue(underTest.isKnownBusy(doctor.getId(), H10));
+        assertFalse(underTest.isKnownBusy(doctor.getId(), H10 + HourBitmap.HOUR_IN_SECONDS));
+        verify(visitRepository, times(1)).findTimesOfDoctorsBetween(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void load_whenVisitIsRemovedWhileQueryIsRunning_dropsTheStaleReadAndLoadsAgainNextTime() {
+        Visit visit = new VisitBuilder().doctor(doctor).epoch(H10).build();
+        underTest.register(visit);
+        // the query reads the visit, then the visit is deleted (or its hold expires) before the read is applied
+        when(visitRepository.findTimesOfDoctorsBetween(any(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            underTest.unregister(visit);
+            return List.of(new VisitTime(doctor.getId(), 2L, H10, HourBitmap.HOUR_IN_SECONDS));
+        });
+
+        underTest.load(Collections.singletonList(doctor.getId()), H10, H10 + HourBitmap.HOUR_IN_SECONDS);
+
+        assertFalse(underTest.isKnownBusy(doctor.getId(), H10));
+
+        when(visitRepository.findTimesOfDoctorsBetween(any(), anyLong(), anyLong())).thenReturn(Collections.emptyList());
+        underTest.load(Collections.singletonList(doctor.getId()), H10, H10 + HourBitmap.HOUR_IN_SECONDS);
+        underTest.load(Collections.singletonList(doctor.getId()), H10, H10 + HourBitmap.HOUR_IN_SECONDS);
+
+        assertFalse(underTest.isKnownBusy(doctor.getId(), H10));
+        verify(visitRepository, times(2)).findTimesOfDoctorsBetween(any(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,101 @@
+package pl.baranowski.dev.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.model.AttributeCriteria;
+import pl.baranowski.dev.model.DoctorAttribute;
+import pl.baranowski.dev.repository.DoctorRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DoctorAttributeIndexTest {
+    private final AnimalType CAT = new AnimalType(1L, "Cat");
+    private final AnimalType DOG = new AnimalType(2L, "Dog");
+    private final MedSpecialty SURGEON = new MedSpecialty(11L, "Surgeon");
+    private final MedSpecialty DENTIST = new MedSpecialty(12L, "Dentist");
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final DoctorAttributeIndex underTest = new DoctorAttributeIndex(doctorRepository);
+
+    @BeforeEach
+    void setUp() {
+        // doctor 100: cats, surgeon; doctor 101: cats and dogs, surgeon and dentist; doctor 102: cats, surgeon, fired
+        when(doctorRepository.findIdsByActive(true)).thenReturn(List.of(100L, 101L));
+        when(doctorRepository.findAnimalTypeIds()).thenReturn(List.of(new DoctorAttribute(100L, 1L),
+                                                                      new DoctorAttribute(101L, 1L),
+                                                                      new DoctorAttribute(101L, 2L),
+                                                                      new DoctorAttribute(102L, 1L)));
+        when(doctorRepository.findMedSpecialtyIds()).thenReturn(List.of(new DoctorAttribute(100L, 11L),
+                                                                        new DoctorAttribute(101L, 11L),
+                                                                        new DoctorAttribute(101L, 12L),
+                                                                        new DoctorAttribute(102L, 11L)));
+    }
+
+    @Test
+    void findActive_returnsActiveDoctorsHavingBothAttributes() {
+        assertEquals(List.of(100L, 101L), underTest.findActive(CAT.getId(), SURGEON.getId()));
+        assertEquals(List.of(101L), underTest.findActive(DOG.getId(), DENTIST.getId()));
+        assertEquals(Collections.emptyList(), underTest.findActive(DOG.getId(), 13L));
+        verify(doctorRepository, times(1)).findAnimalTypeIds();
+    }
+
+    @Test
+    void findActive_withCriteria_ORsAnyOf_andANDsAllOf() {
+        assertEquals(List.of(100L, 101L), underTest.findActive(new AttributeCriteria(List.of(1L, 2L), List.of()),
+                                                               new AttributeCriteria(List.of(11L, 13L), List.of())));
+        assertEquals(List.of(101L), underTest.findActive(new AttributeCriteria(List.of(1L, 2L), List.of()),
+                                                         new AttributeCriteria(List.of(), List.of(11L, 12L))));
+        assertEquals(Collections.emptyList(), underTest.findActive(new AttributeCriteria(List.of(), List.of(1L, 3L)),
+                                                                   new AttributeCriteria(List.of(11L), List.of())));
+    }
+
+    @Test
+    void put_replacesEverythingKnownAboutDoctor() {
+        underTest.findActive(CAT.getId(), SURGEON.getId());
+
+        underTest.put(doctor(100L, true, Set.of(DOG), Set.of(DENTIST)));
+        underTest.put(doctor(101L, false, Set.of(CAT, DOG), Set.of(SURGEON, DENTIST)));
+        underTest.put(doctor(103L, true, Set.of(CAT), Set.of(SURGEON)));
+
+        assertEquals(List.of(103L), underTest.findActive(CAT.getId(), SURGEON.getId()));
+        assertEquals(List.of(100L), underTest.findActive(DOG.getId(), DENTIST.getId()));
+    }
+
+    @Test
+    void remove_dropsDoctorFromEveryBitmap() {
+        underTest.findActive(CAT.getId(), SURGEON.getId());
+
+        underTest.remove(100L);
+
+        assertEquals(List.of(101L), underTest.findActive(CAT.getId(), SURGEON.getId()));
+    }
+
+    @Test
+    void invalidate_loadsIndexAgainWithNextSearch_andChangesBeforeLoadAreLeftToIt() {
+        underTest.put(doctor(103L, true, Set.of(CAT), Set.of(SURGEON)));
+        assertEquals(List.of(100L, 101L), underTest.findActive(CAT.getId(), SURGEON.getId()));
+
+        when(doctorRepository.findIdsByActive(true)).thenReturn(List.of(101L));
+        underTest.invalidate();
+
+        assertEquals(List.of(101L), underTest.findActive(CAT.getId(), SURGEON.getId()));
+        verify(doctorRepository, times(2)).findAnimalTypeIds();
+    }
+
+    private Doctor doctor(Long id, boolean active, Set<AnimalType> animalTypes, Set<MedSpecialty> medSpecialties) {
+        return new DoctorBuilder().id(id).name("N").surname("S").active(active)
+                                  .animalTypes(animalTypes).medSpecialties(medSpecialties).build();
+    }
+}
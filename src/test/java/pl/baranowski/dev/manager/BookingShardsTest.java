@@ -0,0 +1,99 @@
+package pl.baranowski.dev.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.dto.BookingShardStatsDTO;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingShardsTest {
+    private BookingShards bookingShards;
+
+    @AfterEach
+    void tearDown() {
+        bookingShards.shutdown();
+    }
+
+    @Test
+    void submit_runsTasksOfOneDoctorOneAfterAnother_onOneThread() throws Exception {
+        bookingShards = new BookingShards(4, 100, 1);
+        AtomicInteger running = new AtomicInteger();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(bookingShards.submit(7L, () -> {
+                assertEquals(1, running.incrementAndGet());
+                Thread.sleep(1);
+                running.decrementAndGet();
+                return Thread.currentThread().getName();
+            }));
+        }
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("booking-shard-" + bookingShards.shardOf(7L), result.get(10, TimeUnit.SECONDS));
+        }
+        BookingShardStatsDTO stats = bookingShards.stats().get(bookingShards.shardOf(7L));
+        assertEquals(50, stats.getSubmitted());
+        assertEquals(50, stats.getCompleted());
+        assertEquals(0, stats.getFailed());
+    }
+
+    @Test
+    void submit_completesFutureWithExceptionOfTask() throws Exception {
+        bookingShards = new BookingShards(2, 10, 1);
+        CompletableFuture<Object> result = bookingShards.submit(1L, () -> {
+            throw new IllegalStateException("busy");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(1, bookingShards.stats().get(bookingShards.shardOf(1L)).getFailed());
+    }
+
+    @Test
+    void submit_whenFutureIsCancelledWhileQueued_doesNotRunTask() throws Exception {
+        bookingShards = new BookingShards(1, 10, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        bookingShards.submit(1L, () -> release.await(10, TimeUnit.SECONDS));
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> cancelled = bookingShards.submit(1L, runs::incrementAndGet);
+
+        cancelled.cancel(false);
+        release.countDown();
+
+        assertEquals(0, bookingShards.submit(1L, runs::get).get(10, TimeUnit.SECONDS));
+        assertEquals(1, bookingShards.stats().get(0).getFailed());
+    }
+
+    @Test
+    void submit_whenQueueIsFull_rejectsAtOnce_andOtherShardsStillAccept() throws Exception {
+        bookingShards = new BookingShards(2, 1, 5);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        bookingShards.submit(0L, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Integer> queued = bookingShards.submit(2L, () -> 2);
+
+        BookingQueueFullException e = assertThrows(BookingQueueFullException.class, () -> bookingShards.submit(4L, () -> 4));
+        assertEquals(5, e.getRetryAfterSeconds());
+        assertEquals(1, bookingShards.submit(1L, () -> 1).get(10, TimeUnit.SECONDS));
+
+        BookingShardStatsDTO stats = bookingShards.stats().get(0);
+        assertEquals(1, stats.getQueued());
+        assertEquals(1, stats.getRejected());
+        assertEquals(2, stats.getSubmitted());
+        release.countDown();
+        assertEquals(2, queued.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -1,9 +1,69 @@
 package pl.baranowski.dev.manager;
 
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.model.BookingResult;
+import pl.baranowski.dev.model.VisitRequest;
+import pl.baranowski.dev.model.VisitTime;
+import pl.baranowski.dev.repository.VisitRepository;
 import pl.baranowski.dev.service.DoctorService;
+import pl.baranowski.dev.service.PatientService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class ReceptionTest {
     //TODO pytanie: czy mockować DoctorService i PatientService, czy wstrzyknąć interfejsy z implementacją potrzebną do testów?
-}
\ No newline at end of file
+    private static final long WEEK = 7 * 24 * 3600;
+    private final long mondayH10Y2100 = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 10, 0, 0), ZoneId.systemDefault()).toEpochSecond();
+
+    private final DoctorService doctorService = mock(DoctorService.class);
+    private final PatientService patientService = mock(PatientService.class);
+    private final VisitRepository visitRepository = mock(VisitRepository.class);
+    private final Reception underTest = new Reception(doctorService, patientService, visitRepository);
+
+    @Test
+    void createNewVisitsIfPossible_whenSlotsAreWeeksApart_readsVisitsAroundEachSlotOnly() {
+        AnimalType cat = new AnimalType(1L, "Cat");
+        Doctor doctor = new DoctorBuilder().id(1L).name("Jan").surname("Kot").nip("1111111111").hourlyRate(new BigDecimal(100)).build();
+        doctor.addAnimalType(cat);
+        Patient patient = new Patient(2L, "Mruczek", cat, 3, "Ala", "ala@kot.pl");
+        when(doctorService.getEntities(any())).thenReturn(Map.of(1L, doctor));
+        when(patientService.getEntities(any())).thenReturn(Map.of(2L, patient));
+        when(visitRepository.findTimesOfDoctorsBetween(any(), anyLong(), anyLong())).thenReturn(Collections.emptyList());
+        when(visitRepository.findTimesOfDoctorsBetween(Set.of(1L), mondayH10Y2100 + WEEK, mondayH10Y2100 + WEEK + 3600))
+                .thenReturn(List.of(new VisitTime(1L, 3L, mondayH10Y2100 + WEEK, 3600)));
+        List<VisitRequest> requests = List.of(new VisitRequest(1L, 2L, mondayH10Y2100 + 2 * WEEK),
+                                              new VisitRequest(1L, 2L, mondayH10Y2100),
+                                              new VisitRequest(1L, 2L, mondayH10Y2100 + WEEK));
+
+        List<BookingResult> results = underTest.createNewVisitsIfPossible(requests);
+
+        assertTrue(results.get(0).isAccepted());
+        assertTrue(results.get(1).isAccepted());
+        assertFalse(results.get(2).isAccepted());
+        for (int week = 0; week < 3; week++) {
+            long slot = mondayH10Y2100 + week * WEEK;
+            verify(visitRepository).findTimesOfDoctorsBetween(Set.of(1L), slot, slot + 3600);
+            verify(visitRepository).findTimesOfPatientsBetween(Set.of(2L), slot, slot + 3600);
+        }
+        verify(visitRepository, times(3)).findTimesOfDoctorsBetween(any(), anyLong(), anyLong());
+    }
+}
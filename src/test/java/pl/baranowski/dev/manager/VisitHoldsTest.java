@@ -0,0 +1,37 @@
+package pl.baranowski.dev.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitHoldsTest {
+    private final VisitHolds visitHolds = new VisitHolds(10, 16);
+
+    @AfterEach
+    void tearDown() {
+        visitHolds.shutdown();
+    }
+
+    @Test
+    void tick_whenExpiryHandlerFailsOnce_retriesTheHold() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch expired = new CountDownLatch(1);
+        visitHolds.setExpiryHandler(visitId -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("lock timeout");
+            }
+            expired.countDown();
+        });
+
+        visitHolds.hold(1L, System.currentTimeMillis());
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertEquals(0, visitHolds.size());
+    }
+}
@@ -4,12 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,6 +77,65 @@ class AvailableSlotsFinderTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	void find_whenBusyHoursGiven_usesThemInsteadOfDoctorsVisits() throws InvalidEpochTimeException {
+		//given
+		timeRange = new EpochFutureTimeRange(MONDAY_10, MONDAY_13);
+		HourBitmap busyHours = new HourBitmap();
+		busyHours.markSeconds(MONDAY_12, MONDAY_12 + 3600);
+		underTest = new AvailableSlotsFinder(Arrays.asList(neurologist), timeRange, doctor -> busyHours);
+		//when
+		List<DoctorsFreeSlots> actual = underTest.find();
+		//then
+		assertEquals(Arrays.asList(new DoctorsFreeSlots(neurologist, Arrays.asList(MONDAY_10, MONDAY_11, MONDAY_13))), actual);
+	}
+
+	@Test
+	void find_withPool_returnsSameResultInSameOrder() throws InvalidEpochTimeException {
+		//given
+		for (int i = 0; i < 40; i++) {
+			Doctor doctor = new DoctorBuilder().name("Doc" + i).surname("Tor").nip("1181328620").hourlyRate(new BigDecimal(100)).build();
+			doctor.addVisit(new VisitBuilder().doctor(doctor).patient(patient).epoch(MONDAY_10 + (i % 4) * 3600).build());
+			doctors.add(doctor);
+		}
+		timeRange = new EpochFutureTimeRange(MONDAY_10, MONDAY_13);
+		underTest = new AvailableSlotsFinder(doctors, timeRange);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		//when
+		List<DoctorsFreeSlots> actual = underTest.find(pool, 3);
+		pool.shutdown();
+		//then
+		assertEquals(underTest.find(), actual);
+	}
+
+	@Test
+	void findRanges_mergesConsecutiveFreeHours() throws InvalidEpochTimeException {
+		//given
+		timeRange = new EpochFutureTimeRange(MONDAY_10, MONDAY_10 + 24 * 3600);
+		underTest = new AvailableSlotsFinder(Arrays.asList(neurologist), timeRange);
+		//when
+		List<DoctorsFreeRanges> actual = underTest.findRanges();
+		//then
+		List<EpochRange> expectedRanges = Arrays.asList(new EpochRange(MONDAY_10, MONDAY_11),
+														new EpochRange(MONDAY_13, MONDAY_10 + 6 * 3600),
+														new EpochRange(MONDAY_10 + 23 * 3600, MONDAY_10 + 25 * 3600));
+		assertEquals(Arrays.asList(new DoctorsFreeRanges(neurologist, expectedRanges)), actual);
+	}
+
+	@Test
+	void findRanges_whenFreeTimeSpansManyWords_returnsOneRange() throws InvalidEpochTimeException {
+		//given
+		Doctor alwaysWorking = new DoctorBuilder().name("Always").surname("Working").nip("1181328620").hourlyRate(new BigDecimal(100))
+				.workingDays(Arrays.asList(DayOfWeek.values())).worksFromHour(0).worksTillHour(24).build();
+		timeRange = new EpochFutureTimeRange(MONDAY_10, MONDAY_10 + 300 * 3600);
+		underTest = new AvailableSlotsFinder(Arrays.asList(alwaysWorking), timeRange);
+		//when
+		List<DoctorsFreeRanges> actual = underTest.findRanges();
+		//then
+		List<EpochRange> expectedRanges = Arrays.asList(new EpochRange(MONDAY_10, MONDAY_10 + 301 * 3600));
+		assertEquals(Arrays.asList(new DoctorsFreeRanges(alwaysWorking, expectedRanges)), actual);
+	}
+
 	@Test
 	void topHoursBetween_validInput() throws InvalidEpochTimeException {
 		underTest = new AvailableSlotsFinder(doctors, timeRange);
@@ -0,0 +1,72 @@
+package pl.baranowski.dev.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+    private final long START = 1_000_000L;
+
+    @Test
+    void advance_returnsItemsOnlyOnceTheyAreDue() {
+        HashedTimingWheel<Long> underTest = new HashedTimingWheel<>(100, 8, START);
+        underTest.schedule(1L, START + 250);
+        underTest.schedule(2L, START + 400);
+
+        // deadlines are rounded up to a whole tick
+        assertEquals(Collections.emptyList(), underTest.advance(START + 250));
+        assertEquals(Collections.singletonList(1L), underTest.advance(START + 300));
+        assertEquals(Collections.singletonList(2L), underTest.advance(START + 450));
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    void advance_whenDeadlineIsMoreThanOneRoundAhead_keepsItemForLaterRounds() {
+        HashedTimingWheel<String> underTest = new HashedTimingWheel<>(100, 8, START);
+        underTest.schedule("late", START + 2500); // 25 ticks, more than three rounds
+
+        for (long now = START + 100; now < START + 2500; now += 100) {
+            assertEquals(Collections.emptyList(), underTest.advance(now));
+        }
+        assertEquals(Collections.singletonList("late"), underTest.advance(START + 2500));
+    }
+
+    @Test
+    void advance_afterPauseLongerThanRound_returnsEveryDueItem() {
+        HashedTimingWheel<Long> underTest = new HashedTimingWheel<>(100, 4, START);
+        for (long i = 1; i <= 10; i++) {
+            underTest.schedule(i, START + i * 100);
+        }
+        underTest.schedule(99L, START + 5000);
+
+        assertEquals(10, underTest.advance(START + 3000).size());
+        assertEquals(1, underTest.size());
+    }
+
+    @Test
+    void cancel_andSchedule_moveOrRemoveItem() {
+        HashedTimingWheel<Long> underTest = new HashedTimingWheel<>(100, 8, START);
+        underTest.schedule(1L, START + 100);
+        underTest.schedule(2L, START + 100);
+        underTest.schedule(2L, START + 500);
+
+        assertTrue(underTest.cancel(1L));
+        assertFalse(underTest.cancel(1L));
+        assertEquals(Collections.emptyList(), underTest.advance(START + 400));
+        assertEquals(Arrays.asList(2L), underTest.advance(START + 500));
+    }
+
+    @Test
+    void schedule_whenDeadlineHasPassed_itemIsDueOnNextTick() {
+        HashedTimingWheel<Long> underTest = new HashedTimingWheel<>(100, 8, START);
+        underTest.advance(START + 1000);
+        underTest.schedule(1L, START);
+
+        assertEquals(Collections.singletonList(1L), underTest.advance(START + 1100));
+    }
+}
@@ -0,0 +1,48 @@
+package pl.baranowski.dev.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HourBitmapTest {
+    private final long MONDAY_10 = 1894010400L;
+    private final long HOUR = HourBitmap.HOUR_IN_SECONDS;
+
+    @Test
+    void markSeconds_setsEveryOverlappedHour() {
+        HourBitmap underTest = new HourBitmap();
+        underTest.markSeconds(MONDAY_10 + 1800, MONDAY_10 + 2 * HOUR + 1);
+
+        long hour = HourBitmap.hourOf(MONDAY_10);
+        assertFalse(underTest.get(hour - 1));
+        assertTrue(underTest.get(hour));
+        assertTrue(underTest.get(hour + 1));
+        assertTrue(underTest.get(hour + 2));
+        assertFalse(underTest.get(hour + 3));
+    }
+
+    @Test
+    void clear_unsetsOnlyGivenHour() {
+        HourBitmap underTest = new HourBitmap();
+        long hour = HourBitmap.hourOf(MONDAY_10);
+        underTest.set(hour);
+        underTest.set(hour + 1);
+
+        underTest.clear(hour);
+
+        assertFalse(underTest.get(hour));
+        assertTrue(underTest.get(hour + 1));
+    }
+
+    @Test
+    void word_returnsBitsOfSixtyFourHours_andZeroForUntouchedPages() {
+        HourBitmap underTest = new HourBitmap();
+        long hour = HourBitmap.hourOf(MONDAY_10);
+        underTest.set(hour);
+
+        assertEquals(1L << (hour & 63), underTest.word(hour >> 6));
+        assertEquals(0L, underTest.word((hour >> 6) + 10_000));
+    }
+}
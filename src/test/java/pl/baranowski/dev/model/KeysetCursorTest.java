@@ -0,0 +1,39 @@
+package pl.baranowski.dev.model;
+
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.exception.InvalidParamException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void decode_ofEncoded_givesSameKeys() throws InvalidParamException {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(4_102_444_800L, -7L).encode(), 2);
+
+        assertEquals(4_102_444_800L, decoded.key(0));
+        assertEquals(-7L, decoded.key(1));
+    }
+
+    @Test
+    void decode_whenTokenEmpty_startsBeforeEveryKey() throws InvalidParamException {
+        KeysetCursor decoded = KeysetCursor.decode("", 2);
+
+        assertEquals(Long.MIN_VALUE, decoded.key(0));
+        assertEquals(Long.MIN_VALUE, decoded.key(1));
+    }
+
+    @Test
+    void decode_whenTokenInvalid_throwsInvalidParamException() {
+        String wrongKeyCount = KeysetCursor.of(1L, 2L).encode();
+        String notNumbers = Base64.getUrlEncoder().encodeToString("a:b".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidParamException.class, () -> KeysetCursor.decode(wrongKeyCount, 1));
+        assertThrows(InvalidParamException.class, () -> KeysetCursor.decode(notNumbers, 2));
+        assertThrows(InvalidParamException.class, () -> KeysetCursor.decode("not base64!", 1));
+    }
+}
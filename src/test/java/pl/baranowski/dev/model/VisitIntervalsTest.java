@@ -0,0 +1,48 @@
+package pl.baranowski.dev.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VisitIntervalsTest {
+    private final long MONDAY_10 = 1894010400L;
+    private final long HOUR = 3600;
+
+    @Test
+    void covers_endIsExclusive() {
+        VisitIntervals underTest = new VisitIntervals();
+        underTest.add(MONDAY_10, MONDAY_10 + HOUR);
+
+        assertFalse(underTest.covers(MONDAY_10 - 1));
+        assertTrue(underTest.covers(MONDAY_10));
+        assertTrue(underTest.covers(MONDAY_10 + HOUR - 1));
+        assertFalse(underTest.covers(MONDAY_10 + HOUR));
+    }
+
+    @Test
+    void overlaps_whenEarlierLongIntervalSpansGap_returnsTrue() {
+        VisitIntervals underTest = new VisitIntervals();
+        underTest.add(MONDAY_10 + 5 * HOUR, MONDAY_10 + 6 * HOUR);
+        underTest.add(MONDAY_10, MONDAY_10 + 4 * HOUR);
+        underTest.add(MONDAY_10 + HOUR, MONDAY_10 + 2 * HOUR);
+
+        assertTrue(underTest.overlaps(MONDAY_10 + 3 * HOUR, MONDAY_10 + 3 * HOUR + 60));
+        assertFalse(underTest.overlaps(MONDAY_10 + 4 * HOUR, MONDAY_10 + 5 * HOUR));
+        assertEquals(3, underTest.size());
+    }
+
+    @Test
+    void add_growsBeyondInitialCapacity_andKeepsOrder() {
+        VisitIntervals underTest = new VisitIntervals();
+        for (int i = 20; i > 0; i--) {
+            underTest.add(MONDAY_10 + 2 * i * HOUR, MONDAY_10 + (2 * i + 1) * HOUR);
+        }
+
+        for (int i = 1; i <= 20; i++) {
+            assertTrue(underTest.covers(MONDAY_10 + 2 * i * HOUR));
+            assertFalse(underTest.covers(MONDAY_10 + (2 * i + 1) * HOUR));
+        }
+    }
+}
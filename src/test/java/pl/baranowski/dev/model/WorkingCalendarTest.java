@@ -0,0 +1,53 @@
+package pl.baranowski.dev.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkingCalendarTest {
+    private final List<DayOfWeek> workingDays = Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.SUNDAY);
+
+    @Test
+    void worksAt_matchesZonedDateTime_acrossDstChanges() {
+        assertMatchesZonedDateTime(ZoneId.of("Europe/Warsaw"), LocalDateTime.of(2100, 3, 20, 0, 0));
+        assertMatchesZonedDateTime(ZoneId.of("Europe/Warsaw"), LocalDateTime.of(2100, 10, 23, 0, 0));
+    }
+
+    @Test
+    void worksAt_matchesZonedDateTime_forFixedAndNonHourOffsets() {
+        assertMatchesZonedDateTime(ZoneId.of("UTC"), LocalDateTime.of(2100, 1, 25, 0, 0));
+        assertMatchesZonedDateTime(ZoneId.of("Asia/Kolkata"), LocalDateTime.of(2100, 1, 25, 0, 0));
+    }
+
+    @Test
+    void worksAt_tillHourIsExclusive() {
+        ZoneId zone = ZoneId.of("UTC");
+        WorkingCalendar underTest = new WorkingCalendar(workingDays, 9, 16, zone);
+        long mondayAt9 = ZonedDateTime.of(LocalDateTime.of(2100, 1, 25, 9, 0), zone).toEpochSecond();
+
+        assertFalse(underTest.worksAt(mondayAt9 - 1));
+        assertTrue(underTest.worksAt(mondayAt9));
+        assertTrue(underTest.worksAt(mondayAt9 + 7 * 3600 - 1));
+        assertFalse(underTest.worksAt(mondayAt9 + 7 * 3600));
+    }
+
+    private void assertMatchesZonedDateTime(ZoneId zone, LocalDateTime from) {
+        WorkingCalendar underTest = new WorkingCalendar(workingDays, 9, 16, zone);
+        long start = ZonedDateTime.of(from, zone).toEpochSecond();
+        for (long epoch = start; epoch < start + 14 * 24 * 3600; epoch += 1800) {
+            ZonedDateTime zoned = Instant.ofEpochSecond(epoch).atZone(zone);
+            boolean expected = zoned.getHour() >= 9 && zoned.getHour() < 16 && workingDays.contains(zoned.getDayOfWeek());
+            assertEquals(expected, underTest.worksAt(epoch), "at " + zoned);
+        }
+    }
+}
@@ -5,13 +5,16 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
+import pl.baranowski.dev.configuration.SecondLevelCacheConfig;
 import pl.baranowski.dev.entity.AnimalType;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
+@Import(SecondLevelCacheConfig.class) // cache regions of the entities
 class AnimalTypeRepositoryTest {
     @Autowired
     TestEntityManager entityManager;
@@ -68,6 +68,15 @@ class AnimalTypeServiceTest {
         assertThrows(NotFoundException.class, () -> animalTypeService.findByName("Cat"));
     }
 
+    @Test
+    void findByName_whenAddedAfterLookupOfMissingName_findsNewEntity() throws Exception {
+        assertThrows(NotFoundException.class, () -> animalTypeService.findByName("Birds"));
+
+        AnimalTypeDTO added = animalTypeService.addNew("Birds");
+
+        assertEquals(added, animalTypeService.findByName("Birds"));
+    }
+
     @Test
     void findAll_whenEntitiesExist_returnsListOfDTOs() {
         assertEquals(animals.stream().map(mapper::toDto).collect(Collectors.toList()), animalTypeService.findAll());
@@ -2,6 +2,7 @@ package pl.baranowski.dev.service;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +12,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import pl.baranowski.dev.builder.DoctorBuilder;
 import pl.baranowski.dev.builder.DoctorDTOBuilder;
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.DoctorDTO;
 import pl.baranowski.dev.entity.AnimalType;
 import pl.baranowski.dev.entity.Doctor;
@@ -20,10 +22,12 @@ import pl.baranowski.dev.exception.doctor.DoctorAlreadyExistsException;
 import pl.baranowski.dev.exception.doctor.DoctorDoubledSpecialtyException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
 import pl.baranowski.dev.mapper.DoctorMapper;
+import pl.baranowski.dev.model.KeysetCursor;
 import pl.baranowski.dev.repository.AnimalTypeRepository;
 import pl.baranowski.dev.repository.DoctorRepository;
 import pl.baranowski.dev.repository.MedSpecialtyRepository;
 
+import javax.persistence.EntityManagerFactory;
 import javax.print.Doc;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -32,6 +36,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static pl.baranowski.dev.service.HibernateStatistics.clearedStatistics;
 
 @SpringBootTest
 class DoctorServiceTest {
@@ -45,6 +50,8 @@ class DoctorServiceTest {
     DoctorService doctorService;
     @Autowired
     DoctorMapper doctorMapper;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
     private Doctor mostowiak;
     private List<DoctorDTO> doctorsList;
 
@@ -138,6 +145,22 @@ class DoctorServiceTest {
         assertEquals(expected.getPageable(), result.getPageable());
     }
 
+    @Test
+    void findAfter_pagesThroughAllDoctorsInIdOrder() throws Exception {
+        List<Long> expectedIds = doctorRepository.findAll().stream().map(Doctor::getId).sorted().collect(Collectors.toList());
+        List<Long> resultIds = new ArrayList<>();
+
+        String after = "";
+        do {
+            CursorPageDTO<DoctorDTO> page = doctorService.findAfter(KeysetCursor.decode(after, 1), 2);
+            assertTrue(page.getContent().size() <= 2);
+            page.getContent().forEach(doctor -> resultIds.add(doctor.getId()));
+            after = page.getNext();
+        } while (after != null);
+
+        assertEquals(expectedIds, resultIds);
+    }
+
     @Test
     void findAll_ifNoEntitiesFound_returnsEmptyPage() {
         //given
@@ -198,7 +221,7 @@ class DoctorServiceTest {
         AnimalType cats = animalTypeRepository.save(new AnimalType("Cats"));
         doctorService.addAnimalType(mostowiak.getId(), cats.getId());
 
-        assert (doctorRepository.findById(mostowiak.getId()).get().getAnimalTypes().contains(cats));
+        assert (doctorRepository.findWithSpecialtiesById(mostowiak.getId()).get().getAnimalTypes().contains(cats));
     }
 
     @Test
@@ -240,7 +263,7 @@ class DoctorServiceTest {
 
         doctorService.addMedSpecialty(mostowiak.getId(), medSpecialty.getId());
 
-        assertTrue(doctorRepository.findById(mostowiak.getId()).get().getMedSpecialties().contains(medSpecialty));
+        assertTrue(doctorRepository.findWithSpecialtiesById(mostowiak.getId()).get().getMedSpecialties().contains(medSpecialty));
     }
 
     @Test
@@ -323,4 +346,100 @@ class DoctorServiceTest {
         //then
         assertEquals(0, result.size());
     }
+
+    @Test
+    void findByAnimalTypeNameAndMedSpecialtyName_whenRepeated_isServedFromSecondLevelCache_untilDoctorsChange() throws NotFoundException {
+        AnimalType cats = animalTypeRepository.save(new AnimalType("Cats"));
+        MedSpecialty urologist = medSpecialtyRepository.save(new MedSpecialty("Urologist"));
+        doctorRepository.save(new DoctorBuilder().name("Jack")
+                                                 .surname("Sparrow")
+                                                 .animalTypes(Collections.singleton(cats))
+                                                 .medSpecialties(Collections.singleton(urologist))
+                                                 .build());
+        doctorService.findByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName());
+
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+        assertEquals(1, doctorService.findByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName()).size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        doctorRepository.save(new DoctorBuilder().name("Charles")
+                                                 .surname("Leclerc")
+                                                 .animalTypes(Collections.singleton(cats))
+                                                 .medSpecialties(Collections.singleton(urologist))
+                                                 .build());
+        assertEquals(2, doctorService.findByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName()).size());
+    }
+
+    @Test
+    void findByAnimalTypeNameAndMedSpecialtyName_followsNewSpecialtiesAndFiredDoctors() throws Exception {
+        AnimalType cats = animalTypeRepository.save(new AnimalType("Cats"));
+        MedSpecialty urologist = medSpecialtyRepository.save(new MedSpecialty("Urologist"));
+        Doctor catsUro = doctorRepository.save(new DoctorBuilder().name("Jack")
+                                                                  .surname("Sparrow")
+                                                                  .animalTypes(Collections.singleton(cats))
+                                                                  .medSpecialties(Collections.singleton(urologist))
+                                                                  .build());
+        assertEquals(Collections.singletonList(catsUro.getId()),
+                     doctorService.findIdsByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName()));
+
+        doctorService.addAnimalType(mostowiak.getId(), cats.getId());
+        doctorService.addMedSpecialty(mostowiak.getId(), urologist.getId());
+        assertEquals(2, doctorService.findByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName()).size());
+
+        doctorService.fire(catsUro.getId());
+        List<Doctor> result = doctorService.findByAnimalTypeNameAndMedSpecialtyName(cats.getName(), urologist.getName());
+        assertEquals(1, result.size());
+        assertEquals(mostowiak.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void getETag_changesWhenDoctorOrItsSpecialtiesChange() throws Exception {
+        String before = doctorService.getETag(mostowiak.getId());
+        assertEquals(before, doctorService.getETag(mostowiak.getId()));
+
+        MedSpecialty dentist = medSpecialtyRepository.save(new MedSpecialty("Dentist"));
+        doctorService.addMedSpecialty(mostowiak.getId(), dentist.getId());
+        String afterNewSpecialty = doctorService.getETag(mostowiak.getId());
+        assertNotEquals(before, afterNewSpecialty);
+
+        doctorService.fire(mostowiak.getId());
+        assertNotEquals(afterNewSpecialty, doctorService.getETag(mostowiak.getId()));
+    }
+
+    @Test
+    void getPageETag_changesWhenDoctorIsAddedOnAnotherPage() {
+        PageRequest firstPage = PageRequest.of(0, 2);
+        String before = doctorService.getPageETag(firstPage);
+        assertEquals(before, doctorService.getPageETag(firstPage));
+
+        doctorRepository.save(new DoctorBuilder().name("Zbigniew")
+                                                 .surname("Religa")
+                                                 .hourlyRate(new BigDecimal(200))
+                                                 .nip("6665554443")
+                                                 .build());
+
+        assertNotEquals(before, doctorService.getPageETag(firstPage));
+    }
+
+    @Test
+    void getDTO_loadsDoctorWithSpecialtiesInOneStatement() throws NotFoundException {
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+
+        doctorService.getDTO(mostowiak.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAll_statementCountDoesNotDependOnPageSize() {
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+        doctorService.findAll(PageRequest.of(0, 1));
+        long forOneDoctor = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        doctorService.findAll(PageRequest.of(0, 4));
+
+        assertEquals(forOneDoctor, statistics.getPrepareStatementCount());
+    }
 }
@@ -0,0 +1,19 @@
+package pl.baranowski.dev.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+
+final class HibernateStatistics {
+
+    private HibernateStatistics() {
+    }
+
+    static Statistics clearedStatistics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+}
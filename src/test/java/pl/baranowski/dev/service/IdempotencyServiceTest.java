@@ -0,0 +1,28 @@
+package pl.baranowski.dev.service;
+
+import org.junit.jupiter.api.Test;
+import pl.baranowski.dev.cache.InMemoryIdempotencyStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+    private final IdempotencyService underTest = new IdempotencyService(new InMemoryIdempotencyStore(10, 60_000, System::currentTimeMillis));
+
+    @Test
+    void execute_whenRequestThrowsError_releasesKey_soRetryRunsAgain() throws Exception {
+        assertThrows(StackOverflowError.class, () -> underTest.execute("key", "a", () -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals("result", underTest.execute("key", "a", () -> "result"));
+    }
+
+    @Test
+    void execute_whenRequestSucceeded_replaysResult_withoutRunningAgain() throws Exception {
+        underTest.execute("key", "a", () -> "result");
+
+        assertEquals("result", underTest.execute("key", "a", () -> {
+            throw new IllegalStateException("run again");
+        }));
+    }
+}
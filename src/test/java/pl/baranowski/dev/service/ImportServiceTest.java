@@ -0,0 +1,168 @@
+package pl.baranowski.dev.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.baranowski.dev.builder.DoctorBuilder;
+import pl.baranowski.dev.dto.ImportRejectDTO;
+import pl.baranowski.dev.dto.ImportReportDTO;
+import pl.baranowski.dev.entity.AnimalType;
+import pl.baranowski.dev.entity.Doctor;
+import pl.baranowski.dev.entity.MedSpecialty;
+import pl.baranowski.dev.entity.Patient;
+import pl.baranowski.dev.model.ImportFormat;
+import pl.baranowski.dev.repository.AnimalTypeRepository;
+import pl.baranowski.dev.repository.DoctorRepository;
+import pl.baranowski.dev.repository.MedSpecialtyRepository;
+import pl.baranowski.dev.repository.PatientRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ImportServiceTest {
+    @Autowired
+    ImportService importService;
+    @Autowired
+    DoctorRepository doctorRepository;
+    @Autowired
+    PatientRepository patientRepository;
+    @Autowired
+    AnimalTypeRepository animalTypeRepository;
+    @Autowired
+    MedSpecialtyRepository medSpecialtyRepository;
+    private AnimalType dog;
+
+    @BeforeEach
+    void setUp() {
+        dog = animalTypeRepository.save(new AnimalType("Dog"));
+        animalTypeRepository.save(new AnimalType("Cat"));
+        medSpecialtyRepository.save(new MedSpecialty("Surgeon"));
+        doctorRepository.save(new DoctorBuilder().name("Existing")
+                                                 .surname("Doctor")
+                                                 .nip("1111111111")
+                                                 .hourlyRate(new BigDecimal(100))
+                                                 .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+        medSpecialtyRepository.deleteAll();
+        animalTypeRepository.deleteAll();
+    }
+
+    @Test
+    void importDoctors_fromCsv_savesValidRowsAndReportsRejects() throws IOException {
+        String csv = "name,surname,hourlyRate,nip,animalTypes,medSpecialties\n"
+                + "Anna,Nowak,120,1181328620,Dog|Cat,Surgeon\n"
+                + "\"Jan, Jr.\",Kowalski,80.5,5270001242,Cat,\n"
+                + "Maria,Wójcik,90,1181328620,Dog,Surgeon\n" // same NIP as the first row
+                + "Piotr,Zieliński,90,1111111111,Dog,\n" // NIP in the database
+                + "Paweł,Lewandowski,90,1234563218,Horse,\n"
+                + "Tomasz,Kamiński,-1,7770001111,Dog,\n"
+                + "Marta,Kowalczyk,100\n";
+
+        ImportReportDTO result = importService.importDoctors(stream(csv), ImportFormat.CSV);
+
+        assertEquals(7, result.getRows());
+        assertEquals(2, result.getImportedRows());
+        assertEquals(5, result.getRejectedRows());
+        assertEquals(Arrays.asList(4, 5, 6, 7, 8),
+                     result.getRejects().stream().map(ImportRejectDTO::getLine).sorted().collect(Collectors.toList()));
+        assertTrue(result.getRejects().contains(new ImportRejectDTO(6, "Animal type with name 'Horse' has not been found.")));
+
+        Doctor anna = doctorRepository.findByNip("1181328620").get(0);
+        Doctor saved = doctorRepository.findWithDetailsById(anna.getId()).get();
+        assertEquals(2, saved.getAnimalTypes().size());
+        assertEquals(1, saved.getMedSpecialties().size());
+        assertEquals("Jan, Jr.", doctorRepository.findByNip("5270001242").get(0).getName());
+        assertEquals(3, doctorRepository.count());
+    }
+
+    @Test
+    void importPatients_fromNdjson_rejectsDuplicatesIgnoringCase() throws IOException {
+        patientRepository.save(new Patient("Rex", dog, 5, "Jan Kowalski", "jan@kowalski.pl"));
+        String ndjson = "{\"name\":\"REX\",\"age\":\"5\",\"animalTypeName\":\"Dog\",\"ownerName\":\"jan kowalski\",\"ownerEmail\":\"JAN@kowalski.pl\"}\n"
+                + "{\"name\":\"Luna\",\"age\":\"3\",\"animalTypeName\":\"Cat\",\"ownerName\":\"Anna Nowak\",\"ownerEmail\":\"anna@nowak.pl\"}\n"
+                + "\n"
+                + "{\"name\":\"luna\",\"age\":\"3\",\"animalTypeName\":\"Cat\",\"ownerName\":\"Anna Nowak\",\"ownerEmail\":\"anna@nowak.pl\"}\n"
+                + "{\"name\":\"Max\",\"age\":\"3\",\"animalTypeName\":\"Cat\",\"ownerName\":\"Anna Nowak\",\"ownerEmail\":\"not-an-email\"}\n"
+                + "{\"name\":\"Burek\"\n"
+                + "{\"name\":\"Azor\",\"animalTypeName\":\"Dog\",\"ownerName\":\"Anna Nowak\",\"ownerEmail\":\"anna@nowak.pl\"}\n";
+
+        ImportReportDTO result = importService.importPatients(stream(ndjson), ImportFormat.NDJSON);
+
+        assertEquals(6, result.getRows());
+        assertEquals(1, result.getImportedRows());
+        assertEquals(Arrays.asList(1, 4, 5, 6, 7),
+                     result.getRejects().stream().map(ImportRejectDTO::getLine).sorted().collect(Collectors.toList()));
+        assertTrue(result.getRejects().contains(new ImportRejectDTO(5, "Invalid e-mail format.")));
+        assertEquals(2, patientRepository.count());
+    }
+
+    @Test
+    void importPatients_whenInputIsLongerThanChunk_findsDuplicatesOfEarlierChunks() throws IOException {
+        int rows = ImportService.CHUNK_SIZE + 10;
+        StringBuilder csv = new StringBuilder("name,age,animalTypeName,ownerName,ownerEmail\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Pet").append(i).append(",1,Dog,Owner,owner").append(i).append("@vet.pl\n");
+        }
+        csv.append("PET0,1,dog,OWNER,owner0@vet.pl\n"); // animal type names are case sensitive, as in PatientService.addNew(...)
+        csv.append("PET0,1,Dog,OWNER,OWNER0@vet.pl\n");
+
+        ImportReportDTO result = importService.importPatients(stream(csv.toString()), ImportFormat.CSV);
+
+        assertEquals(rows + 2, result.getRows());
+        assertEquals(rows, result.getImportedRows());
+        assertEquals(Arrays.asList(rows + 2, rows + 3),
+                     result.getRejects().stream().map(ImportRejectDTO::getLine).collect(Collectors.toList()));
+        assertEquals(rows, patientRepository.count());
+    }
+
+    @Test
+    void importPatients_whenDatabaseRefusesRowOfLaterChunk_rejectsOnlyThatRow() throws IOException {
+        int rows = ImportService.CHUNK_SIZE + 10;
+        StringBuilder csv = new StringBuilder("name,age,animalTypeName,ownerName,ownerEmail\n");
+        for (int i = 0; i < rows; i++) {
+            // longer than the name column, which validation does not know about
+            String name = i == ImportService.CHUNK_SIZE + 5 ? "Pet".repeat(100) : "Pet" + i;
+            csv.append(name).append(",1,Dog,Owner,owner").append(i).append("@vet.pl\n");
+        }
+
+        ImportReportDTO result = importService.importPatients(stream(csv.toString()), ImportFormat.CSV);
+
+        assertEquals(rows, result.getRows());
+        assertEquals(rows - 1, result.getImportedRows());
+        assertEquals(1, result.getRejectedRows());
+        assertEquals(Collections.singletonList(new ImportRejectDTO(ImportService.CHUNK_SIZE + 7, "Row has been refused by the database.")),
+                     result.getRejects());
+        assertEquals(rows - 1, patientRepository.count());
+    }
+
+    @Test
+    void importDoctors_whenInputIsEmpty_returnsEmptyReport() throws IOException {
+        ImportReportDTO result = importService.importDoctors(stream(""), ImportFormat.CSV);
+
+        assertEquals(0, result.getRows());
+        assertEquals(Collections.emptyList(), result.getRejects());
+        List<Doctor> doctors = doctorRepository.findAll();
+        assertEquals(1, doctors.size());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
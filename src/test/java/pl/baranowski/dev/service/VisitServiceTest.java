@@ -2,6 +2,7 @@ package pl.baranowski.dev.service;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -9,27 +10,58 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.baranowski.dev.builder.DoctorBuilder;
 import pl.baranowski.dev.builder.VisitBuilder;
+import pl.baranowski.dev.cache.SlotSearchCache;
+import pl.baranowski.dev.configuration.BookingShardsProperties;
+import pl.baranowski.dev.configuration.VisitHoldsProperties;
+import pl.baranowski.dev.dto.AnimalTypeDTO;
+import pl.baranowski.dev.dto.BookingResultDTO;
+import pl.baranowski.dev.dto.CursorPageDTO;
 import pl.baranowski.dev.dto.DoctorsFreeSlotsDTO;
+import pl.baranowski.dev.dto.MedSpecialtyDTO;
+import pl.baranowski.dev.dto.NameCriteriaDTO;
 import pl.baranowski.dev.dto.VisitDTO;
 import pl.baranowski.dev.entity.*;
 import pl.baranowski.dev.exception.NotFoundException;
 import pl.baranowski.dev.exception.doctor.DoctorNotActiveException;
 import pl.baranowski.dev.exception.epoch.InvalidEpochTimeException;
+import pl.baranowski.dev.exception.search.SearchRequestInvalidException;
+import pl.baranowski.dev.exception.visit.BookingQueueFullException;
+import pl.baranowski.dev.exception.visit.HoldExpiredException;
 import pl.baranowski.dev.exception.visit.NewVisitNotPossibleException;
+import pl.baranowski.dev.index.AvailabilityIndex;
+import pl.baranowski.dev.manager.BookingShards;
 import pl.baranowski.dev.mapper.VisitMapper;
+import pl.baranowski.dev.model.KeysetCursor;
+import pl.baranowski.dev.model.VisitRequest;
 import pl.baranowski.dev.repository.*;
 
+import javax.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static pl.baranowski.dev.service.HibernateStatistics.clearedStatistics;
 
 
 @SpringBootTest
@@ -51,7 +83,25 @@ class VisitServiceTest {
     @Autowired
     VisitService visitService;
     @Autowired
+    DoctorService doctorService;
+    @Autowired
+    SlotSearchCache slotSearchCache;
+    @Autowired
     VisitMapper mapper;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    AvailabilityIndex availabilityIndex;
+    @Autowired
+    BookingShards bookingShards;
+    @Autowired
+    BookingShardsProperties bookingShardsProperties;
+    @Autowired
+    VisitHoldsProperties visitHoldsProperties;
     private AnimalType animalType;
     private MedSpecialty medSpecialty;
     private Doctor doctor;
@@ -110,7 +160,7 @@ class VisitServiceTest {
     @Test
     void findAll_whenValidParams_returnsPageOfDTOs() {
         Pageable pageable = PageRequest.of(0, 5);
-        List<VisitDTO> visitDTOs = visitRepository.findAll().stream().map(mapper::toDto).collect(Collectors.toList());
+        List<VisitDTO> visitDTOs = transactionTemplate.execute(status -> visitRepository.findAll().stream().map(mapper::toDto).collect(Collectors.toList()));
         Page<VisitDTO> expectedPage = new PageImpl<>(visitDTOs, pageable, visitDTOs.size());
 
         Page<VisitDTO> resultPage = visitService.findAll(pageable);
@@ -136,6 +186,22 @@ class VisitServiceTest {
     }
 
 
+    @Test
+    void addNew_whenBusyHourOfIndexIsStale_booksTheSlot() throws Exception {
+        long mondayH11Y2100 = MONDAY_H10Y2100 + 3600;
+        Visit deleted = visitRepository.save(new VisitBuilder().doctor(doctor).patient(patient).epoch(mondayH11Y2100).build());
+        // deleted around JPA, so the index is not told, as with a delete racing a load of busy hours
+        jdbcTemplate.update("delete from visit where id = ?", deleted.getId());
+        assertTrue(availabilityIndex.isKnownBusy(doctor.getId(), mondayH11Y2100));
+
+        VisitDTO result = visitService.addNew(doctor.getId(), patient.getId(), mondayH11Y2100);
+
+        assertEquals(mondayH11Y2100, result.getEpoch());
+        assertTrue(availabilityIndex.isKnownBusy(doctor.getId(), mondayH11Y2100));
+        assertThrows(NewVisitNotPossibleException.class,
+                     () -> visitService.addNew(doctor.getId(), patient.getId(), mondayH11Y2100));
+    }
+
     @Test
     void addNew_whenValidParams_returnsDTO() throws Exception {
         //given
@@ -191,6 +257,214 @@ class VisitServiceTest {
                      () -> visitService.addNew(doctorJohn.getId(), patient.getId(), MONDAY_H10Y2100));
     }
 
+    @Test
+    void existsOverlapping_whenLongHistory_findsOnlyVisitsOverlappingGivenRange() {
+        List<Visit> history = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            history.add(new VisitBuilder().doctor(doctor).patient(patient).epoch(MONDAY_H10Y2100 - i * 3600L).build());
+        }
+        visitRepository.saveAll(history);
+        long start = MONDAY_H10Y2100;
+
+        assertTrue(visitRepository.existsOverlappingOfDoctor(doctor.getId(), start, start + 3600));
+        assertTrue(visitRepository.existsOverlappingOfPatient(patient.getId(), start + 1800, start + 5400));
+        // the previous visit ends when the range starts
+        assertFalse(visitRepository.existsOverlappingOfDoctor(doctor.getId(), start + 3600, start + 7200));
+        assertFalse(visitRepository.existsOverlappingOfPatient(patient.getId(), start + 3600, start + 7200));
+        // a visit started before the range and lasting into it
+        assertTrue(visitRepository.existsOverlappingOfDoctor(doctor.getId(), start - 1800, start - 1700));
+    }
+
+    @Test
+    void hold_keepsSlotBusy_untilConfirmed() throws Exception {
+        long mondayH11Y2100 = MONDAY_H10Y2100 + 3600;
+        Patient otherPatient = patientRepository.save(new Patient("Mucha", animalType, 1, "Pająk", "pajak@sld.pl"));
+
+        VisitDTO held = visitService.hold(doctor.getId(), patient.getId(), mondayH11Y2100);
+
+        assertNotNull(held.getHoldExpiresAt());
+        assertThrows(NewVisitNotPossibleException.class,
+                     () -> visitService.addNew(doctor.getId(), otherPatient.getId(), mondayH11Y2100));
+
+        VisitDTO confirmed = visitService.confirm(held.getId());
+
+        assertTrue(confirmed.getConfirmed());
+        assertNull(confirmed.getHoldExpiresAt());
+        assertFalse(visitRepository.findById(held.getId()).get().isHeld());
+    }
+
+    @Test
+    void hold_expiresNoEarlierThanTtl() throws Exception {
+        long earliestExpiryMillis = System.currentTimeMillis() + visitHoldsProperties.getTtl().toMillis();
+
+        VisitDTO held = visitService.hold(doctor.getId(), patient.getId(), MONDAY_H10Y2100 + 3600);
+
+        assertTrue(held.getHoldExpiresAt() * 1000 >= earliestExpiryMillis);
+    }
+
+    @Test
+    void hold_whenExpired_cannotBeConfirmed_andIsRemoved() throws Exception {
+        long expiredSecondAgo = System.currentTimeMillis() / 1000 - 1;
+        Visit expiredHold = visitRepository.save(new VisitBuilder().doctor(doctor)
+                                                                   .patient(patient)
+                                                                   .epoch(MONDAY_H10Y2100 + 3600)
+                                                                   .holdExpiresAt(expiredSecondAgo)
+                                                                   .build());
+
+        assertThrows(HoldExpiredException.class, () -> visitService.confirm(expiredHold.getId()));
+
+        // the hold has been stored without a timer, as after a restart
+        visitService.scheduleStoredHolds();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (visitRepository.existsById(expiredHold.getId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(visitRepository.existsById(expiredHold.getId()));
+        assertTrue(visitRepository.existsById(visit.getId()));
+    }
+
+    @Test
+    void addNew_whenManyRequestsForSameSlotsAtOnce_booksEachSlotOnce() throws Exception {
+        int slots = 4;
+        int requestsPerSlot = 8;
+        long firstSlot = MONDAY_H10Y2100 + 3600;
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < slots * requestsPerSlot; i++) {
+            patients.add(patientRepository.save(new Patient("Mrówka" + i, animalType, 1, "Mrówkojad", "mrowkojad" + i + "@sld.pl")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < patients.size(); i++) {
+            Long patientId = patients.get(i).getId();
+            long epoch = firstSlot + (i % slots) * 3600L;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    visitService.addNew(doctor.getId(), patientId, epoch);
+                    return true;
+                } catch (NewVisitNotPossibleException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int booked = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                booked++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(slots, booked);
+        for (int slot = 0; slot < slots; slot++) {
+            long epoch = firstSlot + slot * 3600L;
+            assertEquals(1, visitRepository.findTimesOfDoctorBetween(doctor.getId(), epoch, epoch + 3600).size());
+        }
+    }
+
+    @Test
+    void addNewAsync_whenManyRequestsForSameSlots_booksEachSlotOnce_onDoctorsShard() throws Exception {
+        int slots = 4;
+        int requestsPerSlot = 8;
+        long firstSlot = MONDAY_H10Y2100 + 3600;
+        List<CompletableFuture<VisitDTO>> results = new ArrayList<>();
+        for (int i = 0; i < slots * requestsPerSlot; i++) {
+            Patient patient = patientRepository.save(new Patient("Mrówka" + i, animalType, 1, "Mrówkojad", "mrowkojad" + i + "@sld.pl"));
+            results.add(visitService.addNewAsync(doctor.getId(), patient.getId(), firstSlot + (i % slots) * 3600L));
+        }
+
+        int booked = 0;
+        for (CompletableFuture<VisitDTO> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+                booked++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NewVisitNotPossibleException);
+            }
+        }
+
+        assertEquals(slots, booked);
+        for (int slot = 0; slot < slots; slot++) {
+            long epoch = firstSlot + slot * 3600L;
+            assertEquals(1, visitRepository.findTimesOfDoctorBetween(doctor.getId(), epoch, epoch + 3600).size());
+        }
+    }
+
+    @Test
+    void addNew_onShards_whenShardDoesNotBookInTime_refusesTheBooking_andDropsIt() throws Exception {
+        long mondayH11Y2100 = MONDAY_H10Y2100 + 3600;
+        Duration awaitTimeout = bookingShardsProperties.getAwaitTimeout();
+        bookingShardsProperties.setEnabled(true);
+        bookingShardsProperties.setAwaitTimeout(Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // a stuck booking ahead on the doctor's shard
+            bookingShards.submit(doctor.getId(), () -> release.await(10, TimeUnit.SECONDS));
+
+            assertThrows(BookingQueueFullException.class,
+                         () -> visitService.addNew(doctor.getId(), patient.getId(), mondayH11Y2100));
+        } finally {
+            release.countDown();
+            bookingShardsProperties.setEnabled(false);
+            bookingShardsProperties.setAwaitTimeout(awaitTimeout);
+        }
+
+        // the refused booking was still queued, so it is never run
+        bookingShards.submit(doctor.getId(), () -> true).get(10, TimeUnit.SECONDS);
+        assertTrue(visitRepository.findTimesOfDoctorBetween(doctor.getId(), mondayH11Y2100, mondayH11Y2100 + 3600).isEmpty());
+    }
+
+    @Test
+    void addNewBatch_whenSomeVisitsNotPossible_savesPossibleOnes_andReportsOthersInOrder() {
+        Patient patientRon = patientRepository.save(new Patient("Ron", animalType, 2, "Harry P.", "i@like.sl"));
+        long mondayH11Y2100 = MONDAY_H10Y2100 + 3600;
+        long mondayH12Y2100 = MONDAY_H10Y2100 + 2 * 3600;
+        List<VisitRequest> requests = Arrays.asList(
+                new VisitRequest(doctor.getId(), patientRon.getId(), MONDAY_H10Y2100), // doctor has a visit already
+                new VisitRequest(doctor.getId(), patientRon.getId(), mondayH11Y2100),
+                new VisitRequest(1234L, patientRon.getId(), mondayH12Y2100), // no such doctor
+                new VisitRequest(doctor.getId(), patient.getId(), mondayH11Y2100), // taken by the second request
+                new VisitRequest(doctor.getId(), patient.getId(), mondayH12Y2100));
+
+        List<BookingResultDTO> results = visitService.addNewBatch(requests);
+
+        assertEquals(5, results.size());
+        assertEquals(HttpStatus.FORBIDDEN, results.get(0).getError().getHttpStatus());
+        assertEquals(mondayH11Y2100, results.get(1).getVisit().getEpoch());
+        assertEquals(HttpStatus.NOT_FOUND, results.get(2).getError().getHttpStatus());
+        assertEquals(HttpStatus.FORBIDDEN, results.get(3).getError().getHttpStatus());
+        assertEquals(patient.getId(), results.get(4).getVisit().getPatient().getId());
+        assertNull(results.get(1).getError());
+        assertNotNull(results.get(1).getVisit().getId());
+        assertNotNull(results.get(4).getVisit().getId());
+        assertEquals(3, visitRepository.count());
+    }
+
+    @Test
+    void addNewBatch_numberOfStatementsDoesNotDependOnBatchSize() {
+        long prepared3 = preparedStatementsOfBatch(3, 7 * 24 * 3600L);
+        long prepared6 = preparedStatementsOfBatch(6, 14 * 24 * 3600L);
+
+        // at most one more call for the next block of visit ids
+        assertTrue(prepared6 <= prepared3 + 1, prepared3 + " statements for 3 visits, " + prepared6 + " for 6 visits");
+    }
+
+    // visits from 10:00 on, working hours end at 16:00
+    private long preparedStatementsOfBatch(int size, long weekOffset) {
+        List<VisitRequest> requests = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Patient newPatient = patientRepository.save(new Patient("Mucha" + i, animalType, 1, "Pająk", "pajak" + i + "@sld.pl"));
+            requests.add(new VisitRequest(doctor.getId(), newPatient.getId(), MONDAY_H10Y2100 + weekOffset + i * 3600L));
+        }
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+        List<BookingResultDTO> results = visitService.addNewBatch(requests);
+        assertTrue(results.stream().allMatch(result -> result.getError() == null), results.toString());
+        return statistics.getPrepareStatementCount();
+    }
+
     @Test
     void addNew_whenDoctorIsNotActive_throwsDoctorNotActiveException() {
         Doctor newInactiveDoctor = new DoctorBuilder().name("Mały")
@@ -250,6 +524,63 @@ class VisitServiceTest {
                      () -> visitService.addNew(doctor.getId(), patient.getId(), epochSunday));
     }
 
+    @Test
+    void findAfter_pagesThroughVisitsInEpochAndIdOrder_untilNextIsNull() throws Exception {
+        Doctor other = doctorRepository.save(new DoctorBuilder().name("Jan").surname("Drugi").nip("2222222222")
+                                                                .hourlyRate(new BigDecimal(100))
+                                                                .build());
+        Visit sameHour = visitRepository.save(new VisitBuilder().doctor(other).patient(patient).epoch(MONDAY_H10Y2100).build());
+        Visit later = visitRepository.save(new VisitBuilder().doctor(doctor).patient(patient).epoch(MONDAY_H10Y2100 + 3600).build());
+        Visit earlier = visitRepository.save(new VisitBuilder().doctor(other).patient(patient).epoch(MONDAY_H10Y2100 - 3600).build());
+        Visit first = visit.getId() < sameHour.getId() ? visit : sameHour;
+        Visit second = first == visit ? sameHour : visit;
+
+        CursorPageDTO<VisitDTO> firstPage = visitService.findAfter(KeysetCursor.decode("", 2), 2);
+        CursorPageDTO<VisitDTO> secondPage = visitService.findAfter(KeysetCursor.decode(firstPage.getNext(), 2), 2);
+
+        assertEquals(Arrays.asList(earlier.getId(), first.getId()),
+                     firstPage.getContent().stream().map(VisitDTO::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(second.getId(), later.getId()),
+                     secondPage.getContent().stream().map(VisitDTO::getId).collect(Collectors.toList()));
+        assertNull(secondPage.getNext());
+    }
+
+    @Test
+    void findBetween_returnsVisitsOfDoctorAndPatientWithinRange_pageByPage() throws Exception {
+        Doctor other = doctorRepository.save(new DoctorBuilder().name("Jan").surname("Drugi").nip("2222222222")
+                                                                .hourlyRate(new BigDecimal(100))
+                                                                .build());
+        Patient otherPatient = patientRepository.save(new Patient("Mrówka", animalType, 2, "Mrówkojad", "mrowkojad@sld.pl"));
+        Visit sameDay = visitRepository.save(new VisitBuilder().doctor(doctor).patient(otherPatient).epoch(MONDAY_H10Y2100 + 3600).build());
+        Visit ofOther = visitRepository.save(new VisitBuilder().doctor(other).patient(patient).epoch(MONDAY_H10Y2100 + 7200).build());
+        visitRepository.save(new VisitBuilder().doctor(doctor).patient(patient).epoch(MONDAY_H00Y2100 + 24 * 3600 + 10 * 3600).build());
+        long from = MONDAY_H00Y2100;
+        long to = MONDAY_H00Y2100 + 24 * 3600;
+
+        CursorPageDTO<VisitDTO> firstPage = visitService.findBetween(doctor.getId(), null, from, to, KeysetCursor.decode("", 2), 1);
+        CursorPageDTO<VisitDTO> secondPage = visitService.findBetween(doctor.getId(), null, from, to, KeysetCursor.decode(firstPage.getNext(), 2), 1);
+        CursorPageDTO<VisitDTO> ofPatient = visitService.findBetween(null, patient.getId(), from, to, KeysetCursor.decode("", 2), 5);
+        CursorPageDTO<VisitDTO> ofBoth = visitService.findBetween(doctor.getId(), otherPatient.getId(), from, to, KeysetCursor.decode("", 2), 5);
+        CursorPageDTO<VisitDTO> all = visitService.findBetween(null, null, from, to, KeysetCursor.decode("", 2), 5);
+
+        assertEquals(Collections.singletonList(visit.getId()), idsOf(firstPage));
+        assertEquals(Collections.singletonList(sameDay.getId()), idsOf(secondPage));
+        assertNull(secondPage.getNext());
+        assertEquals(Arrays.asList(visit.getId(), ofOther.getId()), idsOf(ofPatient));
+        assertEquals(Collections.singletonList(sameDay.getId()), idsOf(ofBoth));
+        assertEquals(Arrays.asList(visit.getId(), sameDay.getId(), ofOther.getId()), idsOf(all));
+    }
+
+    @Test
+    void findBetween_whenFromIsNotBeforeTo_throwsInvalidEpochTimeException() {
+        assertThrows(InvalidEpochTimeException.class,
+                     () -> visitService.findBetween(doctor.getId(), null, MONDAY_H10Y2100, MONDAY_H10Y2100, KeysetCursor.decode("", 2), 5));
+    }
+
+    private static List<Long> idsOf(CursorPageDTO<VisitDTO> page) {
+        return page.getContent().stream().map(VisitDTO::getId).collect(Collectors.toList());
+    }
+
     @Test
     void addNew_whenEpochIsNotAtTheTopOfTheHour_throwsNewVisitNotPossibleException() {
         // 1sec after the top of the hour
@@ -316,6 +647,55 @@ class VisitServiceTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void searchAvailableVisits_combinesAnyOfAndAllOfCriteria() throws Exception {
+        //given
+        AnimalType spider = animalTypeRepository.save(new AnimalType("Pająk"));
+        MedSpecialty wings = medSpecialtyRepository.save(new MedSpecialty("Skrzydłolog"));
+        Doctor spiderBoth = doctorRepository.save(new DoctorBuilder().name("Jan").surname("Pająkowski").nip("2222222222")
+                                                                     .hourlyRate(new BigDecimal(100))
+                                                                     .animalTypes(Collections.singleton(spider))
+                                                                     .medSpecialties(new HashSet<>(Arrays.asList(medSpecialty, wings)))
+                                                                     .build());
+        doctorRepository.save(new DoctorBuilder().name("Ewa").surname("Skrzydlata").nip("3333333333")
+                                                 .hourlyRate(new BigDecimal(100))
+                                                 .animalTypes(Collections.singleton(animalType))
+                                                 .medSpecialties(Collections.singleton(wings))
+                                                 .build());
+        Long oneHour = 60 * 60L;
+        Long atWorkBeginning = MONDAY_H00Y2100 + doctor.getWorksFromHour() * oneHour;
+        //when
+        List<DoctorsFreeSlotsDTO> both = visitService.searchAvailableVisits(NameCriteriaDTO.anyOf(animalType.getName(), spider.getName()),
+                                                                            NameCriteriaDTO.allOf(medSpecialty.getName(), wings.getName()),
+                                                                            atWorkBeginning,
+                                                                            atWorkBeginning + oneHour);
+        List<DoctorsFreeSlotsDTO> either = visitService.searchAvailableVisits(NameCriteriaDTO.anyOf(animalType.getName(), spider.getName()),
+                                                                              NameCriteriaDTO.anyOf(medSpecialty.getName()),
+                                                                              atWorkBeginning,
+                                                                              atWorkBeginning + oneHour);
+        //then
+        assertEquals(1, both.size());
+        assertEquals(spiderBoth.getId(), both.get(0).getDoctorDTO().getId());
+        assertEquals(new HashSet<>(Arrays.asList(doctor.getId(), spiderBoth.getId())),
+                     either.stream().map(slots -> slots.getDoctorDTO().getId()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void searchAvailableVisits_whenCriteriaMissingOrUnknown_throws() {
+        Long oneHour = 60 * 60L;
+        Long atWorkBeginning = MONDAY_H00Y2100 + doctor.getWorksFromHour() * oneHour;
+        assertThrows(SearchRequestInvalidException.class,
+                     () -> visitService.searchAvailableVisits(NameCriteriaDTO.anyOf(animalType.getName()),
+                                                              new NameCriteriaDTO(),
+                                                              atWorkBeginning,
+                                                              atWorkBeginning + oneHour));
+        assertThrows(NotFoundException.class,
+                     () -> visitService.searchAvailableVisits(NameCriteriaDTO.anyOf(animalType.getName(), "Ślimak"),
+                                                              NameCriteriaDTO.anyOf(medSpecialty.getName()),
+                                                              atWorkBeginning,
+                                                              atWorkBeginning + oneHour));
+    }
+
     @Test
     void findAvailableVisits_whenValidInput_omitsInactiveDoctors() throws NotFoundException, InvalidEpochTimeException {
         //given
@@ -334,7 +714,7 @@ class VisitServiceTest {
     }
 
     @Test
-    void findAvailableVisits_whenValidInput_omitsBusyDoctorsSlots() throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, InvalidEpochTimeException {
+    void findAvailableVisits_whenValidInput_omitsBusyDoctorsSlots() throws NewVisitNotPossibleException, NotFoundException, DoctorNotActiveException, InvalidEpochTimeException, BookingQueueFullException {
         //given
         Long oneHour = 60 * 60L;
         Long atWorkBeginning = MONDAY_H00Y2100 + doctor.getWorksFromHour() * oneHour;
@@ -351,6 +731,73 @@ class VisitServiceTest {
         assertEquals(4, result.get(0).getAvailableEpochTimes().size());
     }
 
+    @Test
+    void findAvailableVisits_whenVisitSavedAfterPreviousSearch_omitsItsSlot() throws NotFoundException, InvalidEpochTimeException {
+        //given
+        Long oneHour = 60 * 60L;
+        Long atWorkBeginning = MONDAY_H00Y2100 + doctor.getWorksFromHour() * oneHour;
+        Long twoHoursAfterWorkBeginning = atWorkBeginning + 2 * oneHour;
+        List<DoctorsFreeSlotsDTO> before = visitService.findAvailableVisits(animalType.getName(),
+                                                                            medSpecialty.getName(),
+                                                                            atWorkBeginning,
+                                                                            twoHoursAfterWorkBeginning);
+        assertEquals(Arrays.asList(atWorkBeginning, twoHoursAfterWorkBeginning), before.get(0).getAvailableEpochTimes());
+        visitRepository.save(new VisitBuilder().doctor(doctor).patient(patient).epoch(twoHoursAfterWorkBeginning).build());
+        //when
+        List<DoctorsFreeSlotsDTO> result = visitService.findAvailableVisits(animalType.getName(),
+                                                                            medSpecialty.getName(),
+                                                                            atWorkBeginning,
+                                                                            twoHoursAfterWorkBeginning);
+        //then
+        assertEquals(Collections.singletonList(atWorkBeginning), result.get(0).getAvailableEpochTimes());
+    }
+
+    @Test
+    void findAvailableVisits_whenRepeated_isServedFromCache_untilBookingOrFiring() throws Exception {
+        // after the visit of setUp()
+        Long afterVisit = MONDAY_H10Y2100 + 3600L;
+        Long oneHourLater = afterVisit + 3600L;
+        List<DoctorsFreeSlotsDTO> first = visitService.findAvailableVisits(animalType.getName(), medSpecialty.getName(), afterVisit, oneHourLater);
+        assertEquals(Arrays.asList(afterVisit, oneHourLater), first.get(0).getAvailableEpochTimes());
+        long hitsBefore = slotSearchCache.stats().getHits();
+
+        // same whole hours of the window
+        assertEquals(first, visitService.findAvailableVisits(animalType.getName(), medSpecialty.getName(), afterVisit - 60, oneHourLater + 60));
+        assertEquals(hitsBefore + 1, slotSearchCache.stats().getHits());
+
+        visitService.addNew(doctor.getId(), patient.getId(), afterVisit);
+        List<DoctorsFreeSlotsDTO> afterBooking = visitService.findAvailableVisits(animalType.getName(), medSpecialty.getName(), afterVisit, oneHourLater);
+        assertEquals(Collections.singletonList(oneHourLater), afterBooking.get(0).getAvailableEpochTimes());
+
+        doctorService.fire(doctor.getId());
+        assertEquals(Collections.emptyList(), visitService.findAvailableVisits(animalType.getName(), medSpecialty.getName(), afterVisit, oneHourLater));
+    }
+
+    @Test
+    void getAvailableVisitsETag_isStableUntilScheduleChanges_withOrWithoutCachedResult() throws Exception {
+        Long afterVisit = MONDAY_H10Y2100 + 3600L;
+        String beforeSearch = visitService.getAvailableVisitsETag(animalType.getName(), medSpecialty.getName(), afterVisit, afterVisit + 3600L);
+        visitService.findAvailableVisits(animalType.getName(), medSpecialty.getName(), afterVisit, afterVisit + 3600L);
+
+        assertEquals(beforeSearch, visitService.getAvailableVisitsETag(animalType.getName(), medSpecialty.getName(), afterVisit, afterVisit + 3600L));
+
+        visitService.addNew(doctor.getId(), patient.getId(), afterVisit);
+        assertNotEquals(beforeSearch, visitService.getAvailableVisitsETag(animalType.getName(), medSpecialty.getName(), afterVisit, afterVisit + 3600L));
+    }
+
+    @Test
+    void findAvailableVisits_whenDoctorGainsSpecialtyAfterPreviousSearch_includesDoctor() throws Exception {
+        Long atWorkBeginning = MONDAY_H00Y2100 + doctor.getWorksFromHour() * 3600L;
+        MedSpecialty otherSpecialty = medSpecialtyRepository.save(new MedSpecialty("Skrzydłolog"));
+        assertEquals(Collections.emptyList(), visitService.findAvailableVisits(animalType.getName(), otherSpecialty.getName(), atWorkBeginning, atWorkBeginning + 3600L));
+
+        doctorService.addMedSpecialty(doctor.getId(), otherSpecialty.getId());
+
+        List<DoctorsFreeSlotsDTO> result = visitService.findAvailableVisits(animalType.getName(), otherSpecialty.getName(), atWorkBeginning, atWorkBeginning + 3600L);
+        assertEquals(1, result.size());
+        assertEquals(doctor.getId(), result.get(0).getDoctorDTO().getId());
+    }
+
     @Test
     void findAvailableVisits_whenAnimalTypeNotFound_throwsNotFoundException() {
         assertThrows(NotFoundException.class,
@@ -384,4 +831,56 @@ class VisitServiceTest {
                                                                                              MONDAY_H10Y2100,
                                                                                              MONDAY_H00Y2100));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getById_loadsVisitWithDoctorAndPatientInOneStatementPlusDoctorsCollections() throws NotFoundException {
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+
+        visitService.getById(visit.getId());
+
+        // visit with doctor, patient and patient's animal type, then doctor's animal types and med specialties
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAll_statementCountDoesNotDependOnNumberOfDoctors() {
+        for (int i = 0; i < 3; i++) {
+            Doctor anotherDoctor = new DoctorBuilder().name("Doctor" + i)
+                                                      .surname("Batch")
+                                                      .nip("1181328620")
+                                                      .hourlyRate(new BigDecimal(100))
+                                                      .build();
+            anotherDoctor.addAnimalType(animalType);
+            anotherDoctor.addMedSpecialty(medSpecialty);
+            doctorRepository.save(anotherDoctor);
+            visitRepository.save(new VisitBuilder().doctor(anotherDoctor).patient(patient).epoch(MONDAY_H10Y2100).build());
+        }
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+        visitService.findAll(PageRequest.of(0, 1));
+        long forOneVisit = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        Page<VisitDTO> result = visitService.findAll(PageRequest.of(0, 4));
+
+        assertEquals(4, result.getNumberOfElements());
+        assertEquals(forOneVisit, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void readEndpoints_loadNoEntities_andFillDoctorsCollections() throws Exception {
+        Statistics statistics = clearedStatistics(entityManagerFactory);
+
+        VisitDTO byId = visitService.getById(visit.getId());
+        Page<VisitDTO> page = visitService.findAll(PageRequest.of(0, 5));
+        CursorPageDTO<VisitDTO> keysetPage = visitService.findAfter(KeysetCursor.decode("", 2), 5);
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        for (VisitDTO result : Arrays.asList(byId, page.getContent().get(0), keysetPage.getContent().get(0))) {
+            assertEquals(Collections.singleton(new AnimalTypeDTO(animalType.getId(), animalType.getName())),
+                         result.getDoctor().getAnimalTypes());
+            assertEquals(Collections.singleton(new MedSpecialtyDTO(medSpecialty.getId(), medSpecialty.getName())),
+                         result.getDoctor().getMedSpecialties());
+            assertEquals(animalType.getName(), result.getPatient().getAnimalType().getName());
+        }
+    }
+}